@@ -6,4 +6,6 @@ import lombok.Data;
 public class MoBankTokenApiResponse {
 	private String access_token;
 	private String tokenType;
+	//토큰 유효 시간 (초, 주지 않으면 mo-bank.token.default-ttl-millis)
+	private Long expires_in;
 }
@@ -1,5 +1,6 @@
 package site.marrymo.restapi.bank.service;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
@@ -7,8 +8,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 import site.marrymo.restapi.moneygift_history.dto.request.MoBankTransferRequest;
 import site.marrymo.restapi.moneygift_history.dto.response.MoBankTransferResponse;
 import site.marrymo.restapi.bank.dto.request.MoBankAccountRegisterRequest;
@@ -23,6 +28,7 @@ import site.marrymo.restapi.user.repository.UserRepository;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.Function;
 
 @Slf4j
 @Service
@@ -36,14 +42,23 @@ public class MoBankService {
 
 	@Value("${mo-bank.client_secret}")
 	private String clientSecret;
-	private final WebClient moBankWebClient = WebClient.builder().baseUrl("http://3.37.251.197/").build();
-
-    public MoBankService(UserRepository userRepository) {
-        this.userRepository = userRepository;
-    }
-
+	private final WebClient moBankWebClient;
+	private final MoBankTokenManager moBankTokenManager;
+
+	public MoBankService(UserRepository userRepository,
+		@Qualifier("moBankWebClient") WebClient moBankWebClient,
+		MeterRegistry meterRegistry,
+		//만료 1분 전부터 새 토큰을 받는다
+		@Value("${mo-bank.token.refresh-skew-millis:60000}") long refreshSkewMillis,
+		//MoBank가 유효 시간을 주지 않을 때 쓰는 값
+		@Value("${mo-bank.token.default-ttl-millis:600000}") long defaultTtlMillis) {
+		this.userRepository = userRepository;
+		this.moBankWebClient = moBankWebClient;
+		this.moBankTokenManager = new MoBankTokenManager(this::callMoBankTokenApi, refreshSkewMillis, defaultTtlMillis,
+			meterRegistry);
+	}
 
-    public MoBankTokenApiResponse callMoBankTokenApi() {
+	public MoBankTokenApiResponse callMoBankTokenApi() {
 
 		MoBankTokenApiRequest tokenApiRequest = MoBankTokenApiRequest.builder()
 			.clientId(clientId)
@@ -61,8 +76,6 @@ public class MoBankService {
 	}
 
 	public HashMap<String,List<MoBankAccountResponse>> registerMoBankAccount(String userCode, Who who, OpenBankingAccountInquiryResponse openBankingAccountInquiryResponse){
-		MoBankTokenApiResponse moBankToken = callMoBankTokenApi();
-
 		// accountInqueryResponse -> MoBankAccountRegisterRequest로 변환
 		List<MoBankAccountRegisterRequest> moBankAccountRegisterRequestList = new ArrayList<>();
 		String username= openBankingAccountInquiryResponse.getUser_name();
@@ -76,10 +89,10 @@ public class MoBankService {
 					.build());
 		}
 
-		return moBankWebClient
+		return withToken(authorization -> moBankWebClient
 				.post()
 				.uri("/api/account")
-				.header("Authorization", moBankToken.getTokenType()+ " " + moBankToken.getAccess_token())
+				.header("Authorization", authorization)
 				.contentType(MediaType.APPLICATION_JSON)
 				.bodyValue(moBankAccountRegisterRequestList)
 				.exchangeToMono(response -> {
@@ -102,19 +115,62 @@ public class MoBankService {
 						return response.createException().flatMap(Mono::error);
 					}
 				})
-				.block();
+				.block());
 	}
 
 	public MoBankTransferResponse sendMoney(MoBankTransferRequest moBankTransferRequest){
-		MoBankTokenApiResponse moBankToken = callMoBankTokenApi();
-		return moBankWebClient.post()
+		return withToken(authorization -> moBankWebClient.post()
 				.uri("/api/account/transfer")
-				.header("Authorization", moBankToken.getTokenType() + " " + moBankToken.getAccess_token())
+				.header("Authorization", authorization)
 				.contentType(MediaType.APPLICATION_JSON)
 				.bodyValue(moBankTransferRequest)
 				.retrieve()
 				.bodyToMono(MoBankTransferResponse.class)
-				.block();
+				.block());
+	}
+
+	//응답을 기다리는 동안 호출한 스레드를 잡아 두지 않는 송금
+	//같은 송금을 다시 보낼 때는 같은 idempotencyKey를 보내서 MoBank가 한 번만 처리하게 한다
+	public Mono<MoBankTransferResponse> sendMoneyAsync(MoBankTransferRequest moBankTransferRequest, String idempotencyKey) {
+		return withTokenAsync(authorization -> moBankWebClient.post()
+				.uri("/api/account/transfer")
+				.header("Authorization", authorization)
+				.header("Idempotency-Key", idempotencyKey)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(moBankTransferRequest)
+				.retrieve()
+				.bodyToMono(MoBankTransferResponse.class));
+	}
+
+	//캐시된 토큰으로 호출하고, 401이면 토큰을 버리고 새 토큰으로 한 번만 다시 호출한다
+	//(401은 MoBank가 요청을 처리하지 않았다는 뜻이므로 송금도 다시 보내도 된다)
+	private <T> T withToken(Function<String, T> call) {
+		String authorization = moBankTokenManager.getAuthorization();
+		try {
+			return call.apply(authorization);
+		} catch (WebClientResponseException.Unauthorized e) {
+			moBankTokenManager.invalidate(authorization);
+			return call.apply(moBankTokenManager.getAuthorization());
+		}
+	}
+
+	//withToken의 non-blocking 버전
+	private <T> Mono<T> withTokenAsync(Function<String, Mono<T>> call) {
+		return authorization().flatMap(authorization -> call.apply(authorization)
+			.onErrorResume(WebClientResponseException.Unauthorized.class, e -> {
+				moBankTokenManager.invalidate(authorization);
+				return authorization().flatMap(call);
+			}));
+	}
+
+	//토큰 발급은 blocking 호출이므로 캐시된 토큰이 없을 때만 boundedElastic 스레드에서 받는다
+	private Mono<String> authorization() {
+		return Mono.defer(() -> {
+			String authorization = moBankTokenManager.getCachedAuthorization();
+			if (authorization != null)
+				return Mono.just(authorization);
+			return Mono.fromCallable(moBankTokenManager::getAuthorization).subscribeOn(Schedulers.boundedElastic());
+		});
 	}
 
 }
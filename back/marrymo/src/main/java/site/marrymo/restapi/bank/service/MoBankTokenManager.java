@@ -0,0 +1,134 @@
+package site.marrymo.restapi.bank.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import site.marrymo.restapi.bank.dto.response.MoBankTokenApiResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * MoBank access token 캐시
+ * 1. 발급받은 토큰은 만료 refresh-skew 전까지 재사용한다.
+ * 2. 새로 받아야 할 때는 한 요청만 MoBank를 호출하고, 동시에 토큰이 필요한 나머지 요청은 그 결과를 기다린다.
+ * 3. MoBank가 401을 돌려주면 그 토큰을 버린다(invalidate). 다음 요청은 새 토큰을 받는다.
+ */
+@Slf4j
+public class MoBankTokenManager {
+	private final Supplier<MoBankTokenApiResponse> tokenLoader;
+	private final long refreshSkewMillis;
+	private final long defaultTtlMillis;
+	private final MeterRegistry meterRegistry;
+
+	private final AtomicReference<CachedToken> cachedToken = new AtomicReference<>();
+	//진행 중인 토큰 발급
+	private final AtomicReference<CompletableFuture<CachedToken>> inFlight = new AtomicReference<>();
+
+	public MoBankTokenManager(Supplier<MoBankTokenApiResponse> tokenLoader,
+		long refreshSkewMillis,
+		long defaultTtlMillis,
+		MeterRegistry meterRegistry) {
+		this.tokenLoader = tokenLoader;
+		this.refreshSkewMillis = refreshSkewMillis;
+		this.defaultTtlMillis = defaultTtlMillis;
+		this.meterRegistry = meterRegistry;
+	}
+
+	//"tokenType accessToken" 형태의 Authorization 헤더 값
+	public String getAuthorization() {
+		CachedToken token = cachedToken.get();
+		if (isFresh(token)) {
+			count("hit");
+			return token.authorization;
+		}
+
+		return refresh().authorization;
+	}
+
+	//캐시된 토큰이 아직 쓸 수 있으면 Authorization 헤더 값, 새로 받아야 하면 null (MoBank를 호출하지 않는다)
+	public String getCachedAuthorization() {
+		CachedToken token = cachedToken.get();
+		if (!isFresh(token))
+			return null;
+
+		count("hit");
+		return token.authorization;
+	}
+
+	//이 토큰이 아직 캐시되어 있을 때만 버린다 (이미 새로 받은 토큰은 그대로 둔다)
+	public void invalidate(String authorization) {
+		CachedToken token = cachedToken.get();
+		if (token != null && token.authorization.equals(authorization) && cachedToken.compareAndSet(token, null)) {
+			log.info("mobank token invalidated.");
+			meterRegistry.counter("marrymo.mobank.token.invalidations").increment();
+		}
+	}
+
+	private CachedToken refresh() {
+		CompletableFuture<CachedToken> flight = new CompletableFuture<>();
+		CompletableFuture<CachedToken> running = inFlight.compareAndExchange(null, flight);
+		if (running != null) {
+			count("shared");
+			return await(running);
+		}
+
+		try {
+			//기다리는 사이에 다른 요청이 이미 새로 받았을 수 있다
+			CachedToken token = cachedToken.get();
+			if (!isFresh(token)) {
+				token = load();
+				cachedToken.set(token);
+				count("issued");
+			} else {
+				count("hit");
+			}
+			flight.complete(token);
+			return token;
+		} catch (RuntimeException e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.set(null);
+		}
+	}
+
+	private CachedToken await(CompletableFuture<CachedToken> running) {
+		try {
+			return running.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause)
+				throw cause;
+			throw e;
+		}
+	}
+
+	private CachedToken load() {
+		long now = System.currentTimeMillis();
+		MoBankTokenApiResponse response = tokenLoader.get();
+
+		long ttlMillis = response.getExpires_in() != null && response.getExpires_in() > 0
+			? response.getExpires_in() * 1000 : defaultTtlMillis;
+		//유효 시간이 skew보다 짧으면 절반이 지났을 때 다시 받는다
+		long refreshAfter = ttlMillis > refreshSkewMillis * 2 ? ttlMillis - refreshSkewMillis : ttlMillis / 2;
+
+		return new CachedToken(response.getTokenType() + " " + response.getAccess_token(), now + refreshAfter);
+	}
+
+	private boolean isFresh(CachedToken token) {
+		return token != null && System.currentTimeMillis() < token.refreshAt;
+	}
+
+	private void count(String result) {
+		meterRegistry.counter("marrymo.mobank.token", "result", result).increment();
+	}
+
+	@AllArgsConstructor
+	private static class CachedToken {
+		private final String authorization;
+		//이 시각부터 새로 받는다 (epoch millis)
+		private final long refreshAt;
+	}
+}
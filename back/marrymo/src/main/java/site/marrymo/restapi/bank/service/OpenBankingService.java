@@ -1,6 +1,8 @@
 package site.marrymo.restapi.bank.service;
 
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
@@ -16,13 +18,15 @@ import org.springframework.http.HttpHeaders;
 @Slf4j
 @Service
 @Transactional
+@RequiredArgsConstructor
 public class OpenBankingService {
 
     @Value("${open-banking.client_id}")
     private String clientId;
     @Value("${open-banking.client_secret}")
     private String clientSecret;
-    private final WebClient openBankingWebClient = WebClient.builder().baseUrl("https://testapi.openbanking.or.kr").build();
+    @Qualifier("openBankingWebClient")
+    private final WebClient openBankingWebClient;
 
     public OpenBankingTokenApiResponse callTokenApi(OpenBankingCodeRequest openBankingCodeRequest){
         HttpHeaders headers = new HttpHeaders();
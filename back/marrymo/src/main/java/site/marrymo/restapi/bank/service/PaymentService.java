@@ -6,11 +6,14 @@ import java.util.Map;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.reactive.function.BodyInserters;
 import org.springframework.web.reactive.function.client.WebClient;
 
@@ -19,6 +22,7 @@ import net.minidev.json.JSONObject;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 import site.marrymo.restapi.bank.dto.request.MoBankTokenApiRequest;
 import site.marrymo.restapi.bank.dto.request.OpenBankingCodeRequest;
 import site.marrymo.restapi.bank.dto.request.OpenBankingTokenApiRequest;
@@ -48,20 +52,42 @@ public class PaymentService {
 	private final String CID = "TC0ONETIME";
 	private final String PID = "Marrymo";
 	private final UserRepository userRepository;
+	private final Scheduler dbScheduler;
+	private final TransactionTemplate transactionTemplate;
 
-	private String forWho = "";
-	private final WebClient kakaopayWebClient = WebClient.builder()
-		.baseUrl("https://open-api.kakaopay.com/online/v1/payment/ready")
-		.build();
+	@Qualifier("kakaopayWebClient")
+	private final WebClient kakaopayWebClient;
 
-	public PaymentResponse paymentApi(MoneygiftTransferRequest transfer) throws JsonProcessingException {
+	//요청 스레드를 잡아 두지 않는다
+	//사용자 조회는 dbScheduler에서, 카카오페이 호출은 WebClient의 event loop에서 실행한다
+	//요청 스레드에서 트랜잭션(DB connection)을 열지 않도록 조회할 때만 트랜잭션을 연다
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public Mono<PaymentResponse> paymentApiAsync(MoneygiftTransferRequest transfer) {
+		return Mono.fromCallable(() -> createReadyBody(transfer, transactionTemplate.execute(status -> itemName(transfer))))
+			.subscribeOn(dbScheduler)
+			.flatMap(jsonBody -> kakaopayWebClient.post()
+				.header(HttpHeaders.AUTHORIZATION, "SECRET_KEY " + secretKey)
+				.contentType(MediaType.APPLICATION_JSON)
+				.bodyValue(jsonBody)
+				.retrieve()
+				.bodyToMono(PaymentResponse.class));
+	}
 
+	//결제 상품 이름 (받는 사람 이름)
+	private String itemName(MoneygiftTransferRequest transfer) {
 		User user = userRepository.findByUserCode(transfer.getUserCode()).orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
+		//요청마다 다르므로 필드에 두지 않는다
+		String forWho;
 		if (transfer.getGuestType() == GuestType.GROOM)
 		forWho = user.getCard().getGroomName();
 		else
 		forWho = user.getCard().getBrideName();
 		forWho += "님에게 전달할 축의금(Marrymo)";
+		return forWho;
+	}
+
+	//결제 준비 요청 body (JSON)
+	private String createReadyBody(MoneygiftTransferRequest transfer, String forWho) throws JsonProcessingException {
 
 		Map<String, Object> bodyMap = new HashMap<>();
 		bodyMap.put("cid", CID);
@@ -77,15 +103,7 @@ public class PaymentService {
 
 		ObjectMapper objectMapper = new ObjectMapper();
 		// Map을 JSON 문자열로 직렬화
-		String jsonBody = objectMapper.writeValueAsString(bodyMap);
-
-		return kakaopayWebClient.post()
-			.header(HttpHeaders.AUTHORIZATION, "SECRET_KEY " + secretKey)
-			.contentType(MediaType.APPLICATION_JSON)
-			.bodyValue(jsonBody) // JSON 문자열을 바로 전달
-			.retrieve()
-			.bodyToMono(PaymentResponse.class)
-			.block();
+		return objectMapper.writeValueAsString(bodyMap);
 	}
 
 }
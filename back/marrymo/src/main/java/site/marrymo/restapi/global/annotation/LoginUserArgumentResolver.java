@@ -2,28 +2,24 @@ package site.marrymo.restapi.global.annotation;
 
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 
-import site.marrymo.restapi.global.jwt.JWTProvider;
 import site.marrymo.restapi.global.jwt.exception.JWTErrorCode;
 import site.marrymo.restapi.global.jwt.exception.JWTException;
+import site.marrymo.restapi.global.security.userdetails.MarrymoPrincipal;
 import site.marrymo.restapi.user.dto.UserDTO;
-import site.marrymo.restapi.user.entity.User;
-import site.marrymo.restapi.user.repository.UserRepository;
 
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class LoginUserArgumentResolver implements HandlerMethodArgumentResolver {
-    private final JWTProvider jwtProvider;
-    private final UserRepository userRepository;
 
     @Override
     public boolean supportsParameter(MethodParameter parameter) {
@@ -37,27 +33,34 @@ public class LoginUserArgumentResolver implements HandlerMethodArgumentResolver
             return null;
         }
 
-        HttpServletRequest httpServletRequest = webRequest.getNativeRequest(HttpServletRequest.class);
-        if(httpServletRequest != null){
-            Cookie[] cookies = httpServletRequest.getCookies();
-            if(cookies != null){
-                for(Cookie cookie : cookies){
-                    String tokenName = cookie.getName();
-                    String tokenValue = cookie.getValue();
-
-                    if(tokenName.equals("accessToken")){
-                        if(tokenValue != null && !tokenValue.trim().equals("")){
-                            String userCode = jwtProvider.getUserCode(tokenValue);
-                            User user = userRepository.findByUserCode(userCode)
-                                    .orElseThrow(() -> new JWTException(JWTErrorCode.INVALID_TOKEN));
-
-                            return UserDTO.toDTO(user);
-                        }
-                    }
-                }
-            }
+        //JwtAuthenticationFilter가 인증을 마친 요청이면 SecurityContext에 로그인 사용자 정보가 있다
+        //토큰을 다시 파싱하거나 DB를 조회하지 않는다
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if(authentication != null && authentication.getPrincipal() instanceof MarrymoPrincipal principal){
+            return UserDTO.toDTO(principal);
+        }
+
+        //토큰은 검증됐지만 그 userCode의 사용자가 없으면 필터가 인증 정보를 올리지 않는다 (탈퇴한 사용자 등)
+        HttpServletRequest request = webRequest.getNativeRequest(HttpServletRequest.class);
+        if(request != null && hasAccessTokenCookie(request)) {
+            throw new JWTException(JWTErrorCode.INVALID_TOKEN);
         }
 
+        //비회원 요청 (쿠키 없이 필터를 통과한 경우)
         return null;
     }
-}
\ No newline at end of file
+
+    private boolean hasAccessTokenCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if(cookies == null) {
+            return false;
+        }
+
+        for(Cookie cookie : cookies) {
+            if(cookie.getName().equals("accessToken") && cookie.getValue() != null && !cookie.getValue().isBlank()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,165 @@
+package site.marrymo.restapi.global.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import site.marrymo.restapi.global.redis.service.RedisService;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * 로컬(Caffeine) - 공유(Redis) 2단계 read-through 캐시
+ * 1. 로컬 캐시에 있으면 바로 반환
+ * 2. 없으면 Redis에서 찾아 로컬 캐시에 채운다
+ * 3. Redis에도 없으면 loader(DB 조회)를 실행하고 두 캐시에 모두 저장한다
+ *
+ * 로컬 캐시는 서버마다 따로 존재하므로 다른 서버에서 무효화한 값이 남아 있을 수 있다.
+ * 그래서 로컬 TTL은 짧게, Redis TTL은 길게 잡는다.
+ */
+@Slf4j
+public class TwoTierCache<V> {
+    private final String name;
+    private final String keyPrefix;
+    private final Class<V> type;
+    private final long redisTtlMillis;
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, V> localCache;
+
+    private final Counter localHitCounter;
+    private final Counter redisHitCounter;
+    private final Counter missCounter;
+    private final Counter invalidationCounter;
+
+    public TwoTierCache(String name,
+                        String keyPrefix,
+                        Class<V> type,
+                        long maximumSize,
+                        Duration localTtl,
+                        Duration redisTtl,
+                        RedisService redisService,
+                        ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry) {
+        this.name = name;
+        this.keyPrefix = keyPrefix;
+        this.type = type;
+        this.redisTtlMillis = redisTtl.toMillis();
+        this.redisService = redisService;
+        this.objectMapper = objectMapper;
+
+        this.localHitCounter = requestCounter(meterRegistry, "local_hit");
+        this.redisHitCounter = requestCounter(meterRegistry, "redis_hit");
+        this.missCounter = requestCounter(meterRegistry, "miss");
+        this.invalidationCounter = Counter.builder("marrymo.cache.invalidations")
+                .tag("cache", name)
+                .register(meterRegistry);
+
+        Counter sizeEvictionCounter = evictionCounter(meterRegistry, RemovalCause.SIZE);
+        Counter expiredEvictionCounter = evictionCounter(meterRegistry, RemovalCause.EXPIRED);
+
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(localTtl)
+                .removalListener((String key, V value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE)
+                        sizeEvictionCounter.increment();
+                    else if (cause == RemovalCause.EXPIRED)
+                        expiredEvictionCounter.increment();
+                })
+                .build();
+
+        meterRegistry.gauge("marrymo.cache.size", Tags.of("cache", name), localCache, Cache::estimatedSize);
+    }
+
+    public V get(String key, Supplier<V> loader) {
+        V value = localCache.getIfPresent(key);
+        if (value != null) {
+            localHitCounter.increment();
+            return value;
+        }
+
+        //같은 key에 대한 동시 요청은 한 번만 Redis/DB를 조회한다
+        return localCache.get(key, k -> readRedis(k).orElseGet(() -> {
+            missCounter.increment();
+            V loaded = loader.get();
+            writeRedis(k, loaded);
+            return loaded;
+        }));
+    }
+
+    //트랜잭션 안에서 호출되면 커밋 이후에 한 번 더 지운다
+    //(커밋 전에 다른 요청이 예전 값을 다시 채워 넣는 경우를 막기 위함)
+    public void evict(String key) {
+        evictNow(key);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(key);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String key) {
+        invalidationCounter.increment();
+        localCache.invalidate(key);
+        try {
+            redisService.deleteData(keyPrefix + key);
+        } catch (RuntimeException e) {
+            log.warn("[{}] redis evict failed. key: {}, message: {}", name, key, e.getMessage());
+        }
+    }
+
+    private Optional<V> readRedis(String key) {
+        try {
+            String json = redisService.getValue(keyPrefix + key);
+            if (json == null)
+                return Optional.empty();
+
+            redisHitCounter.increment();
+            return Optional.of(objectMapper.readValue(json, type));
+        } catch (JsonProcessingException | RuntimeException e) {
+            //Redis 장애나 직렬화 형식이 바뀐 경우에는 DB에서 다시 읽는다
+            log.warn("[{}] redis read failed. key: {}, message: {}", name, key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private void writeRedis(String key, V value) {
+        if (value == null)
+            return;
+
+        try {
+            redisService.setValue(keyPrefix + key, objectMapper.writeValueAsString(value), redisTtlMillis);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.warn("[{}] redis write failed. key: {}, message: {}", name, key, e.getMessage());
+        }
+    }
+
+    private Counter requestCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("marrymo.cache.requests")
+                .tag("cache", name)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private Counter evictionCounter(MeterRegistry meterRegistry, RemovalCause cause) {
+        return Counter.builder("marrymo.cache.evictions")
+                .tag("cache", name)
+                .tag("cause", cause.name().toLowerCase())
+                .register(meterRegistry);
+    }
+}
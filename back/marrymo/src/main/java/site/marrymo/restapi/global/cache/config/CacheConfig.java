@@ -0,0 +1,71 @@
+package site.marrymo.restapi.global.cache.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import site.marrymo.restapi.global.cache.TwoTierCache;
+import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.user.dto.UserIdentity;
+import site.marrymo.restapi.user.dto.response.UserGetResponse;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+	//청첩장 조회 캐시 최대 개수
+	@Value("${cache.invitation.maximum-size:10000}")
+	private long invitationMaximumSize;
+
+	//서버 로컬 캐시 유지 시간 (다른 서버의 무효화가 늦게 반영될 수 있는 최대 시간)
+	@Value("${cache.invitation.local-ttl-seconds:30}")
+	private long invitationLocalTtlSeconds;
+
+	//Redis 공유 캐시 유지 시간
+	@Value("${cache.invitation.redis-ttl-seconds:600}")
+	private long invitationRedisTtlSeconds;
+
+	//userCode 식별 정보 캐시 최대 개수
+	@Value("${cache.user-identity.maximum-size:50000}")
+	private long userIdentityMaximumSize;
+
+	//탈퇴 여부가 다른 서버에 늦게 반영될 수 있는 최대 시간
+	@Value("${cache.user-identity.local-ttl-seconds:60}")
+	private long userIdentityLocalTtlSeconds;
+
+	@Value("${cache.user-identity.redis-ttl-seconds:3600}")
+	private long userIdentityRedisTtlSeconds;
+
+	@Bean
+	public TwoTierCache<UserGetResponse> invitationCache(RedisService redisService, ObjectMapper objectMapper,
+		MeterRegistry meterRegistry) {
+		return new TwoTierCache<>(
+			"invitation",
+			"Invitation ",
+			UserGetResponse.class,
+			invitationMaximumSize,
+			Duration.ofSeconds(invitationLocalTtlSeconds),
+			Duration.ofSeconds(invitationRedisTtlSeconds),
+			redisService,
+			objectMapper,
+			meterRegistry);
+	}
+
+	@Bean
+	public TwoTierCache<UserIdentity> userIdentityCache(RedisService redisService, ObjectMapper objectMapper,
+		MeterRegistry meterRegistry) {
+		return new TwoTierCache<>(
+			"user-identity",
+			"UserIdentity ",
+			UserIdentity.class,
+			userIdentityMaximumSize,
+			Duration.ofSeconds(userIdentityLocalTtlSeconds),
+			Duration.ofSeconds(userIdentityRedisTtlSeconds),
+			redisService,
+			objectMapper,
+			meterRegistry);
+	}
+}
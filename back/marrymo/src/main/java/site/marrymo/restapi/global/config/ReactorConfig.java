@@ -0,0 +1,24 @@
+package site.marrymo.restapi.global.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+public class ReactorConfig {
+
+	//비동기 요청 처리 중 JPA 조회 / 저장처럼 blocking인 작업을 실행하는 스레드 수 (DB connection pool 크기에 맞춘다)
+	@Value("${reactor.db-scheduler.thread-cap:10}")
+	private int dbThreadCap;
+
+	//스레드가 모두 바쁠 때 기다릴 수 있는 작업 수 (넘치면 바로 실패한다)
+	@Value("${reactor.db-scheduler.queued-task-cap:1000}")
+	private int dbQueuedTaskCap;
+
+	@Bean(destroyMethod = "dispose")
+	public Scheduler dbScheduler() {
+		return Schedulers.newBoundedElastic(dbThreadCap, dbQueuedTaskCap, "db");
+	}
+}
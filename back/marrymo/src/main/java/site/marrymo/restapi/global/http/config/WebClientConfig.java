@@ -0,0 +1,120 @@
+package site.marrymo.restapi.global.http.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 외부 API(MoBank, 오픈뱅킹, 카카오페이) 호출용 WebClient
+ * 1. 연동마다 connection pool을 따로 둔다. 한 곳이 느려져 pool이 차도 다른 연동은 영향을 받지 않는다.
+ * 2. pool이 가득 차면 pending-acquire-max-count개까지만 기다리고, 그 이상이거나 pending-acquire-timeout이 지나면 바로 실패한다.
+ * 3. 연결 / 응답 timeout이 있으므로 응답하지 않는 서버를 기다리며 요청 스레드가 끝없이 쌓이지 않는다.
+ * Spring Boot의 WebClient.Builder를 쓰므로 호출 시간은 http.client.requests(client.name = host)로,
+ * pool 상태는 reactor.netty.connection.provider.*(name, remote.address)로 기록된다.
+ */
+@Configuration
+public class WebClientConfig implements DisposableBean {
+
+	@Value("${http-client.connect-timeout-millis:2000}")
+	private int connectTimeoutMillis;
+
+	@Value("${http-client.response-timeout-millis:5000}")
+	private long responseTimeoutMillis;
+
+	//pool에서 연결을 기다리는 최대 시간
+	@Value("${http-client.pending-acquire-timeout-millis:1000}")
+	private long pendingAcquireTimeoutMillis;
+
+	//상대 서버가 keep-alive 연결을 먼저 끊기 전에 정리한다
+	@Value("${http-client.max-idle-time-millis:20000}")
+	private long maxIdleTimeMillis;
+
+	@Value("${http-client.max-life-time-millis:300000}")
+	private long maxLifeTimeMillis;
+
+	@Value("${http-client.mo-bank.base-url:http://3.37.251.197/}")
+	private String moBankBaseUrl;
+
+	//결혼식 직후 축의금 송금이 몰리는 곳
+	@Value("${http-client.mo-bank.max-connections:50}")
+	private int moBankMaxConnections;
+
+	@Value("${http-client.mo-bank.pending-acquire-max-count:100}")
+	private int moBankPendingAcquireMaxCount;
+
+	@Value("${http-client.open-banking.base-url:https://testapi.openbanking.or.kr}")
+	private String openBankingBaseUrl;
+
+	@Value("${http-client.open-banking.max-connections:10}")
+	private int openBankingMaxConnections;
+
+	@Value("${http-client.open-banking.pending-acquire-max-count:20}")
+	private int openBankingPendingAcquireMaxCount;
+
+	@Value("${http-client.kakaopay.base-url:https://open-api.kakaopay.com/online/v1/payment/ready}")
+	private String kakaopayBaseUrl;
+
+	@Value("${http-client.kakaopay.max-connections:20}")
+	private int kakaopayMaxConnections;
+
+	@Value("${http-client.kakaopay.pending-acquire-max-count:40}")
+	private int kakaopayPendingAcquireMaxCount;
+
+	private final List<ConnectionProvider> connectionProviders = new ArrayList<>();
+
+	@Bean
+	public WebClient moBankWebClient(WebClient.Builder webClientBuilder) {
+		return webClient(webClientBuilder, "mo-bank", moBankBaseUrl, moBankMaxConnections, moBankPendingAcquireMaxCount);
+	}
+
+	@Bean
+	public WebClient openBankingWebClient(WebClient.Builder webClientBuilder) {
+		return webClient(webClientBuilder, "open-banking", openBankingBaseUrl, openBankingMaxConnections,
+			openBankingPendingAcquireMaxCount);
+	}
+
+	@Bean
+	public WebClient kakaopayWebClient(WebClient.Builder webClientBuilder) {
+		return webClient(webClientBuilder, "kakaopay", kakaopayBaseUrl, kakaopayMaxConnections,
+			kakaopayPendingAcquireMaxCount);
+	}
+
+	@Override
+	public void destroy() {
+		connectionProviders.forEach(ConnectionProvider::dispose);
+	}
+
+	private WebClient webClient(WebClient.Builder webClientBuilder, String name, String baseUrl, int maxConnections,
+		int pendingAcquireMaxCount) {
+		ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+			.maxConnections(maxConnections)
+			.pendingAcquireMaxCount(pendingAcquireMaxCount)
+			.pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMillis))
+			.maxIdleTime(Duration.ofMillis(maxIdleTimeMillis))
+			.maxLifeTime(Duration.ofMillis(maxLifeTimeMillis))
+			.evictInBackground(Duration.ofSeconds(30))
+			.metrics(true)
+			.build();
+		connectionProviders.add(connectionProvider);
+
+		HttpClient httpClient = HttpClient.create(connectionProvider)
+			.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMillis)
+			.option(ChannelOption.SO_KEEPALIVE, true)
+			.responseTimeout(Duration.ofMillis(responseTimeoutMillis));
+
+		return webClientBuilder.clone()
+			.baseUrl(baseUrl)
+			.clientConnector(new ReactorClientHttpConnector(httpClient))
+			.build();
+	}
+}
@@ -0,0 +1,30 @@
+package site.marrymo.restapi.global.idempotency.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+//Idempotency-Key마다 Redis에 JSON으로 저장하는 값
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class IdempotencyRecord {
+	//처리 중인 요청마다 다른 값 (처리 중 표시를 그 요청만 바꾸거나 지울 수 있도록)
+	private String owner;
+	//같은 key로 다른 요청을 보냈는지 확인하는 요청 body의 SHA-256
+	private String requestHash;
+	//처리가 끝났으면 응답 JSON, 처리 중이면 null
+	private String response;
+
+	@JsonIgnore
+	public boolean isCompleted() {
+		return response != null;
+	}
+
+	public IdempotencyRecord complete(String response) {
+		return new IdempotencyRecord(owner, requestHash, response);
+	}
+}
@@ -0,0 +1,17 @@
+package site.marrymo.restapi.global.idempotency.exception;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import site.marrymo.restapi.global.exception.ErrorCode;
+
+@Getter
+@AllArgsConstructor
+public enum IdempotencyErrorCode implements ErrorCode {
+	INVALID_IDEMPOTENCY_KEY(400, "idempotency_001", "Idempotency-Key는 1자 이상 100자 이하로 입력해주세요."),
+	IDEMPOTENCY_KEY_REUSED(422, "idempotency_002", "다른 요청에 이미 사용된 Idempotency-Key입니다."),
+	REQUEST_IN_PROGRESS(409, "idempotency_003", "같은 Idempotency-Key의 요청을 처리하고 있습니다. 잠시 후 다시 시도해주세요.");
+
+	private int statusCode;
+	private String errorCode;
+	private String message;
+}
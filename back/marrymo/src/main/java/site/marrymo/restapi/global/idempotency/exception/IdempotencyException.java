@@ -0,0 +1,10 @@
+package site.marrymo.restapi.global.idempotency.exception;
+
+import site.marrymo.restapi.global.exception.ErrorCode;
+import site.marrymo.restapi.global.exception.MarrymoException;
+
+public class IdempotencyException extends MarrymoException {
+	public IdempotencyException(ErrorCode errorCode) {
+		super(errorCode);
+	}
+}
@@ -0,0 +1,184 @@
+package site.marrymo.restapi.global.idempotency.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import site.marrymo.restapi.global.idempotency.dto.IdempotencyRecord;
+import site.marrymo.restapi.global.idempotency.exception.IdempotencyErrorCode;
+import site.marrymo.restapi.global.idempotency.exception.IdempotencyException;
+import site.marrymo.restapi.global.redis.service.RedisService;
+
+/**
+ * Idempotency-Key로 같은 요청을 한 번만 처리한다
+ * 1. 처음 온 요청이 SET NX로 "처리 중" 표시를 남기고 처리한다. 끝나면 응답을 response-ttl 동안 남긴다.
+ * 2. 처리가 끝난 key로 다시 오면 처리하지 않고 남겨 둔 응답을 돌려준다.
+ * 3. 처리 중인 key로 다시 오면 스레드를 잡아 두지 않고 wait-interval마다 Redis를 확인하며 기다린다.
+ *    처음 요청이 실패하면 표시가 지워지므로 기다리던 요청이 대신 처리한다.
+ * 같은 key에 다른 요청 body를 보내면 거절한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+	private static final String KEY_PREFIX = "Idempotency:";
+	private static final int MAX_KEY_LENGTH = 100;
+
+	private final RedisService redisService;
+	private final ObjectMapper objectMapper;
+	private final MeterRegistry meterRegistry;
+
+	//처리 중 표시를 남겨 두는 시간 (서버가 처리 도중 죽어도 이 시간이 지나면 다시 처리할 수 있다)
+	@Value("${idempotency.lock-ttl-millis:30000}")
+	private long lockTtlMillis;
+
+	//처리한 응답을 남겨 두는 시간
+	@Value("${idempotency.response-ttl-millis:86400000}")
+	private long responseTtlMillis;
+
+	@Value("${idempotency.wait-interval-millis:100}")
+	private long waitIntervalMillis;
+
+	//처리 중인 요청을 기다리는 최대 시간 (넘으면 409)
+	@Value("${idempotency.wait-timeout-millis:10000}")
+	private long waitTimeoutMillis;
+
+	//scope는 API마다 다른 값 (같은 key를 다른 API에 써도 섞이지 않도록)
+	public <T> Mono<T> execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+		Supplier<Mono<T>> action) {
+		if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH)
+			return Mono.error(new IdempotencyException(IdempotencyErrorCode.INVALID_IDEMPOTENCY_KEY));
+
+		String key = KEY_PREFIX + scope + ":" + idempotencyKey;
+		return Mono.defer(() -> {
+			String requestHash = hash(request);
+			long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+			return attempt(key, requestHash, responseType, action, deadline);
+		});
+	}
+
+	private <T> Mono<T> attempt(String key, String requestHash, Class<T> responseType, Supplier<Mono<T>> action,
+		long deadline) {
+		String owner = write(new IdempotencyRecord(UUID.randomUUID().toString(), requestHash, null));
+
+		//Redis 호출은 blocking이므로 boundedElastic 스레드에서 한다
+		return Mono.fromCallable(() -> redisService.setValueIfAbsent(key, owner, lockTtlMillis)
+				? owner : redisService.getValue(key))
+			.subscribeOn(Schedulers.boundedElastic())
+			.onErrorResume(DataAccessException.class, e -> {
+				//Redis 장애로 송금을 막지 않는다 (중복 확인 없이 처리한다)
+				log.warn("idempotency check skipped. key: {}, message: {}", key, e.getMessage());
+				count("skipped");
+				return Mono.just(owner);
+			})
+			//표시가 그 사이에 지워졌으면(처음 요청 실패 / 만료) 바로 다시 시도한다
+			.defaultIfEmpty("")
+			.flatMap(value -> {
+				if (value.equals(owner))
+					return process(key, owner, responseType, action);
+				if (value.isEmpty())
+					return attempt(key, requestHash, responseType, action, deadline);
+
+				IdempotencyRecord existing = read(value);
+				if (!existing.getRequestHash().equals(requestHash))
+					return Mono.error(new IdempotencyException(IdempotencyErrorCode.IDEMPOTENCY_KEY_REUSED));
+
+				if (existing.isCompleted()) {
+					count("replayed");
+					return Mono.just(readResponse(existing.getResponse(), responseType));
+				}
+
+				if (System.currentTimeMillis() >= deadline) {
+					count("conflict");
+					return Mono.error(new IdempotencyException(IdempotencyErrorCode.REQUEST_IN_PROGRESS));
+				}
+
+				return Mono.delay(Duration.ofMillis(waitIntervalMillis))
+					.then(Mono.defer(() -> attempt(key, requestHash, responseType, action, deadline)));
+			});
+	}
+
+	//처음 온 요청만 실행한다. 성공하면 응답을 남기고, 실패하면 표시를 지워 다시 처리할 수 있게 한다
+	private <T> Mono<T> process(String key, String owner, Class<T> responseType, Supplier<Mono<T>> action) {
+		count("processed");
+		return action.get()
+			.publishOn(Schedulers.boundedElastic())
+			.doOnNext(response -> store(key, owner, response))
+			.onErrorResume(e -> Mono.fromRunnable(() -> release(key, owner))
+				.subscribeOn(Schedulers.boundedElastic())
+				.then(Mono.error(e)));
+	}
+
+	private void store(String key, String owner, Object response) {
+		try {
+			String completed = write(read(owner).complete(write(response)));
+			if (!redisService.compareAndSet(key, owner, completed, responseTtlMillis))
+				log.warn("idempotency record expired before the response was stored. key: {}", key);
+		} catch (DataAccessException e) {
+			//응답은 이미 만들어졌으므로 돌려준다 (다음 중복 요청은 표시가 만료된 뒤 다시 처리된다)
+			log.warn("idempotency response store failed. key: {}, message: {}", key, e.getMessage());
+		}
+	}
+
+	private void release(String key, String owner) {
+		try {
+			redisService.compareAndDelete(key, owner);
+		} catch (DataAccessException e) {
+			log.warn("idempotency record release failed. key: {}, message: {}", key, e.getMessage());
+		}
+	}
+
+	private String hash(Object request) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256")
+				.digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (JsonProcessingException | NoSuchAlgorithmException e) {
+			throw new IllegalStateException("idempotency request hash failed.", e);
+		}
+	}
+
+	private String write(Object value) {
+		try {
+			return objectMapper.writeValueAsString(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("idempotency record write failed.", e);
+		}
+	}
+
+	private IdempotencyRecord read(String value) {
+		try {
+			return objectMapper.readValue(value, IdempotencyRecord.class);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("invalid idempotency record. value: " + value, e);
+		}
+	}
+
+	private <T> T readResponse(String response, Class<T> responseType) {
+		try {
+			return objectMapper.readValue(response, responseType);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("invalid idempotency response. response: " + response, e);
+		}
+	}
+
+	private void count(String result) {
+		meterRegistry.counter("marrymo.idempotency", "result", result).increment();
+	}
+}
@@ -0,0 +1,97 @@
+package site.marrymo.restapi.global.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.dto.TokenDTO;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * JWT 발급 / 검증
+ * 서명 key와 parser는 서버가 뜰 때 한 번만 만들어 두고, 발급 결과(TokenDTO)에는 그 토큰 자신의 만료 시각을 담아 반환한다.
+ * 요청마다 바뀌는 필드가 없으므로 여러 스레드에서 동시에 써도 안전하다.
+ */
+@Slf4j
+@Component
+public class JWTCodec {
+    private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS256;
+    //여러 스레드가 같이 쓴다 (SecureRandom은 thread-safe)
+    private static final SecureRandom TOKEN_ID_RANDOM = new SecureRandom();
+
+    private final Key signingKey;
+    //parser는 검증하면서 내부 상태를 바꾸지 않으므로 하나를 만들어 재사용한다
+    private final JwtParser jwtParser;
+
+    public JWTCodec(@Value("${jwt.salt}") String salt) {
+        this.signingKey = new SecretKeySpec(salt.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM.getJcaName());
+        this.jwtParser = Jwts.parser().setSigningKey(signingKey);
+    }
+
+    //Token 발급
+    //payload
+    //"userCode" : "abcd1234" (앞 네자리는 소문자 랜덤, 뒤 네자리는 0-9까지 숫자 랜덤)
+    public TokenDTO issue(String userCode, String subject, long expireTime) {
+        //payload 설정 : 생성일(IssuedAt), 유효기간(Expiration)
+        //토큰 제목 (subject), 데이터 (claim) 정보 셋팅
+        long now = System.currentTimeMillis();
+        Date expTime = new Date(now + expireTime);
+
+        Claims claims = Jwts.claims()
+                .setId(createTokenId()) // 토큰 고유 ID 설정 (로그아웃 처리 시 사용)
+                .setSubject(subject) // 토큰 제목 설정 ex) access-token, refresh-token
+                .setIssuedAt(new Date(now)) // 생성일 설정
+                .setExpiration(expTime); // 만료일 설정 (유효기간)
+
+        //저장할 data의 key, value
+        claims.put("userCode", userCode);
+
+        String jwt = Jwts.builder()
+                .setHeaderParam("typ", "JWT").setClaims(claims) // Header 설정 : 토큰의 타입, 해쉬 알고리즘 정보 세팅
+                .signWith(SIGNATURE_ALGORITHM, signingKey) // Signature 설정 : secret key를 활용한 암호화
+                .compact(); // 직렬화 처리
+
+        //만료 시각은 토큰에 들어간 값(초 단위)과 같게 돌려준다
+        return TokenDTO.builder()
+                .token(jwt)
+                .expired(expTime.getTime() / 1000)
+                .build();
+    }
+
+    //토큰을 한 번만 파싱 / 서명 검증해서 필요한 정보를 모두 꺼내 둔다
+    public ParsedToken parse(String token) {
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            return ParsedToken.of(token, claims, false);
+        } catch (ExpiredJwtException e) {
+            //토큰이 만료된 경우 (서명 검증은 통과했으므로 claims는 믿을 수 있다)
+            //access token은 한 시간마다 만료되는 정상적인 상황이므로 debug로 남긴다
+            log.debug("Token is expired: {}", e.getMessage());
+            return ParsedToken.of(token, e.getClaims(), true);
+        } catch (Exception e) {
+            //기타 예외 처리
+            log.error(e.getMessage());
+            return ParsedToken.invalid(token);
+        }
+    }
+
+    //SecureRandom 16 byte를 base64url로 인코딩한 22자 ID
+    //ID가 로그아웃(폐기) 목록의 key이므로 추측할 수 없고 겹치지 않아야 한다
+    private String createTokenId() {
+        byte[] tokenId = new byte[16];
+        TOKEN_ID_RANDOM.nextBytes(tokenId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(tokenId);
+    }
+}
@@ -0,0 +1,32 @@
+package site.marrymo.restapi.global.jwt;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 요청 하나 동안 검증한 토큰을 보관 (request attribute에 저장)
+ * JwtAuthenticationFilter와 LoginUserArgumentResolver가 같은 토큰을 다시 파싱 / 서명 검증하지 않도록 한다.
+ */
+public class VerifiedTokenContext {
+    private static final String ATTRIBUTE = VerifiedTokenContext.class.getName();
+
+    private final Map<String, ParsedToken> parsedTokens = new HashMap<>();
+
+    public static VerifiedTokenContext of(HttpServletRequest request) {
+        if (request.getAttribute(ATTRIBUTE) instanceof VerifiedTokenContext context)
+            return context;
+
+        VerifiedTokenContext context = new VerifiedTokenContext();
+        request.setAttribute(ATTRIBUTE, context);
+        return context;
+    }
+
+    public ParsedToken computeIfAbsent(String token, Function<String, ParsedToken> parser) {
+        return parsedTokens.computeIfAbsent(token, parser);
+    }
+}
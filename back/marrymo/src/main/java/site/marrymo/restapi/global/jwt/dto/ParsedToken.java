@@ -0,0 +1,36 @@
+package site.marrymo.restapi.global.jwt.dto;
+
+import io.jsonwebtoken.Claims;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * 한 번 파싱 / 서명 검증한 토큰의 결과
+ * 만료된 토큰도 서명 검증은 통과한 것이므로 claims 정보를 그대로 담는다.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ParsedToken {
+    private final String token;
+    //토큰 고유 ID (jti). ID 없이 발급된 예전 토큰은 null
+    private final String tokenId;
+    //서명이 맞고 형식이 올바른 토큰인가 (만료 여부와는 별개)
+    private final boolean verified;
+    private final boolean expired;
+    private final String subject;
+    private final String userCode;
+    private final Date expiration;
+
+    public static ParsedToken of(String token, Claims claims, boolean expired) {
+        return new ParsedToken(token, claims.getId(), true, expired, claims.getSubject(),
+                (String)claims.get("userCode"), claims.getExpiration());
+    }
+
+    //서명이 맞지 않거나 형식이 잘못된 토큰
+    public static ParsedToken invalid(String token) {
+        return new ParsedToken(token, null, false, true, null, null, null);
+    }
+}
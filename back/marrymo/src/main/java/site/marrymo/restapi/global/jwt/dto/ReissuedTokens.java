@@ -0,0 +1,18 @@
+package site.marrymo.restapi.global.jwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//필터가 쿠키로 다시 내려줄 토큰 (재발급하지 않은 토큰은 null)
+@Getter
+@AllArgsConstructor
+public class ReissuedTokens {
+    public static final ReissuedTokens EMPTY = new ReissuedTokens(null, null);
+
+    private final TokenDTO accessToken;
+    private final TokenDTO refreshToken;
+
+    public boolean isEmpty() {
+        return accessToken == null && refreshToken == null;
+    }
+}
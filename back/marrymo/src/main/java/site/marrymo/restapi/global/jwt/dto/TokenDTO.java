@@ -8,6 +8,7 @@ import lombok.Getter;
 @Builder
 @Getter
 public class TokenDTO {
-    private String token;
-    private long expired;
+    private final String token;
+    //이 토큰의 만료 시각 (epoch seconds)
+    private final long expired;
 }
@@ -0,0 +1,66 @@
+package site.marrymo.restapi.global.jwt.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import site.marrymo.restapi.global.jwt.JWTProvider;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.entity.BlackList;
+import site.marrymo.restapi.user.repository.BlackListRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * black_list 테이블 -> Redis 이전
+ * 로그아웃한 refresh token은 이제 Redis에 토큰 ID로 저장하므로,
+ * 기존 테이블에 남아 있는 토큰 중 아직 만료되지 않은 것만 Redis로 옮기고 테이블은 비운다.
+ * 테이블이 비어 있으면 아무것도 하지 않으므로 서버가 뜰 때마다 실행해도 된다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BlackListMigrationService {
+    private static final int PAGE_SIZE = 500;
+
+    private final BlackListRepository blackListRepository;
+    private final JWTProvider jwtProvider;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        int migrated = 0;
+        int dropped = 0;
+
+        while (true) {
+            List<BlackList> page = blackListRepository
+                    .findAll(PageRequest.of(0, PAGE_SIZE, Sort.by("blacklistSequence")))
+                    .getContent();
+            if (page.isEmpty())
+                break;
+
+            //이미 만료되었거나 형식이 잘못된 토큰은 다시 쓸 수 없으므로 옮기지 않는다
+            List<ParsedToken> tokens = new ArrayList<>();
+            for (BlackList blackList : page) {
+                ParsedToken token = jwtProvider.parseToken(blackList.getInvalidRefreshToken());
+                if (token.isVerified() && !token.isExpired())
+                    tokens.add(token);
+            }
+
+            //한 페이지를 pipeline 한 번으로 옮긴다
+            int revoked = jwtProvider.revokeTokens(tokens);
+            migrated += revoked;
+            dropped += page.size() - revoked;
+
+            //Redis에 옮긴 뒤에 지운다 (중간에 실패하면 다음 실행 때 남은 row부터 다시 옮긴다)
+            blackListRepository.deleteAllInBatch(page);
+        }
+
+        if (migrated + dropped > 0)
+            log.info("black_list migrated to redis. migrated: {}, dropped(expired or invalid): {}", migrated, dropped);
+    }
+}
@@ -0,0 +1,274 @@
+package site.marrymo.restapi.global.jwt.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import site.marrymo.restapi.global.exception.UnAuthorizedException;
+import site.marrymo.restapi.global.jwt.JWTProvider;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.dto.ReissuedTokens;
+import site.marrymo.restapi.global.jwt.dto.TokenDTO;
+import site.marrymo.restapi.global.redis.service.RedisService;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 토큰 재발급 정책
+ * 1. 토큰은 만료되기 직전(refresh-window 안)이거나 만료되었을 때만 재발급한다. 그 전에는 아무것도 하지 않는다.
+ * 2. 같은 세션(같은 refresh token)의 동시 요청(브라우저가 한 번에 보내는 여러 XHR)은 한 번만 재발급하고 같은 토큰을 나눠 쓴다.
+ *    - 같은 서버 안에서는 진행 중인 재발급이 끝나기를 기다린다.
+ *    - 서버 사이에서는 짧은 Redis 락을 잡은 요청만 재발급하고, 결과를 잠깐 Redis에 남겨 두면 나머지 요청이 가져간다.
+ * 3. 두 토큰이 모두 유효하지 않거나, Redis에 없는(로그아웃한) refresh token으로 access token을 재발급하려 하면 다시 로그인해야 한다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TokenRefreshService {
+    private static final String LOCK_PREFIX = "TokenRefreshLock ";
+    private static final String RESULT_PREFIX = "TokenRefreshResult ";
+    //Redis에 남겨 두는 결과에서 재발급하지 않은 토큰 자리
+    private static final String NONE = "-";
+    private static final long POLL_INTERVAL_MILLIS = 20;
+
+    private final JWTProvider jwtProvider;
+    private final RedisService redisService;
+    private final MeterRegistry meterRegistry;
+
+    //같은 서버 안에서 진행 중인 재발급 (세션 키 -> 결과)
+    private final ConcurrentHashMap<String, CompletableFuture<ReissuedTokens>> inFlight = new ConcurrentHashMap<>();
+
+    //refresh token 만료 기한 30 days
+    @Value("${jwt.refresh-token.expiretime}")
+    private long refreshTokenExpireTime;
+
+    //access token은 만료 5분 전부터 재발급
+    @Value("${jwt.access-token.refresh-window-millis:300000}")
+    private long accessTokenRefreshWindow;
+
+    //refresh token은 만료 1일 전부터 재발급
+    @Value("${jwt.refresh-token.refresh-window-millis:86400000}")
+    private long refreshTokenRefreshWindow;
+
+    //재발급 락 유지 시간 (다른 요청이 결과를 기다리는 최대 시간)
+    @Value("${jwt.refresh.lock-ttl-millis:3000}")
+    private long lockTtlMillis;
+
+    //재발급 결과를 Redis에 남겨 두는 시간 (조금 늦게 도착한 동시 요청도 같은 토큰을 받는다)
+    @Value("${jwt.refresh.result-ttl-millis:10000}")
+    private long resultTtlMillis;
+
+    public ReissuedTokens refreshIfNeeded(ParsedToken accessToken, ParsedToken refreshToken) {
+        //토큰마다 유효성은 한 번만 확인한다
+        boolean isValidAccessToken = jwtProvider.isValidateToken(accessToken);
+        boolean isValidRefreshToken = jwtProvider.isValidateToken(refreshToken);
+
+        if (!isValidAccessToken && !isValidRefreshToken)
+            throw new UnAuthorizedException("AccessToken, RefreshToken are expired.");
+
+        boolean needAccessToken = !isValidAccessToken || isNearExpiry(accessToken, accessTokenRefreshWindow);
+        boolean needRefreshToken = !isValidRefreshToken || isNearExpiry(refreshToken, refreshTokenRefreshWindow);
+
+        //access token은 Redis에 남아 있는 refresh token으로만 재발급한다
+        if (needAccessToken && isValidRefreshToken && !jwtProvider.isExistRefreshTokenInRedis(refreshToken)) {
+            if (!isValidAccessToken)
+                throw new UnAuthorizedException("RefreshToken is not in redis.");
+
+            //아직 유효한 access token은 만료될 때까지 그대로 쓴다
+            needAccessToken = false;
+        }
+
+        if (!needAccessToken && !needRefreshToken)
+            return ReissuedTokens.EMPTY;
+
+        String userCode = isValidAccessToken ? accessToken.getUserCode() : refreshToken.getUserCode();
+        return singleFlight(sessionKey(accessToken, refreshToken), userCode, needAccessToken, needRefreshToken);
+    }
+
+    //재발급 결과는 요청한 세션끼리만 나눠 쓴다 (같은 사용자의 다른 기기가 같은 토큰을 받지 않도록)
+    //서명이 검증된 refresh token의 토큰 ID(jti)를 쓰고, 없으면 유효한 access token으로 구분한다
+    private String sessionKey(ParsedToken accessToken, ParsedToken refreshToken) {
+        ParsedToken token = refreshToken.isVerified() ? refreshToken : accessToken;
+        return token.getTokenId() != null ? token.getTokenId() : token.getToken();
+    }
+
+    private boolean isNearExpiry(ParsedToken token, long refreshWindow) {
+        return token.getExpiration().getTime() - System.currentTimeMillis() < refreshWindow;
+    }
+
+    private ReissuedTokens singleFlight(String sessionKey, String userCode,
+                                        boolean needAccessToken, boolean needRefreshToken) {
+        CompletableFuture<ReissuedTokens> flight = new CompletableFuture<>();
+        CompletableFuture<ReissuedTokens> running = inFlight.putIfAbsent(sessionKey, flight);
+
+        ReissuedTokens reissuedTokens;
+        if (running != null) {
+            //같은 서버에서 이미 재발급 중이면 그 결과를 같이 쓴다
+            contention("local");
+            reissuedTokens = awaitLocal(running);
+            if (reissuedTokens != null)
+                refreshed("shared_local");
+        } else {
+            try {
+                reissuedTokens = reissueWithLock(sessionKey, userCode, needAccessToken, needRefreshToken);
+                flight.complete(reissuedTokens);
+            } catch (RuntimeException e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                inFlight.remove(sessionKey, flight);
+            }
+        }
+
+        //기다리다 실패했거나, 나눠 받은 결과에 필요한 토큰이 없으면 직접 발급한다
+        if (reissuedTokens == null)
+            return issue(userCode, needAccessToken, needRefreshToken);
+
+        if ((needAccessToken && reissuedTokens.getAccessToken() == null)
+                || (needRefreshToken && reissuedTokens.getRefreshToken() == null)) {
+            ReissuedTokens missing = issue(userCode,
+                    needAccessToken && reissuedTokens.getAccessToken() == null,
+                    needRefreshToken && reissuedTokens.getRefreshToken() == null);
+
+            return new ReissuedTokens(
+                    reissuedTokens.getAccessToken() != null ? reissuedTokens.getAccessToken() : missing.getAccessToken(),
+                    reissuedTokens.getRefreshToken() != null ? reissuedTokens.getRefreshToken() : missing.getRefreshToken());
+        }
+
+        return reissuedTokens;
+    }
+
+    //Redis 장애 시에는 null을 돌려주고 이 서버에서 직접 발급한다
+    private ReissuedTokens reissueWithLock(String sessionKey, String userCode,
+                                           boolean needAccessToken, boolean needRefreshToken) {
+        String lockKey = LOCK_PREFIX + sessionKey;
+        String lockValue = UUID.randomUUID().toString();
+
+        try {
+            if (!redisService.setValueIfAbsent(lockKey, lockValue, lockTtlMillis)) {
+                //다른 서버에서 재발급 중이거나 방금 끝났으면 그 결과를 가져간다
+                contention("redis");
+                return awaitRedis(sessionKey);
+            }
+        } catch (DataAccessException e) {
+            log.warn("token refresh lock failed. userCode: {}, message: {}", userCode, e.getMessage());
+            return null;
+        }
+
+        try {
+            ReissuedTokens reissuedTokens = issue(userCode, needAccessToken, needRefreshToken);
+            writeResult(sessionKey, reissuedTokens);
+            //락은 만료될 때까지 남겨 두어, 조금 늦게 도착한 같은 세션의 요청도 다시 발급하지 않고 결과를 가져가게 한다
+            return reissuedTokens;
+        } catch (RuntimeException e) {
+            releaseLock(lockKey, lockValue);
+            throw e;
+        }
+    }
+
+    private ReissuedTokens awaitLocal(CompletableFuture<ReissuedTokens> running) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return running.get(lockTtlMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        } finally {
+            sample.stop(meterRegistry.timer("marrymo.token.refresh.wait", "scope", "local"));
+        }
+    }
+
+    private ReissuedTokens awaitRedis(String sessionKey) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockTtlMillis);
+        try {
+            while (System.nanoTime() < deadline) {
+                ReissuedTokens shared = readResult(sessionKey);
+                if (shared != null) {
+                    refreshed("shared_redis");
+                    return shared;
+                }
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sample.stop(meterRegistry.timer("marrymo.token.refresh.wait", "scope", "redis"));
+        }
+
+        log.debug("token refresh wait timeout.");
+        return null;
+    }
+
+    private ReissuedTokens issue(String userCode, boolean needAccessToken, boolean needRefreshToken) {
+        TokenDTO accessToken = needAccessToken ? jwtProvider.createAccessToken(userCode) : null;
+        TokenDTO refreshToken = null;
+
+        if (needRefreshToken) {
+            refreshToken = jwtProvider.createRefreshToken(userCode);
+            //새 refresh token으로도 access token을 재발급할 수 있도록 redis에 저장
+            redisService.setValue(refreshToken.getToken(), userCode, refreshTokenExpireTime);
+        }
+
+        refreshed("issued");
+        return new ReissuedTokens(accessToken, refreshToken);
+    }
+
+    //"accessToken refreshToken" 형태로 저장한다 (만료 시각은 토큰에서 다시 읽는다)
+    private void writeResult(String sessionKey, ReissuedTokens reissuedTokens) {
+        String value = toValue(reissuedTokens.getAccessToken()) + " " + toValue(reissuedTokens.getRefreshToken());
+        try {
+            redisService.setValue(RESULT_PREFIX + sessionKey, value, resultTtlMillis);
+        } catch (DataAccessException e) {
+            log.warn("token refresh result write failed. message: {}", e.getMessage());
+        }
+    }
+
+    private ReissuedTokens readResult(String sessionKey) {
+        String value = redisService.getValue(RESULT_PREFIX + sessionKey);
+        if (value == null)
+            return null;
+
+        String[] tokens = value.split(" ");
+        return new ReissuedTokens(toTokenDTO(tokens[0]), toTokenDTO(tokens[1]));
+    }
+
+    //락이 만료되어 다른 요청이 잡은 경우에는 지우지 않는다
+    private void releaseLock(String lockKey, String lockValue) {
+        try {
+            redisService.compareAndDelete(lockKey, lockValue);
+        } catch (DataAccessException e) {
+            log.warn("token refresh unlock failed. key: {}, message: {}", lockKey, e.getMessage());
+        }
+    }
+
+    private String toValue(TokenDTO token) {
+        return token == null ? NONE : token.getToken();
+    }
+
+    private TokenDTO toTokenDTO(String token) {
+        if (NONE.equals(token))
+            return null;
+
+        return new TokenDTO(token, jwtProvider.parseToken(token).getExpiration().getTime() / 1000);
+    }
+
+    private void refreshed(String result) {
+        meterRegistry.counter("marrymo.token.refresh", "result", result).increment();
+    }
+
+    private void contention(String scope) {
+        meterRegistry.counter("marrymo.token.refresh.contention", "scope", scope).increment();
+    }
+}
@@ -1,7 +1,14 @@
 package site.marrymo.restapi.global.redis.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -12,6 +19,10 @@ import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import site.marrymo.restapi.global.redis.service.RedisNearCache;
+
+import java.time.Duration;
+
 @Configuration
 @EnableRedisRepositories
 public class RedisConfig {
@@ -25,6 +36,14 @@ public class RedisConfig {
 	@Value("${spring.data.redis.password}")
 	private String password;
 
+	//RESP3 client-side caching (기본은 꺼져 있다)
+	@Value("${redis.near-cache.maximum-size:10000}")
+	private long nearCacheMaximumSize;
+
+	//push가 늦거나 유실된 경우에도 로컬 값을 이 시간 넘게 쓰지 않는다
+	@Value("${redis.near-cache.local-ttl-seconds:60}")
+	private long nearCacheLocalTtlSeconds;
+
 	//TCP 통신
 	@Bean
 	public RedisConnectionFactory redisConnectionFactory() {
@@ -44,4 +63,24 @@ public class RedisConfig {
 		redisTemplate.setConnectionFactory(redisConnectionFactory());
 		return redisTemplate;
 	}
+
+	//자주 읽고 거의 바뀌지 않는 key(refresh token, 인증 번호)를 서버 메모리에서 읽는다
+	//tracking에 쓰는 전용 연결이 하나 더 필요하므로 redis.near-cache.enabled=true일 때만 만든다
+	@Bean(destroyMethod = "close")
+	@ConditionalOnProperty(name = "redis.near-cache.enabled", havingValue = "true")
+	public RedisNearCache redisNearCache(MeterRegistry meterRegistry) {
+		RedisURI.Builder redisURI = RedisURI.builder()
+			.withHost(host)
+			.withPort(port);
+		if (password != null && !password.isEmpty())
+			redisURI.withPassword(password.toCharArray());
+
+		RedisClient redisClient = RedisClient.create(redisURI.build());
+		redisClient.setOptions(ClientOptions.builder()
+			.protocolVersion(ProtocolVersion.RESP3)
+			.build());
+
+		return new RedisNearCache(redisClient, redisClient.connect(StringCodec.UTF8), nearCacheMaximumSize,
+			Duration.ofSeconds(nearCacheLocalTtlSeconds), meterRegistry);
+	}
 }
@@ -0,0 +1,13 @@
+package site.marrymo.restapi.global.redis.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//여러 key를 한 번에 저장할 때 쓰는 key, value, 만료 시간(ms)
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class RedisEntry {
+	private final String key;
+	private final String value;
+	private final long time;
+}
@@ -0,0 +1,168 @@
+package site.marrymo.restapi.global.redis.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.support.caching.CacheAccessor;
+import io.lettuce.core.support.caching.CacheFrontend;
+import io.lettuce.core.support.caching.ClientSideCaching;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis 서버 지원 client-side caching (RESP3 CLIENT TRACKING)
+ * 1. 이 연결로 GET한 key는 Redis가 기억해 두고(tracking), 누군가 그 key를 바꾸거나 지우거나 만료되면 invalidate 메시지를 push 한다.
+ * 2. 읽은 값은 서버 메모리(Caffeine)에 두고, push를 받으면 지운다.
+ * 3. 연결이 끊긴 동안에는 push를 놓칠 수 있으므로 로컬 값을 모두 지우고, 다시 연결되어 tracking을 켤 때까지는 Redis에서 직접 읽는다.
+ * 로컬 TTL은 push가 늦거나 유실되는 경우에 대비한 상한이다.
+ */
+@Slf4j
+public class RedisNearCache {
+	private final RedisClient redisClient;
+	private final StatefulRedisConnection<String, String> connection;
+	private final Cache<String, String> localCache;
+	private final CacheFrontend<String, String> cacheFrontend;
+
+	private final Counter hitCounter;
+	private final Counter missCounter;
+	private final Counter invalidationCounter;
+
+	//tracking이 켜져 있어 로컬 값을 믿을 수 있는가
+	private volatile boolean tracking = true;
+
+	//무효화가 일어날 때마다 올린다
+	//GET 응답을 받은 직후에 도착한 invalidate가 먼저 처리되면, 이미 바뀐 값을 로컬에 넣지 않도록 GET 전의 값과 비교한다
+	private final AtomicLong invalidationSequence = new AtomicLong();
+	private final ThreadLocal<Long> readSequence = new ThreadLocal<>();
+
+	public RedisNearCache(RedisClient redisClient,
+		StatefulRedisConnection<String, String> connection,
+		long maximumSize,
+		Duration localTtl,
+		MeterRegistry meterRegistry) {
+		this.redisClient = redisClient;
+		this.connection = connection;
+		this.localCache = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(localTtl)
+			.build();
+
+		this.hitCounter = requestCounter(meterRegistry, "hit");
+		this.missCounter = requestCounter(meterRegistry, "miss");
+		this.invalidationCounter = Counter.builder("marrymo.redis.near_cache.invalidations")
+			.register(meterRegistry);
+		Gauge.builder("marrymo.redis.near_cache.hit_ratio", this, RedisNearCache::hitRatio)
+			.register(meterRegistry);
+		meterRegistry.gauge("marrymo.redis.near_cache.size", localCache, Cache::estimatedSize);
+
+		//FLUSHALL / FLUSHDB는 key 목록 없이 invalidate가 오므로 전체를 지운다
+		//(Lettuce의 listener는 key 목록이 없으면 실패하므로 먼저 등록한다)
+		connection.addListener(message -> {
+			if ("invalidate".equals(message.getType())) {
+				List<Object> content = message.getContent();
+				if (content.size() < 2 || content.get(1) == null)
+					invalidateAll();
+			}
+		});
+
+		this.cacheFrontend = ClientSideCaching.enable(new CacheAccessor<>() {
+			@Override
+			public String get(String key) {
+				String value = localCache.getIfPresent(key);
+				if (value != null) {
+					hitCounter.increment();
+				} else {
+					missCounter.increment();
+					readSequence.set(invalidationSequence.get());
+				}
+				return value;
+			}
+
+			@Override
+			public void put(String key, String value) {
+				Long sequence = readSequence.get();
+				readSequence.remove();
+				if (tracking && sequence != null && sequence == invalidationSequence.get())
+					localCache.put(key, value);
+			}
+
+			@Override
+			public void evict(String key) {
+				invalidationSequence.incrementAndGet();
+				invalidationCounter.increment();
+				localCache.invalidate(key);
+			}
+		}, connection, TrackingArgs.Builder.enabled());
+
+		redisClient.addListener(new RedisConnectionStateListener() {
+			@Override
+			public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+				tracking = false;
+				invalidateAll();
+			}
+
+			@Override
+			public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress socketAddress) {
+				if (tracking)
+					return;
+
+				//새 연결에는 tracking이 꺼져 있으므로 다시 켠다 (이벤트 스레드이므로 비동기로 보낸다)
+				connection.async().clientTracking(TrackingArgs.Builder.enabled()).whenComplete((result, e) -> {
+					if (e != null) {
+						log.warn("redis near cache tracking failed. message: {}", e.getMessage());
+						return;
+					}
+					invalidateAll();
+					tracking = true;
+				});
+			}
+		});
+	}
+
+	public String get(String key) {
+		if (!tracking) {
+			missCounter.increment();
+			return connection.sync().get(key);
+		}
+		return cacheFrontend.get(key);
+	}
+
+	//이 서버에서 바꾼 key는 push를 기다리지 않고 바로 지운다
+	public void evict(String key) {
+		invalidationSequence.incrementAndGet();
+		localCache.invalidate(key);
+	}
+
+	public void close() {
+		cacheFrontend.close();
+		redisClient.shutdown();
+	}
+
+	private void invalidateAll() {
+		invalidationSequence.incrementAndGet();
+		invalidationCounter.increment();
+		localCache.invalidateAll();
+	}
+
+	private double hitRatio() {
+		double total = hitCounter.count() + missCounter.count();
+		return total == 0 ? 0 : hitCounter.count() / total;
+	}
+
+	private Counter requestCounter(MeterRegistry meterRegistry, String result) {
+		return Counter.builder("marrymo.redis.near_cache.requests")
+			.tag("result", result)
+			.register(meterRegistry);
+	}
+}
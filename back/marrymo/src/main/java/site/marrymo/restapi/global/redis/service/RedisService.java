@@ -1,33 +1,198 @@
 package site.marrymo.restapi.global.redis.service;
 
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
+import site.marrymo.restapi.global.redis.dto.RedisEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * 모든 메서드는 Redis 왕복 한 번으로 끝난다.
+ * 여러 key를 다루는 메서드는 MGET / DEL 한 번이나 pipeline으로 보낸다.
+ * DB를 쓰지 않으므로 트랜잭션을 열지 않는다 (Redis를 부를 때마다 DB connection을 잡지 않도록)
+ */
 @Service
 @Slf4j
-@Transactional
 @RequiredArgsConstructor
 public class RedisService {
+	//값이 expected와 같을 때만 바꾼다
+	private static final RedisScript<Long> COMPARE_AND_SET = new DefaultRedisScript<>(
+		"if redis.call('GET', KEYS[1]) == ARGV[1] then "
+			+ "redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3]) return 1 "
+			+ "end return 0",
+		Long.class);
+
+	//값이 expected와 같을 때만 지운다 (락 해제 등)
+	private static final RedisScript<Long> COMPARE_AND_DELETE = new DefaultRedisScript<>(
+		"if redis.call('GET', KEYS[1]) == ARGV[1] then "
+			+ "return redis.call('DEL', KEYS[1]) "
+			+ "end return 0",
+		Long.class);
+
+	//score가 ARGV[1] 이하인 값을 ARGV[2]개까지 ZSET에서 빼서 LIST에 넣는다
+	//(여러 서버가 동시에 실행해도 값마다 한 번만 옮겨진다)
+	private static final RedisScript<Long> MOVE_SCORED_VALUES = new DefaultRedisScript<>(
+		"local values = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2]) "
+			+ "for _, value in ipairs(values) do "
+			+ "redis.call('ZREM', KEYS[1], value) redis.call('LPUSH', KEYS[2], value) "
+			+ "end return #values",
+		Long.class);
+
+	//LIST에서 가장 먼저 넣은 값을 꺼내 score(ARGV[1])와 함께 ZSET에 넣는다
+	private static final RedisScript<String> MOVE_VALUE_TO_SCORED = new DefaultRedisScript<>(
+		"local value = redis.call('RPOP', KEYS[1]) "
+			+ "if value then redis.call('ZADD', KEYS[2], ARGV[1], value) end "
+			+ "return value",
+		String.class);
+
+
 	private final RedisTemplate<String, String> redisTemplate;
+	//redis.near-cache.enabled=true일 때만 있다
+	private final Optional<RedisNearCache> redisNearCache;
 
+	//SET은 기존 값을 덮어쓰므로 확인 / 삭제 없이 바로 저장한다 (SET key value PX time)
 	public void setValue(String key, String value, Long time) {
-		if (Boolean.TRUE.equals(redisTemplate.hasKey(key)))
-			this.deleteData(key);
 		redisTemplate.opsForValue().set(key, value, time, TimeUnit.MILLISECONDS);
+		evictNearCache(key);
+	}
+
+	//key가 없을 때만 저장한다 (짧은 분산 락 용도)
+	public boolean setValueIfAbsent(String key, String value, Long time) {
+		return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, value, time, TimeUnit.MILLISECONDS));
+	}
+
+	public boolean compareAndSet(String key, String expected, String value, Long time) {
+		Long result = redisTemplate.execute(COMPARE_AND_SET, List.of(key), expected, value, String.valueOf(time));
+		evictNearCache(key);
+		return result != null && result == 1L;
+	}
+
+	public boolean compareAndDelete(String key, String expected) {
+		Long result = redisTemplate.execute(COMPARE_AND_DELETE, List.of(key), expected);
+		evictNearCache(key);
+		return result != null && result == 1L;
 	}
 
 	public String getValue(String key) {
 		return redisTemplate.opsForValue().get(key);
 	}
 
+	//자주 읽고 거의 바뀌지 않는 key용
+	//near cache가 켜져 있으면 서버 메모리에서 읽고, Redis가 보내는 무효화 push로 지운다
+	public String getCachedValue(String key) {
+		if (redisNearCache.isEmpty())
+			return getValue(key);
+
+		return redisNearCache.get().get(key);
+	}
+
+	//값을 읽으면서 지운다 (GETDEL, 한 번만 쓸 수 있는 값)
+	public String getAndDelete(String key) {
+		String value = redisTemplate.opsForValue().getAndDelete(key);
+		evictNearCache(key);
+		return value;
+	}
+
+	//keys와 같은 순서로 돌려준다 (없는 key는 null)
+	public List<String> getValues(List<String> keys) {
+		if (keys.isEmpty())
+			return List.of();
+
+		return redisTemplate.opsForValue().multiGet(keys);
+	}
+
+	//key마다 만료 시간이 달라 MSET을 쓸 수 없으므로 SET PX를 pipeline으로 한 번에 보낸다
+	public void setValues(Collection<RedisEntry> entries) {
+		if (entries.isEmpty())
+			return;
+
+		redisTemplate.executePipelined(new SessionCallback<Object>() {
+			@Override
+			public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+				//redisTemplate이 넘겨준 operations이므로 key / value는 String이다
+				@SuppressWarnings("unchecked")
+				RedisOperations<String, String> stringOperations = (RedisOperations<String, String>)operations;
+				for (RedisEntry entry : entries) {
+					stringOperations.opsForValue()
+						.set(entry.getKey(), entry.getValue(), entry.getTime(), TimeUnit.MILLISECONDS);
+				}
+				return null;
+			}
+		});
+		entries.forEach(entry -> evictNearCache(entry.getKey()));
+	}
+
+	public boolean hasKey(String key) {
+		return Boolean.TRUE.equals(redisTemplate.hasKey(key));
+	}
+
 	public void deleteData(String key) {
 		redisTemplate.delete(key);
+		evictNearCache(key);
+	}
+
+	public void deleteData(Collection<String> keys) {
+		if (keys.isEmpty())
+			return;
+
+		redisTemplate.delete(keys);
+		keys.forEach(this::evictNearCache);
+	}
+
+	//LIST는 왼쪽으로 넣고 오른쪽에서 꺼낸다 (먼저 넣은 값부터 꺼낸다)
+	public void pushValue(String key, String value) {
+		redisTemplate.opsForList().leftPush(key, value);
+	}
+
+	//LIST를 최근 값 size개만 남기고 자른다
+	public void trimValues(String key, long size) {
+		redisTemplate.opsForList().trim(key, 0, size - 1);
+	}
+
+	//source(LIST)에서 가장 먼저 넣은 값을 꺼내면서 destination(ZSET)에 score와 함께 넣는다
+	//꺼낸 시각을 score로 두면 오래 처리되지 않은 값만 골라 되돌릴 수 있다
+	public String moveValueToScored(String source, String destination, long score) {
+		return redisTemplate.execute(MOVE_VALUE_TO_SCORED, List.of(source, destination), String.valueOf(score));
+	}
+
+	public List<String> getListValues(String key) {
+		return redisTemplate.opsForList().range(key, 0, -1);
+	}
+
+	//ZSET에 score(예: 실행할 시각)와 함께 넣는다
+	public void addScoredValue(String key, String value, long score) {
+		redisTemplate.opsForZSet().add(key, value, score);
+	}
+
+	public long moveScoredValues(String source, String destination, long maxScore, long limit) {
+		Long result = redisTemplate.execute(MOVE_SCORED_VALUES, List.of(source, destination),
+			String.valueOf(maxScore), String.valueOf(limit));
+		return result == null ? 0 : result;
+	}
+
+	public void removeScoredValue(String key, String value) {
+		redisTemplate.opsForZSet().remove(key, value);
+	}
+
+	public long getScoredSize(String key) {
+		Long size = redisTemplate.opsForZSet().zCard(key);
+		return size == null ? 0 : size;
+	}
+
+	//이 서버에서 바꾼 key는 무효화 push를 기다리지 않고 바로 지운다
+	private void evictNearCache(String key) {
+		redisNearCache.ifPresent(nearCache -> nearCache.evict(key));
 	}
 }
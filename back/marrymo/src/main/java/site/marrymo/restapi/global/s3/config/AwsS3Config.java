@@ -2,11 +2,20 @@ package site.marrymo.restapi.global.s3.config;
 
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.StringUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class AwsS3Config {
@@ -23,13 +32,68 @@ public class AwsS3Config {
     @Value("${cloud.aws.region.static}")
     private String region;
 
+    // S3 대신 MinIO 같은 S3 호환 저장소를 쓸 때만 설정 (비어 있으면 AWS S3)
+    @Value("${cloud.aws.s3.endpoint:}")
+    private String endpoint;
+
+    // 이 크기 이상인 파일은 multipart로 나눠서 올린다
+    @Value("${cloud.aws.s3.multipart-threshold-bytes:8388608}")
+    private long multipartThreshold;
+
+    // multipart 한 조각의 크기 (S3 최소 5MB)
+    @Value("${cloud.aws.s3.part-size-bytes:5242880}")
+    private long partSize;
+
+    // 동시에 전송할 수 있는 조각 수
+    @Value("${cloud.aws.s3.transfer-threads:8}")
+    private int transferThreads;
+
+    // 청첩장 이미지를 동시에 올리는 스레드 수
+    @Value("${cloud.aws.s3.image-upload-threads:8}")
+    private int imageUploadThreads;
+
+    // 스레드가 모두 바쁠 때 대기할 수 있는 이미지 수 (넘치면 요청 스레드가 직접 올린다)
+    @Value("${cloud.aws.s3.image-upload-queue-capacity:100}")
+    private int imageUploadQueueCapacity;
+
     @Bean
     public AmazonS3Client amazonS3Client(){
         BasicAWSCredentials awsCredentials = new BasicAWSCredentials(accessKey,secretKey);
-        return (AmazonS3Client) AmazonS3ClientBuilder.standard()
-                .withRegion(region)
-                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials))
+        AmazonS3ClientBuilder builder = AmazonS3ClientBuilder.standard()
+                .withCredentials(new AWSStaticCredentialsProvider(awsCredentials));
+
+        if (StringUtils.hasText(endpoint)) {
+            builder.withEndpointConfiguration(new AwsClientBuilder.EndpointConfiguration(endpoint, region))
+                    .withPathStyleAccessEnabled(true);
+        } else {
+            builder.withRegion(region);
+        }
+
+        return (AmazonS3Client) builder.build();
+    }
+
+    @Bean(destroyMethod = "shutdownNow")
+    public TransferManager transferManager(AmazonS3Client amazonS3Client) {
+        return TransferManagerBuilder.standard()
+                .withS3Client(amazonS3Client)
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(transferThreads,
+                        new CustomizableThreadFactory("s3-transfer-")))
                 .build();
     }
 
+    @Bean
+    public ThreadPoolTaskExecutor imageUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(imageUploadThreads);
+        executor.setMaxPoolSize(imageUploadThreads);
+        executor.setQueueCapacity(imageUploadQueueCapacity);
+        executor.setThreadNamePrefix("image-upload-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
 }
@@ -0,0 +1,15 @@
+package site.marrymo.restapi.global.s3.exception;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import site.marrymo.restapi.global.exception.ErrorCode;
+
+@Getter
+@AllArgsConstructor
+public enum S3ErrorCode implements ErrorCode {
+    UNABLE_TO_UPLOAD_IMAGE(500, "S3_001", "이미지를 업로드 할 수 없습니다.");
+
+    private int statusCode;
+    private String errorCode;
+    private String message;
+}
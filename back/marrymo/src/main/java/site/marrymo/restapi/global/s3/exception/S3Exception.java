@@ -0,0 +1,10 @@
+package site.marrymo.restapi.global.s3.exception;
+
+import site.marrymo.restapi.global.exception.ErrorCode;
+import site.marrymo.restapi.global.exception.MarrymoException;
+
+public class S3Exception extends MarrymoException {
+    public S3Exception(ErrorCode errorCode){
+        super(errorCode);
+    }
+}
@@ -1,35 +1,61 @@
 package site.marrymo.restapi.global.s3.service;
 
-import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.model.CannedAccessControlList;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.Upload;
 
-import jakarta.transaction.Transactional;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import site.marrymo.restapi.global.s3.exception.S3ErrorCode;
+import site.marrymo.restapi.global.s3.exception.S3Exception;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
+//DB를 쓰지 않으므로 트랜잭션을 열지 않는다 (업로드 / 삭제하는 동안 DB connection을 잡지 않도록)
 @Slf4j
 @Service
 @RequiredArgsConstructor
-@Transactional
 public class AwsS3Service {
 
-    private final AmazonS3Client amazonS3Client;
+    private final TransferManager transferManager;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor imageUploadExecutor;
 
     @Value("${cloud.aws.s3.bucket}")
     private String bucket;
 
+    // 이 크기 이상인 파일은 multipart로 나눠서 올린다 (AwsS3Config와 같은 값)
+    @Value("${cloud.aws.s3.multipart-threshold-bytes:8388608}")
+    private long multipartThreshold;
+
     /**
      * S3에 이미지 업로드
-     * 
+     * 같은 이름의 파일이 있어도 PUT이 덮어쓰므로 존재 확인 / 삭제 없이 바로 올린다.
+     * multipart 조각을 동시에 올리려면 파일이어야 하므로, 큰 파일은 임시 파일로 옮긴 뒤 올린다.
+     *
      * @param dir  :S3에 저장할 폴더명
      * @param file :S3에 올릴 파일
      * @param userCode :S3 이미지명을 구별할 사용자 일련번호
@@ -40,39 +66,135 @@ public class AwsS3Service {
         
         String fileName=dir+"/"+userCode+file.getOriginalFilename();
 
-        // 이미 존재하는 파일명인 경우 삭제
-        boolean isFileExist=amazonS3Client.doesObjectExist(bucket,fileName);
-        if (isFileExist){
-            amazonS3Client.deleteObject(bucket,fileName);
-        }
-        
         String fileUrl = "https://" + bucket + ".s3.amazonaws.com/" + fileName;
         ObjectMetadata metadata=new ObjectMetadata();
         metadata.setContentType(file.getContentType());
         metadata.setContentLength(file.getSize());
 
-        // 누구나 파일 URL을 통해 접근할 수 있도록 허용
-        amazonS3Client.putObject(
-                new PutObjectRequest(bucket,fileName,file.getInputStream(),metadata)
-                        .withCannedAcl(CannedAccessControlList.PublicRead)
-        );
+        if (file.getSize() < multipartThreshold) {
+            try (InputStream inputStream = file.getInputStream()) {
+                upload("image", new PutObjectRequest(bucket, fileName, inputStream, metadata), file.getSize());
+            }
+            return fileUrl;
+        }
+
+        Path tempFile = Files.createTempFile("marrymo_upload_", null);
+        try {
+            file.transferTo(tempFile);
+            upload("image", new PutObjectRequest(bucket, fileName, tempFile.toFile()).withMetadata(metadata),
+                    file.getSize());
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
         return fileUrl;
     }
 
-    public String uploadExcelFile(String dir, InputStream inputStream, String fileName, ObjectMetadata metadata) {
-        String fileUrl = "https://" + bucket + ".s3.amazonaws.com/" + fileName;
+    /**
+     * 여러 이미지를 동시에 업로드
+     * 하나라도 실패하면 이미 올라간 이미지를 지우고 예외를 던진다.
+     * 같은 이름의 파일은 같은 key에 덮어쓰므로, 청첩장에서 이미 쓰고 있는 URL(inUseUrls)은 지우지 않는다.
+     *
+     * @return 요청한 파일 순서대로의 이미지 URL
+     */
+    public List<String> uploadFileImages(String dir, List<MultipartFile> files, String userCode,
+                                         Collection<String> inUseUrls) {
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (MultipartFile file : files) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return uploadFileImage(dir, file, userCode);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, imageUploadExecutor));
+        }
+
+        //성공한 업로드를 모두 알아야 지울 수 있으므로, 실패가 있어도 전부 끝날 때까지 기다린다
+        List<String> fileUrls = new ArrayList<>();
+        Throwable failure = null;
+        for (CompletableFuture<String> future : futures) {
+            try {
+                fileUrls.add(future.join());
+            } catch (CompletionException | CancellationException e) {
+                if (failure == null)
+                    failure = e.getCause() != null ? e.getCause() : e;
+            }
+        }
+
+        if (failure != null) {
+            log.error("image upload failed. userCode: {}, uploaded: {}/{}, message: {}",
+                    userCode, fileUrls.size(), files.size(), failure.getMessage());
+            deleteFiles(fileUrls, inUseUrls);
+            throw new S3Exception(S3ErrorCode.UNABLE_TO_UPLOAD_IMAGE);
+        }
+
+        return fileUrls;
+    }
 
-        // 파일이 이미 존재하는 경우 삭제하는 로직은 선택 사항입니다.
-        boolean isFileExist = amazonS3Client.doesObjectExist(bucket, fileName);
-        if (isFileExist) {
-            amazonS3Client.deleteObject(bucket, fileName);
+    //업로드 이후 작업이 실패했을 때 올린 파일을 되돌리기 위한 삭제 (실패해도 다른 파일은 계속 지운다)
+    public void deleteFiles(List<String> fileUrls, Collection<String> inUseUrls) {
+        String prefix = "https://" + bucket + ".s3.amazonaws.com/";
+        for (String fileUrl : fileUrls) {
+            if (inUseUrls.contains(fileUrl))
+                continue;
+
+            try {
+                transferManager.getAmazonS3Client().deleteObject(bucket, fileUrl.substring(prefix.length()));
+            } catch (RuntimeException e) {
+                log.warn("S3 delete failed. url: {}, message: {}", fileUrl, e.getMessage());
+            }
         }
+    }
+
+    public String uploadExcelFile(String dir, InputStream inputStream, String fileName, ObjectMetadata metadata)
+            throws IOException {
+        String fileUrl = "https://" + bucket + ".s3.amazonaws.com/" + fileName;
+
+        upload("excel", new PutObjectRequest(bucket, fileName, inputStream, metadata), metadata.getContentLength());
+
+        return fileUrl;
+    }
 
-        amazonS3Client.putObject(
-                new PutObjectRequest(bucket, fileName, inputStream, metadata)
-                         .withCannedAcl(CannedAccessControlList.PublicRead));
+    //파일에서 바로 올리면 큰 파일은 조각을 동시에 전송한다
+    public String uploadExcelFile(String dir, File file, String fileName, ObjectMetadata metadata) throws IOException {
+        String fileUrl = "https://" + bucket + ".s3.amazonaws.com/" + fileName;
+
+        upload("excel", new PutObjectRequest(bucket, fileName, file).withMetadata(metadata), file.length());
 
         return fileUrl;
     }
 
+    // 누구나 파일 URL을 통해 접근할 수 있도록 허용해서 업로드하고, 소요 시간 / 크기 / 처리량을 기록
+    private void upload(String type, PutObjectRequest putObjectRequest, long bytes) throws IOException {
+        long start = System.nanoTime();
+        Upload upload = transferManager.upload(putObjectRequest.withCannedAcl(CannedAccessControlList.PublicRead));
+
+        try {
+            upload.waitForCompletion();
+        } catch (InterruptedException e) {
+            upload.abort();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("S3 upload interrupted: " + putObjectRequest.getKey());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("marrymo.s3.upload")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("marrymo.s3.upload.bytes")
+                .baseUnit("bytes")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(bytes);
+        DistributionSummary.builder("marrymo.s3.upload.throughput")
+                .baseUnit("bytes_per_second")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(bytes * 1_000_000_000.0 / Math.max(elapsed, 1));
+
+        log.debug("S3 upload finished. key: {}, bytes: {}, elapsed: {}ms",
+                putObjectRequest.getKey(), bytes, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
 }
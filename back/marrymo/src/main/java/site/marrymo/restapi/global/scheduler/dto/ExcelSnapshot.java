@@ -0,0 +1,34 @@
+package site.marrymo.restapi.global.scheduler.dto;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import lombok.Getter;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftGetResponse;
+import site.marrymo.restapi.wishitem.dto.response.WishItemEach;
+
+/**
+ * 정산 엑셀 한 개를 그리는 데 필요한 데이터
+ * 엑셀을 만들기 전에 한 번만 조회해서 담아두고, 신부 / 신랑 시트 모두 이 값으로만 그린다.
+ */
+@Getter
+public class ExcelSnapshot {
+	private final long moneygiftListSum;
+	private final long wishItemListSum;
+	private final long totalSum;
+	private final List<MoneyInfo> moneyList;
+	//wishItemSequence -> 위시 아이템 (이름, 가격)
+	private final Map<Long, WishItemEach> wishItems;
+
+	public ExcelSnapshot(MoneygiftGetResponse moneygift, List<WishItemEach> wishItems) {
+		this.moneygiftListSum = moneygift.getMoneygiftListSum();
+		this.wishItemListSum = moneygift.getWishItemListSum();
+		this.totalSum = moneygift.getTotalSum();
+		this.moneyList = List.copyOf(moneygift.getMoneyList());
+		this.wishItems = wishItems.stream()
+			.collect(Collectors.toUnmodifiableMap(WishItemEach::getWishItemSequence, Function.identity()));
+	}
+}
@@ -0,0 +1,6 @@
+package site.marrymo.restapi.global.scheduler.dto;
+
+//정산 파이프라인 단계
+public enum SettlementStage {
+	QUERY, BUILD, UPLOAD, MAIL
+}
@@ -0,0 +1,42 @@
+package site.marrymo.restapi.global.scheduler.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.Builder;
+import lombok.Getter;
+
+//정산 한 번 실행한 결과 (단계별 소요 시간 포함)
+@Getter
+@Builder
+public class SettlementSummary {
+	private int total;
+	private int succeeded;
+	private int failed;
+	private List<String> failedUserCodes;
+	//단계별 누적 소요 시간 (ms)
+	private Map<SettlementStage, Long> stageTotalMillis;
+	//단계별 가장 오래 걸린 한 건 (ms)
+	private Map<SettlementStage, Long> stageMaxMillis;
+	private long elapsedMillis;
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder()
+			.append("total: ").append(total)
+			.append(", succeeded: ").append(succeeded)
+			.append(", failed: ").append(failed)
+			.append(", elapsed: ").append(elapsedMillis).append("ms");
+
+		for (SettlementStage stage : SettlementStage.values()) {
+			sb.append(", ").append(stage.name().toLowerCase())
+				.append(": ").append(stageTotalMillis.getOrDefault(stage, 0L)).append("ms")
+				.append(" (max ").append(stageMaxMillis.getOrDefault(stage, 0L)).append("ms)");
+		}
+
+		if (!failedUserCodes.isEmpty())
+			sb.append(", failedUserCodes: ").append(failedUserCodes);
+
+		return sb.toString();
+	}
+}
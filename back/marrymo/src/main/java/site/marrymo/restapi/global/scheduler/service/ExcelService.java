@@ -1,25 +1,33 @@
 package site.marrymo.restapi.global.scheduler.service;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.NumberFormat;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFColor;
 import org.apache.poi.xssf.usermodel.XSSFFont;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.amazonaws.services.s3.model.ObjectMetadata;
 
@@ -27,54 +35,125 @@ import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import site.marrymo.restapi.global.s3.service.AwsS3Service;
+import site.marrymo.restapi.global.scheduler.dto.ExcelSnapshot;
 import site.marrymo.restapi.moneygift_history.dto.Type;
 import site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo;
-import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftGetResponse;
 import site.marrymo.restapi.moneygift_history.service.MoneygiftService;
 import site.marrymo.restapi.user.dto.UserDTO;
 import site.marrymo.restapi.user.repository.UserRepository;
-import site.marrymo.restapi.wishitem.dto.response.WishItemDetailResponse;
-import site.marrymo.restapi.wishitem.service.WishItemService;
+import site.marrymo.restapi.wishitem.dto.response.WishItemEach;
+import site.marrymo.restapi.wishitem.repository.WishItemRepository;
 
+/**
+ * 정산 엑셀 생성 / 업로드
+ * 엑셀을 쓰고 S3에 올리는 동안 DB connection을 잡지 않도록 조회만 짧은 읽기 전용 트랜잭션에서 한다.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
-@Transactional
 public class ExcelService {
 
+	private static final String CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+	//본문 데이터가 시작하는 행
+	private static final int BODY_START_ROW = 8;
+
+	//송금 이후 삭제된 위시 아이템은 wishItemSequence 없이 조회되므로 이 key로 묶어서 맨 뒤에 보여준다
+	private static final Long DELETED_WISH_ITEM_KEY = Long.MAX_VALUE;
+	private static final String DELETED_WISH_ITEM_NAME = "삭제된 위시 아이템";
+
 	private final MoneygiftService moneygiftService;
-	private final WishItemService wishItemService;
+	private final WishItemRepository wishItemRepository;
 	private final UserRepository userRepository;
 	private final AwsS3Service awsS3Service;
+	private final TransactionTemplate readOnlyTransactionTemplate;
+
+	//메모리에 유지할 행 개수. 이보다 오래된 행은 임시 파일로 내려간다 (-1이면 전부 메모리에 유지)
+	@Value("${excel.row-access-window:100}")
+	private int rowAccessWindow;
+
+	//SXSSF 임시 파일 gzip 압축 여부
+	@Value("${excel.compress-temp-files:true}")
+	private boolean compressTempFiles;
+
+	public ExcelService(MoneygiftService moneygiftService,
+		WishItemRepository wishItemRepository,
+		UserRepository userRepository,
+		AwsS3Service awsS3Service,
+		PlatformTransactionManager transactionManager) {
+		this.moneygiftService = moneygiftService;
+		this.wishItemRepository = wishItemRepository;
+		this.userRepository = userRepository;
+		this.awsS3Service = awsS3Service;
+		this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+		this.readOnlyTransactionTemplate.setReadOnly(true);
+	}
 
+	@Transactional(Transactional.TxType.NOT_SUPPORTED)
 	public String moneygiftExcelURL(UserDTO user) throws IOException {
-		Workbook workbook = new XSSFWorkbook();
+		Path excel = createExcel(user);
+		try {
+			return uploadExcel(user.getUserCode(), excel);
+		} finally {
+			Files.deleteIfExists(excel);
+		}
+	}
 
-		createSheetForUser(workbook, "신부 축의금 내역", user);
-		createSheetForUser(workbook, "신랑 축의금 내역", user);
+	/**
+	 * 축의금 정산 엑셀을 임시 파일로 생성
+	 * SXSSF로 일정 행 수만 메모리에 두고 나머지는 디스크로 흘려보내므로 송금 내역이 늘어도 메모리 사용량이 일정하다.
+	 * 반환된 파일은 호출한 쪽에서 삭제해야 한다.
+	 */
+	@Transactional(Transactional.TxType.NOT_SUPPORTED)
+	public Path createExcel(UserDTO user) throws IOException {
+		//두 시트가 같이 쓰는 데이터는 먼저 한 번만 조회한다
+		ExcelSnapshot snapshot = loadSnapshot(user);
+
+		Path excel = Files.createTempFile("marrymo_" + user.getUserCode() + "_", ".xlsx");
+
+		SXSSFWorkbook workbook = new SXSSFWorkbook(null, rowAccessWindow, compressTempFiles);
+		try (OutputStream outputStream = Files.newOutputStream(excel)) {
+			createSheetForUser(workbook, "신부 축의금 내역", snapshot);
+			createSheetForUser(workbook, "신랑 축의금 내역", snapshot);
+
+			workbook.write(outputStream);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(excel);
+			throw e;
+		} finally {
+			//SXSSF가 만든 임시 파일 정리
+			workbook.dispose();
+			workbook.close();
+		}
 
-		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-		workbook.write(outputStream);
+		return excel;
+	}
 
-		ByteArrayInputStream inputStream = new ByteArrayInputStream(outputStream.toByteArray());
+	//송금 내역(합계 포함)과 위시 아이템 목록을 각각 한 번씩만 조회 (connection은 조회하는 동안만 잡는다)
+	private ExcelSnapshot loadSnapshot(UserDTO user) {
+		return readOnlyTransactionTemplate.execute(status -> new ExcelSnapshot(
+			moneygiftService.getMoneygiftInfo(user),
+			wishItemRepository.findWishItemEachByUserSequence(user.getUserSequence())));
+	}
 
+	//생성한 엑셀 파일을 S3에 올리고 파일 URL을 반환
+	@Transactional(Transactional.TxType.NOT_SUPPORTED)
+	public String uploadExcel(String userCode, Path excel) throws IOException {
 		ObjectMetadata metadata = new ObjectMetadata();
-		metadata.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
-		metadata.setContentLength(outputStream.size());
-		String fileName = "marrymo_" + user.getUserCode();
-
-		String fileUrl = awsS3Service.uploadExcelFile("excel", inputStream, fileName, metadata);
-
-		outputStream.close();
-		workbook.close();
+		metadata.setContentType(CONTENT_TYPE);
+		metadata.setContentLength(Files.size(excel));
+		String fileName = "marrymo_" + userCode;
 
-		return fileUrl;
+		return awsS3Service.uploadExcelFile("excel", excel.toFile(), fileName, metadata);
 	}
 
-	private void createSheetForUser(Workbook workbook, String sheetName, UserDTO user) {
+	/**
+	 * SXSSF는 이미 디스크로 내려간 행을 다시 열 수 없으므로 행 순서대로 한 번에 써야 한다.
+	 * 위시리스트(2~6열), 축의금(9~12열), 통계(15~16열) 세 블록을 각각 "한 행씩 쓰는" iterator로 만들고
+	 * 8행부터 세 블록을 나란히 한 행씩 채운다.
+	 */
+	private void createSheetForUser(SXSSFWorkbook workbook, String sheetName, ExcelSnapshot snapshot) {
 		Sheet sheet = workbook.createSheet(sheetName);
 		sheet.setDefaultColumnWidth(9);
 		/**
@@ -115,52 +194,16 @@ public class ExcelService {
 		// 셀 스타일 설정
 		XSSFCellStyle titleStyle = (XSSFCellStyle)workbook.createCellStyle();
 		titleStyle.setFont(titleFont);
-		/**
-		 * header data
-		 */
-
-		Row row = sheet.createRow(3);
-		Cell title = row.createCell(6);
-		title.setCellValue(sheetName);
-		title.setCellStyle(titleStyle);
-
-		row = sheet.createRow(6);
-		Cell money = row.createCell(9);
-		money.setCellValue("축의금");
-		money.setCellStyle(headerXssfCellStyle);
-		Cell wishList = row.createCell(2);
-		wishList.setCellValue("위시리스트");
-		wishList.setCellStyle(headerXssfCellStyle);
-
-		Row headerRow = null;
-		Cell headerCell = null;
-
-		String[] headerData = new String[] {"순번", "관계", "이름", "금액"};
-		headerRow = sheet.createRow(7);
-		headerCell = headerRow.createCell(2);
-		headerCell.setCellValue("품목");
-		headerCell.setCellStyle(headerXssfCellStyle); // 스타일 추가
-		for (int i = 0; i < headerData.length; i++) {
-			headerCell = headerRow.createCell(i + 3);
-			headerCell.setCellValue(headerData[i]); // 데이터 추가
-			headerCell.setCellStyle(headerXssfCellStyle); // 스타일 추가
-			headerCell = headerRow.createCell(i + 9);
-			headerCell.setCellValue(headerData[i]); // 데이터 추가
-			headerCell.setCellStyle(headerXssfCellStyle); // 스타일 추가
-		}
 
 		/**
 		 * body data
 		 */
-		MoneygiftGetResponse response = moneygiftService.getMoneygiftInfo(user);
 		NumberFormat formatter = NumberFormat.getNumberInstance();
-		String totalSum = formatter.format(response.getTotalSum());
-		String withListItemSum = formatter.format(response.getWishItemListSum());
-		String moneygiftSum = formatter.format(response.getMoneygiftListSum());
+		String guestType = sheetName.substring(0, 2);
 
-		List<MoneyInfo> moneyList = response.getMoneyList();
+		List<MoneyInfo> moneyList = snapshot.getMoneyList();
 		List<MoneygiftData> moneygiftList = moneyList.stream()
-			.filter(moneygift -> moneygift.getGuestType().equals(sheetName.substring(0, 2)))
+			.filter(moneygift -> moneygift.getGuestType().equals(guestType))
 			.filter(moneygift -> moneygift.getType() == Type.CASH)
 			.map(moneygift -> MoneygiftData.builder()
 				.relationship(moneygift.getRelationship())
@@ -170,156 +213,160 @@ public class ExcelService {
 			)
 			.toList();
 
-		int moneygiftIndex = 8;
-		Long moneygiftAmount = 0L;
-		Row moneygiftRow = null;
-		Cell moneygiftCell = null;
-
-		for (MoneygiftData data : moneygiftList) {
-			moneygiftRow = sheet.createRow(moneygiftIndex++);
-
-			moneygiftCell = moneygiftRow.createCell(9);
-			moneygiftCell.setCellValue(moneygiftIndex - 8);
-			moneygiftCell.setCellStyle(bodyXssfCellStyle);
-
-			moneygiftCell = moneygiftRow.createCell(10);
-			moneygiftCell.setCellValue(data.getRelationship());
-			moneygiftCell.setCellStyle(bodyXssfCellStyle);
-
-			moneygiftCell = moneygiftRow.createCell(11);
-			moneygiftCell.setCellValue(data.getSender());
-			moneygiftCell.setCellStyle(bodyXssfCellStyle);
-
-			moneygiftCell = moneygiftRow.createCell(12);
-			moneygiftCell.setCellValue(formatter.format(data.getAmount()));
-			moneygiftAmount += data.getAmount();
-			moneygiftCell.setCellStyle(bodyXssfCellStyle);
-
-		}
-
-		String[] moneygiftTotal = {"", "", "합계", formatter.format(moneygiftAmount)};
-		moneygiftRow = sheet.createRow(moneygiftIndex);
-		for (int i = 0; i < moneygiftTotal.length; i++) {
-			moneygiftCell = moneygiftRow.createCell(9 + i);
-			moneygiftCell.setCellValue(moneygiftTotal[i]);
-			moneygiftCell.setCellStyle(headerXssfCellStyle);
-		}
-
+		//위시 아이템 sequence 순서대로
 		Map<Long, List<WishItemData>> wishitemList = moneyList.stream()
-			.filter(wishitem -> wishitem.getGuestType().equals(sheetName.substring(0, 2)))
+			.filter(wishitem -> wishitem.getGuestType().equals(guestType))
 			.filter(wishitem -> wishitem.getType() == Type.ITEM)
-			.sorted(Comparator.comparing(MoneyInfo::getWishItemSequence))
 			.map(wishitem -> WishItemData.builder()
-				.wishItemSequence(wishitem.getWishItemSequence())
+				.wishItemSequence(wishitem.getWishItemSequence() == null ? DELETED_WISH_ITEM_KEY
+					: wishitem.getWishItemSequence())
 				.relationship(wishitem.getRelationship())
 				.sender(wishitem.getSender())
 				.amount(wishitem.getAmount())
 				.build()
 			)
-			.collect(Collectors.groupingBy(WishItemData::getWishItemSequence));
-
-		int wishitemIndex = 8;
-		Long wishListAmount = 0L;
-		Row wishitemRow = null;
-		Cell wishitemCell = null;
-
-		for (Map.Entry<Long, List<WishItemData>> wishlist : wishitemList.entrySet()) {
-			WishItemDetailResponse wishItemDetail = wishItemService.getWishItemDetail(user.getUserCode(),
-				wishlist.getKey());
-			String wishItemName = wishItemDetail.getName();
-			String wishItemPrice = formatter.format(wishItemDetail.getPrice());
-			List<WishItemData> list = wishlist.getValue();
-			wishitemRow = sheet.getRow(wishitemIndex);
-			if (wishitemRow == null) {
-				wishitemRow = sheet.createRow(wishitemIndex);
-			}
-			wishitemCell = wishitemRow.createCell(2);
-			wishitemCell.setCellValue(wishItemName);
-			wishitemCell.setCellStyle(bodyXssfCellStyle);
-			wishitemCell = wishitemRow.createCell(6);
-			wishitemCell.setCellValue(wishItemPrice);
-			wishitemCell.setCellStyle(bodyXssfCellStyle);
-			wishitemIndex++;
-			Long wishitemAmount = 0L;
-			Long sequence = 1L;
-			for (WishItemData data : list) {
-				wishitemRow = sheet.getRow(wishitemIndex);
-				if (wishitemRow == null)
-					wishitemRow = sheet.createRow(wishitemIndex);
-
-				wishitemCell = wishitemRow.createCell(3);
-				wishitemCell.setCellValue(sequence++);
-				wishitemCell.setCellStyle(bodyXssfCellStyle);
-
-				wishitemCell = wishitemRow.createCell(4);
-				wishitemCell.setCellValue(data.getRelationship());
-				wishitemCell.setCellStyle(bodyXssfCellStyle);
-
-				wishitemCell = wishitemRow.createCell(5);
-				wishitemCell.setCellValue(data.getSender());
-				wishitemCell.setCellStyle(bodyXssfCellStyle);
-
-				wishitemCell = wishitemRow.createCell(6);
-				wishitemCell.setCellValue(formatter.format(data.getAmount()));
-				wishitemCell.setCellStyle(bodyXssfCellStyle);
-
-				wishitemAmount += data.getAmount();
-				wishitemIndex++;
-			}
+			.collect(Collectors.groupingBy(WishItemData::getWishItemSequence, TreeMap::new, Collectors.toList()));
 
-			wishListAmount += wishitemAmount;
-			String[] wishitemTotal = {"", "", "누계", formatter.format(wishitemAmount)};
-			wishitemRow = sheet.getRow(wishitemIndex);
-			if (wishitemRow == null)
-				wishitemRow = sheet.createRow(wishitemIndex);
-			for (int i = 0; i < moneygiftTotal.length; i++) {
-				wishitemCell = wishitemRow.createCell(3 + i);
-				wishitemCell.setCellValue(wishitemTotal[i]);
-				wishitemCell.setCellStyle(headerXssfCellStyle);
-			}
-			wishitemIndex++;
-		}
+		/**
+		 * header data
+		 */
+		Row row = sheet.createRow(3);
+		Cell title = row.createCell(6);
+		title.setCellValue(sheetName);
+		title.setCellStyle(titleStyle);
+
+		row = sheet.createRow(6);
+		Cell money = row.createCell(9);
+		money.setCellValue("축의금");
+		money.setCellStyle(headerXssfCellStyle);
+		Cell wishList = row.createCell(2);
+		wishList.setCellValue("위시리스트");
+		wishList.setCellStyle(headerXssfCellStyle);
 
-		String[] wishitemTotal = {"", "", "합계", formatter.format(wishListAmount)};
-		wishitemRow = sheet.getRow(wishitemIndex);
-		if (wishitemRow == null)
-			wishitemRow = sheet.createRow(wishitemIndex);
-		for (int i = 0; i < moneygiftTotal.length; i++) {
-			wishitemCell = wishitemRow.createCell(3 + i);
-			wishitemCell.setCellValue(wishitemTotal[i]);
-			wishitemCell.setCellStyle(bodyXssfCellStyle);
+		String[] headerData = new String[] {"순번", "관계", "이름", "금액"};
+		Row headerRow = sheet.createRow(7);
+		setCell(headerRow, 2, "품목", headerXssfCellStyle);
+		for (int i = 0; i < headerData.length; i++) {
+			setCell(headerRow, i + 3, headerData[i], headerXssfCellStyle);
+			setCell(headerRow, i + 9, headerData[i], headerXssfCellStyle);
 		}
 
 		String[] statistics = new String[] {"구분", "총액"};
-		String[] categories = new String[] {"축의금", "위시리스트", "합계"};
-		String[] totalAmounts = new String[] {moneygiftSum, withListItemSum, totalSum};
+		for (int i = 0; i < statistics.length; i++)
+			setCell(headerRow, i + 15, statistics[i], headerXssfCellStyle);
+
+		List<Iterator<Consumer<Row>>> blocks = new ArrayList<>();
+		blocks.add(wishItemBlock(snapshot, wishitemList, formatter, headerXssfCellStyle, bodyXssfCellStyle));
+		blocks.add(moneygiftBlock(moneygiftList, formatter, headerXssfCellStyle, bodyXssfCellStyle));
+		blocks.add(statisticsBlock(snapshot, formatter, bodyXssfCellStyle));
+
+		for (int rowIndex = BODY_START_ROW; blocks.stream().anyMatch(Iterator::hasNext); rowIndex++) {
+			Row bodyRow = sheet.createRow(rowIndex);
+			for (Iterator<Consumer<Row>> block : blocks) {
+				if (block.hasNext())
+					block.next().accept(bodyRow);
+			}
+		}
+	}
 
-		Row totalRow = null;
-		Cell totalCell = null;
+	//축의금 (9~12열): 순번, 관계, 이름, 금액 / 마지막 행은 합계
+	private Iterator<Consumer<Row>> moneygiftBlock(List<MoneygiftData> moneygiftList, NumberFormat formatter,
+		CellStyle headerStyle, CellStyle bodyStyle) {
+		long moneygiftAmount = moneygiftList.stream().mapToLong(MoneygiftData::getAmount).sum();
 
-		totalRow = sheet.getRow(7);
-		for (int i = 0; i < statistics.length; i++) {
-			totalCell = totalRow.createCell(i + 15);
-			totalCell.setCellValue(statistics[i]);
-			totalCell.setCellStyle(headerXssfCellStyle);
-		}
+		Stream<Consumer<Row>> rows = Stream.iterate(0, i -> i < moneygiftList.size(), i -> i + 1)
+			.map(i -> bodyRow -> {
+				MoneygiftData data = moneygiftList.get(i);
+				setCell(bodyRow, 9, i + 1, bodyStyle);
+				setCell(bodyRow, 10, data.getRelationship(), bodyStyle);
+				setCell(bodyRow, 11, data.getSender(), bodyStyle);
+				setCell(bodyRow, 12, formatter.format(data.getAmount()), bodyStyle);
+			});
+
+		Consumer<Row> totalRow = bodyRow -> setCells(bodyRow, 9,
+			new String[] {"", "", "합계", formatter.format(moneygiftAmount)}, headerStyle);
+
+		return Stream.concat(rows, Stream.of(totalRow)).iterator();
+	}
+
+	//위시리스트 (2~6열): 품목별로 [품목명, 가격] 행, 보낸 사람 행들, 누계 행 / 마지막 행은 합계
+	private Iterator<Consumer<Row>> wishItemBlock(ExcelSnapshot snapshot, Map<Long, List<WishItemData>> wishitemList,
+		NumberFormat formatter, CellStyle headerStyle, CellStyle bodyStyle) {
+		long wishListAmount = wishitemList.values().stream()
+			.flatMap(List::stream)
+			.mapToLong(WishItemData::getAmount)
+			.sum();
+
+		Stream<Consumer<Row>> rows = wishitemList.entrySet().stream()
+			.flatMap(wishlist -> {
+				WishItemEach wishItem = snapshot.getWishItems().get(wishlist.getKey());
+				List<WishItemData> list = wishlist.getValue();
+				long wishitemAmount = list.stream().mapToLong(WishItemData::getAmount).sum();
+
+				Consumer<Row> itemRow = bodyRow -> {
+					setCell(bodyRow, 2, (wishItem == null) ? DELETED_WISH_ITEM_NAME : wishItem.getName(), bodyStyle);
+					setCell(bodyRow, 6, (wishItem == null) ? "-" : formatter.format(wishItem.getPrice()), bodyStyle);
+				};
+
+				Stream<Consumer<Row>> senderRows = Stream.iterate(0, i -> i < list.size(), i -> i + 1)
+					.map(i -> bodyRow -> {
+						WishItemData data = list.get(i);
+						setCell(bodyRow, 3, i + 1, bodyStyle);
+						setCell(bodyRow, 4, data.getRelationship(), bodyStyle);
+						setCell(bodyRow, 5, data.getSender(), bodyStyle);
+						setCell(bodyRow, 6, formatter.format(data.getAmount()), bodyStyle);
+					});
+
+				Consumer<Row> subtotalRow = bodyRow -> setCells(bodyRow, 3,
+					new String[] {"", "", "누계", formatter.format(wishitemAmount)}, headerStyle);
+
+				return Stream.concat(Stream.concat(Stream.of(itemRow), senderRows), Stream.of(subtotalRow));
+			});
+
+		Consumer<Row> totalRow = bodyRow -> setCells(bodyRow, 3,
+			new String[] {"", "", "합계", formatter.format(wishListAmount)}, bodyStyle);
+
+		return Stream.concat(rows, Stream.of(totalRow)).iterator();
+	}
+
+	//통계 (15~16열): 축의금 / 위시리스트 / 합계, 그 아래 (부부 합계)
+	private Iterator<Consumer<Row>> statisticsBlock(ExcelSnapshot snapshot, NumberFormat formatter,
+		CellStyle bodyStyle) {
+		String[] categories = new String[] {"축의금", "위시리스트", "합계"};
+		String[] totalAmounts = new String[] {
+			formatter.format(snapshot.getMoneygiftListSum()),
+			formatter.format(snapshot.getWishItemListSum()),
+			formatter.format(snapshot.getTotalSum())
+		};
 
+		List<Consumer<Row>> rows = new ArrayList<>();
 		for (int i = 0; i < categories.length; i++) {
-			totalRow = sheet.getRow(8 + i);
-			if (totalRow == null)
-				totalRow = sheet.createRow(8 + i);
-			totalCell = totalRow.createCell(15);
-			totalCell.setCellValue(categories[i]);
-			totalCell.setCellStyle(bodyXssfCellStyle);
-			totalCell = totalRow.createCell(16);
-			totalCell.setCellValue(totalAmounts[i]);
-			totalCell.setCellStyle(bodyXssfCellStyle);
+			int index = i;
+			rows.add(bodyRow -> {
+				setCell(bodyRow, 15, categories[index], bodyStyle);
+				setCell(bodyRow, 16, totalAmounts[index], bodyStyle);
+			});
 		}
-		totalRow = sheet.getRow(11);
-		if (totalRow == null)
-			totalRow = sheet.createRow(11);
-		totalCell = totalRow.createCell(16);
-		totalCell.setCellValue("(부부 합계)");
+		rows.add(bodyRow -> bodyRow.createCell(16).setCellValue("(부부 합계)"));
+
+		return rows.iterator();
+	}
+
+	private void setCells(Row row, int firstColumn, String[] values, CellStyle style) {
+		for (int i = 0; i < values.length; i++)
+			setCell(row, firstColumn + i, values[i], style);
+	}
+
+	private void setCell(Row row, int column, String value, CellStyle style) {
+		Cell cell = row.createCell(column);
+		cell.setCellValue(value);
+		cell.setCellStyle(style);
+	}
+
+	private void setCell(Row row, int column, long value, CellStyle style) {
+		Cell cell = row.createCell(column);
+		cell.setCellValue(value);
+		cell.setCellStyle(style);
 	}
 
 	@Builder
@@ -0,0 +1,299 @@
+package site.marrymo.restapi.global.scheduler.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import site.marrymo.restapi.card.service.CardService;
+import site.marrymo.restapi.global.scheduler.dto.SettlementStage;
+import site.marrymo.restapi.global.scheduler.dto.SettlementSummary;
+import site.marrymo.restapi.global.smtp.dto.SettlementMail;
+import site.marrymo.restapi.global.smtp.service.SmtpService;
+import site.marrymo.restapi.user.dto.UserDTO;
+import site.marrymo.restapi.user.entity.User;
+
+/**
+ * 결혼식 당일 축의금 정산 파이프라인
+ * 부부마다 엑셀 생성(BUILD) -> S3 업로드(UPLOAD) 순서로 진행하고, 여러 부부를 worker pool에서 동시에 처리한다.
+ * 단계마다 동시에 실행할 수 있는 개수를 따로 제한해서 S3 한쪽이 느려도 다른 단계는 계속 진행된다.
+ * 업로드까지 끝난 부부의 메일(MAIL)은 mail-batch-size개씩 묶어 batch마다 SMTP 연결 하나로 보낸다.
+ * 한 부부가 실패해도 나머지 부부의 정산에는 영향을 주지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SettlementService {
+
+	private final CardService cardService;
+	private final ExcelService excelService;
+	private final SmtpService smtpService;
+	private final MeterRegistry meterRegistry;
+
+	@Value("${settlement.worker-count:8}")
+	private int workerCount;
+
+	@Value("${settlement.build-concurrency:4}")
+	private int buildConcurrency;
+
+	@Value("${settlement.upload-concurrency:4}")
+	private int uploadConcurrency;
+
+	//동시에 맺는 SMTP 연결 수
+	@Value("${settlement.mail-concurrency:2}")
+	private int mailConcurrency;
+
+	//SMTP 연결 하나로 보내는 메일 수
+	@Value("${settlement.mail-batch-size:50}")
+	private int mailBatchSize;
+
+	//단계별 최대 시도 횟수
+	@Value("${settlement.max-attempts:3}")
+	private int maxAttempts;
+
+	//재시도 대기 시간 (시도할 때마다 두 배씩 늘어난다)
+	@Value("${settlement.retry-backoff-millis:1000}")
+	private long retryBackoffMillis;
+
+	public SettlementSummary run() {
+		long start = System.currentTimeMillis();
+		StageStats stats = new StageStats();
+
+		long queryStart = System.nanoTime();
+		List<User> users = cardService.findUserSequenceByWeddingDateAndIsIssued();
+		stats.record(SettlementStage.QUERY, System.nanoTime() - queryStart);
+
+		//엔티티는 스케줄러 스레드에서 DTO로 바꿔서 worker에 넘긴다
+		List<SettlementTarget> targets = new ArrayList<>();
+		for (User user : users)
+			targets.add(new SettlementTarget(UserDTO.toDTO(user), user.getCard().getBrideName(),
+				user.getCard().getGroomName()));
+
+		Map<SettlementStage, Semaphore> limiters = new EnumMap<>(SettlementStage.class);
+		limiters.put(SettlementStage.BUILD, new Semaphore(buildConcurrency));
+		limiters.put(SettlementStage.UPLOAD, new Semaphore(uploadConcurrency));
+		limiters.put(SettlementStage.MAIL, new Semaphore(mailConcurrency));
+
+		List<String> failedUserCodes = Collections.synchronizedList(new ArrayList<>());
+		//보낼 메일 -> userCode
+		Map<SettlementMail, String> mails = new ConcurrentHashMap<>();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, workerCount),
+			new CustomizableThreadFactory("settlement-"));
+
+		try {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (SettlementTarget target : targets) {
+				futures.add(CompletableFuture.runAsync(() -> {
+					String excelURL = settle(target, limiters, stats);
+					if (excelURL == null) {
+						failedUserCodes.add(target.getUserDTO().getUserCode());
+						return;
+					}
+					mails.put(new SettlementMail(target.getUserDTO().getEmail(), excelURL, target.getBrideName(),
+						target.getGroomName()), target.getUserDTO().getUserCode());
+				}, executor));
+			}
+
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+			for (SettlementMail failed : deliver(new ArrayList<>(mails.keySet()), limiters.get(SettlementStage.MAIL),
+				stats, executor))
+				failedUserCodes.add(mails.get(failed));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.error("settlement mail delivery interrupted.");
+		} finally {
+			executor.shutdown();
+		}
+
+		SettlementSummary summary = SettlementSummary.builder()
+			.total(targets.size())
+			.succeeded(targets.size() - failedUserCodes.size())
+			.failed(failedUserCodes.size())
+			.failedUserCodes(List.copyOf(failedUserCodes))
+			.stageTotalMillis(stats.totalMillis())
+			.stageMaxMillis(stats.maxMillis())
+			.elapsedMillis(System.currentTimeMillis() - start)
+			.build();
+
+		if (summary.getFailed() > 0)
+			log.warn("settlement finished with failures. {}", summary);
+		else
+			log.info("settlement finished. {}", summary);
+
+		return summary;
+	}
+
+	//부부 한 쌍의 엑셀 생성 / 업로드. 업로드한 엑셀 URL을 반환한다 (실패하면 null)
+	private String settle(SettlementTarget target, Map<SettlementStage, Semaphore> limiters, StageStats stats) {
+		UserDTO userDTO = target.getUserDTO();
+
+		Path excel = null;
+		try {
+			excel = runStage(SettlementStage.BUILD, limiters, stats, userDTO,
+				() -> excelService.createExcel(userDTO));
+
+			Path builtExcel = excel;
+			return runStage(SettlementStage.UPLOAD, limiters, stats, userDTO,
+				() -> excelService.uploadExcel(userDTO.getUserCode(), builtExcel));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.error("settlement interrupted. userCode: {}", userDTO.getUserCode());
+			return null;
+		} catch (Exception e) {
+			log.error("settlement failed. userCode: {}, message: {}", userDTO.getUserCode(), e.getMessage());
+			return null;
+		} finally {
+			deleteExcel(excel);
+		}
+	}
+
+	//메일을 batch로 나눠 mail-concurrency개의 SMTP 연결로 동시에 보낸다
+	//실패한 메일만 모아 backoff 후 다시 보내고, max-attempts번 실패한 메일을 반환한다
+	private List<SettlementMail> deliver(List<SettlementMail> mails, Semaphore limiter, StageStats stats,
+		ExecutorService executor) throws InterruptedException {
+		List<SettlementMail> pending = mails;
+		int batchSize = Math.max(1, mailBatchSize);
+
+		for (int attempt = 1; ; attempt++) {
+			List<SettlementMail> failed = Collections.synchronizedList(new ArrayList<>());
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+			for (int from = 0; from < pending.size(); from += batchSize) {
+				List<SettlementMail> batch = pending.subList(from, Math.min(pending.size(), from + batchSize));
+				futures.add(CompletableFuture.runAsync(() -> failed.addAll(sendBatch(batch, limiter, stats)), executor));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+
+			if (failed.isEmpty() || attempt >= maxAttempts)
+				return failed;
+
+			log.warn("settlement {} failed. retry {}/{}. mails: {}",
+				SettlementStage.MAIL, attempt, maxAttempts - 1, failed.size());
+			TimeUnit.MILLISECONDS.sleep(retryBackoffMillis << (attempt - 1));
+			pending = new ArrayList<>(failed);
+		}
+	}
+
+	private List<SettlementMail> sendBatch(List<SettlementMail> batch, Semaphore limiter, StageStats stats) {
+		try {
+			limiter.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return batch;
+		}
+
+		try {
+			return stats.measure(SettlementStage.MAIL, () -> smtpService.sendSettlementEmails(batch));
+		} catch (Exception e) {
+			log.error("settlement mail batch failed. mails: {}, message: {}", batch.size(), e.getMessage());
+			return batch;
+		} finally {
+			limiter.release();
+		}
+	}
+
+	private void deleteExcel(Path excel) {
+		if (excel == null)
+			return;
+
+		try {
+			Files.deleteIfExists(excel);
+		} catch (IOException e) {
+			log.warn("failed to delete settlement excel. path: {}, message: {}", excel, e.getMessage());
+		}
+	}
+
+	//단계 하나를 동시 실행 제한 안에서 실행하고, 실패하면 backoff 후 재시도한다
+	private <T> T runStage(SettlementStage stage, Map<SettlementStage, Semaphore> limiters, StageStats stats,
+		UserDTO userDTO, Callable<T> task) throws Exception {
+		Semaphore limiter = limiters.get(stage);
+
+		for (int attempt = 1; ; attempt++) {
+			limiter.acquire();
+			try {
+				return stats.measure(stage, task);
+			} catch (Exception e) {
+				if (attempt >= maxAttempts)
+					throw e;
+
+				log.warn("settlement {} failed. retry {}/{}. userCode: {}, message: {}",
+					stage, attempt, maxAttempts - 1, userDTO.getUserCode(), e.getMessage());
+			} finally {
+				limiter.release();
+			}
+
+			//재시도 대기 중에는 다른 부부가 해당 단계를 쓸 수 있도록 permit을 반납한 뒤 기다린다
+			TimeUnit.MILLISECONDS.sleep(retryBackoffMillis << (attempt - 1));
+		}
+	}
+
+	//단계별 소요 시간 집계 (Micrometer timer에도 같이 기록)
+	private class StageStats {
+		private final Map<SettlementStage, LongAdder> total = new ConcurrentHashMap<>();
+		private final Map<SettlementStage, LongAccumulator> max = new ConcurrentHashMap<>();
+
+		<T> T measure(SettlementStage stage, Callable<T> task) throws Exception {
+			long start = System.nanoTime();
+			try {
+				return task.call();
+			} finally {
+				record(stage, System.nanoTime() - start);
+			}
+		}
+
+		void record(SettlementStage stage, long nanos) {
+			long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+			total.computeIfAbsent(stage, key -> new LongAdder()).add(millis);
+			max.computeIfAbsent(stage, key -> new LongAccumulator(Long::max, 0L)).accumulate(millis);
+
+			Timer.builder("marrymo.settlement.stage")
+				.tag("stage", stage.name().toLowerCase())
+				.register(meterRegistry)
+				.record(nanos, TimeUnit.NANOSECONDS);
+		}
+
+		Map<SettlementStage, Long> totalMillis() {
+			Map<SettlementStage, Long> result = new EnumMap<>(SettlementStage.class);
+			total.forEach((stage, adder) -> result.put(stage, adder.sum()));
+			return result;
+		}
+
+		Map<SettlementStage, Long> maxMillis() {
+			Map<SettlementStage, Long> result = new EnumMap<>(SettlementStage.class);
+			max.forEach((stage, accumulator) -> result.put(stage, accumulator.get()));
+			return result;
+		}
+	}
+
+	@Getter
+	@AllArgsConstructor
+	private static class SettlementTarget {
+		private UserDTO userDTO;
+		private String brideName;
+		private String groomName;
+	}
+}
@@ -14,13 +14,14 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 
 import lombok.RequiredArgsConstructor;
 import site.marrymo.restapi.global.jwt.JWTProvider;
-import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.global.jwt.service.TokenRefreshService;
 import site.marrymo.restapi.global.security.filter.JwtAuthenticationFilter;
 import site.marrymo.restapi.global.security.handler.JwtAccessDeniedHandler;
 import site.marrymo.restapi.global.security.handler.JwtAuthenticationEntryPoint;
 import site.marrymo.restapi.global.security.handler.OAuth2LoginFailureHandler;
 import site.marrymo.restapi.global.security.handler.OAuth2LoginSuccessHandler;
 import site.marrymo.restapi.global.security.service.CustomOAuth2UserService;
+import site.marrymo.restapi.user.service.UserIdentityService;
 
 @Configuration
 @EnableWebSecurity
@@ -35,7 +36,8 @@ public class SecurityConfig {
     private final JWTProvider jwtProvider;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
-    private final RedisService redisService;
+    private final TokenRefreshService tokenRefreshService;
+    private final UserIdentityService userIdentityService;
     private static final String[] swaggerURL = {
         "/graphiql", "/graphql",
         "/swagger-ui/**", "/api-docs", "/swagger-ui.html",
@@ -65,7 +67,7 @@ public class SecurityConfig {
                 sessionManagement.sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                         .sessionFixation().changeSessionId()
                         .maximumSessions(1))
-            .addFilterBefore(new JwtAuthenticationFilter(jwtProvider, redisService),
+            .addFilterBefore(new JwtAuthenticationFilter(jwtProvider, tokenRefreshService, userIdentityService),
                 UsernamePasswordAuthenticationFilter.class)
            .exceptionHandling(exception -> exception
                .authenticationEntryPoint(jwtAuthenticationEntryPoint)
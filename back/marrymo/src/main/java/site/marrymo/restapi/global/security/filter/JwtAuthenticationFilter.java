@@ -8,42 +8,50 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import site.marrymo.restapi.global.exception.UnAuthorizedException;
 import site.marrymo.restapi.global.jwt.JWTProvider;
-import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.dto.ReissuedTokens;
 import site.marrymo.restapi.global.jwt.dto.TokenDTO;
+import site.marrymo.restapi.global.jwt.service.TokenRefreshService;
+import site.marrymo.restapi.global.security.userdetails.MarrymoPrincipal;
+import site.marrymo.restapi.user.service.UserIdentityService;
 
 import java.io.IOException;
-import java.util.Map;
+import java.util.List;
 
 @Slf4j
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
-	private final JWTProvider jwtProvider;
-	private final RedisService redisService;
+	private static final List<GrantedAuthority> USER_AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
 
-	//refresh token 만료 기한 30 days
-	@Value("${jwt.refresh-token.expiretime}")
-	private long refreshTokenExpireTime;
+	private final JWTProvider jwtProvider;
+	private final TokenRefreshService tokenRefreshService;
+	private final UserIdentityService userIdentityService;
 
 	/**
 	 * [요청 시 거치는 필터 로직]
 	 * Request는 아래와 같은 로직을 통과한다
 	 * 예외) 카카오 로그인을 할 경우나 비회원이 접근을 할 경우 쿠키에 토큰을 담아 넘겨주지 않으므로 해당 url에 대해서는 filter를 거치지 못하도록 한다.
-	 * 1. Request에서 쿠키를 가져온 후 accessToken과 refreshToken을 추출한다. (token을 토대로 userCode도 가져온다)
+	 * 1. Request에서 쿠키를 가져온 후 accessToken과 refreshToken을 추출한다. (토큰은 요청마다 한 번만 파싱한다)
 	 *
 	 * 2. 프론트에 401 에러를 보내서 로그인 창으로 리다이렉트 시키는 경우
 	 * 2-1). access token과 refresh token이 각각 쿠키에 담겨서 넘어와야 하는데(쿠키 2개가 넘어와야 한다) 하나라도 없으면  401 에러을 보낸다.
 	 * 2-2). 이미 로그아웃 돼서 만료된 refresh token을 가지고 접근 하려고 한다면 401 에러를 보낸다.
 	 * 2-3). access token과 refresh 토큰이 모두 만료 되었을 시 401 에러를 보낸다.
 	 *
-	 * 3. jwtProvider는 유효하지 않은 토큰이 있다면 다시 생성한 후 map에 담아서 가져온다.
-	 * (ex) accessToken만이 유효하지 않았다면 accessToken만 map에 담아서 가져온다.
-	 * 4. accessToken이 유효하지 않았다면 기존에 accessToken을 담고 있던 쿠키를 삭제 시키고 다시 발급한 accessToken을 쿠키에 담는다.
+	 * 3. tokenRefreshService는 만료되었거나 곧 만료되는 토큰만 다시 발급해서 가져온다. (동시에 들어온 같은 사용자의 요청은 같은 토큰을 받는다)
+	 * (ex) accessToken만 곧 만료된다면 accessToken만 담아서 가져온다.
+	 * 4. 다시 발급한 토큰이 있다면 기존에 토큰을 담고 있던 쿠키를 삭제 시키고 다시 발급한 토큰을 쿠키에 담는다.
 	 * 5. HttpServletResponse에 cookie를 담아서 보낸다.
+	 * 6. 인증된 사용자 정보(MarrymoPrincipal)를 SecurityContext에 담는다. (@LoginUser는 이 값을 그대로 쓴다)
 	 *
 	 * @param httpServletRequest
 	 * @param httpServletResponse
@@ -69,7 +77,6 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 		String accessToken = "";
 		String refreshToken = "";
-		String userCode = "";
 
 		// Request에서 쿠키를 가져온 후 accessToken과 refreshToken을 추출
 		Cookie[] cookies = httpServletRequest.getCookies();
@@ -113,92 +120,82 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 			throw new UnAuthorizedException("only one token or cookie is expired.");
 		}
 
+		ParsedToken parsedAccessToken = null;
+		ParsedToken parsedRefreshToken = null;
+
+		//토큰은 요청마다 한 번만 파싱 / 검증한다
 		for (Cookie cookie : cookies) {
 			String tokenName = cookie.getName();
 			String tokenValue = cookie.getValue();
 
 			if (tokenName.equals("accessToken")) {
 				accessToken = tokenValue;
-
-				userCode = jwtProvider.getUserCode(accessToken);
+				parsedAccessToken = jwtProvider.parseToken(httpServletRequest, accessToken);
 			} else if (tokenName.equals("refreshToken")) {
 				refreshToken = tokenValue;
-
-				userCode = jwtProvider.getUserCode(refreshToken);
+				parsedRefreshToken = jwtProvider.parseToken(httpServletRequest, refreshToken);
 			}
 		}
 
 		// 로그아웃 해서 만료된 refresh token을 가지고 접근 할 경우
 		// exception 터뜨림
-		if (!refreshToken.equals("") && jwtProvider.validateLogoutToken(refreshToken)) {
+		if (parsedRefreshToken != null && jwtProvider.validateLogoutToken(parsedRefreshToken)) {
 			removeAllCookies(httpServletResponse, cookies);
 			// 인증되지 않은 사용자들에게 401 에러를 던진다
 			throw new UnAuthorizedException("RefreshToken is expired.");
 		}
 
-		Map<String, Object> tokens = jwtProvider.reIssueToken(accessToken, refreshToken, userCode);
-
-		//만료된 토큰이 존재한다면
-		if (tokens != null) {
-			Cookie accessTokenCookie = null;
-			Cookie refreshTokenCookie = null;
-
-			//access token을 보내줬다면
-			//access token이 만료 되었다는 의미
-			if (tokens.get("accessToken") != null) {
-				//기존 accessToken을 담고 있던 쿠키 제거
-				removeCookie(httpServletResponse, cookies, "accessToken");
-
-				//발급된 accessToken을 가져온다
-				TokenDTO accessTokenDTO = (TokenDTO)tokens.get("accessToken");
-
-				accessTokenCookie = new Cookie("accessToken", accessTokenDTO.getToken());
+		ReissuedTokens reissuedTokens;
+		try {
+			reissuedTokens = tokenRefreshService.refreshIfNeeded(parsedAccessToken, parsedRefreshToken);
+		} catch (UnAuthorizedException e) {
+			//다시 로그인해야 하는 경우 토큰 쿠키를 모두 지운다
+			removeAllCookies(httpServletResponse, cookies);
+			throw e;
+		}
 
-				accessTokenCookie.setMaxAge(60 * 24 * 24 * 31);
-				accessTokenCookie.setPath("/");
-				accessTokenCookie.setHttpOnly(true);
-				accessTokenCookie.setSecure(true);
-				accessTokenCookie.setDomain("marrymo.site");
-			}
-			//refresh token을 보내줬다면
-			//refresh token이 만료 되었다는 의미
-			if (tokens.get("refreshToken") != null) {
-				//기존 refreshToken을 담고 있던 쿠키 제거
-				removeCookie(httpServletResponse, cookies, "refreshToken");
+		//만료되었거나 곧 만료되는 토큰은 새로 발급한 토큰으로 쿠키를 바꾼다
+		if (reissuedTokens.getAccessToken() != null) {
+			//기존 accessToken을 담고 있던 쿠키 제거
+			removeCookie(httpServletResponse, cookies, "accessToken");
+			httpServletResponse.addCookie(createTokenCookie("accessToken", reissuedTokens.getAccessToken()));
+		}
+		if (reissuedTokens.getRefreshToken() != null) {
+			//기존 refreshToken을 담고 있던 쿠키 제거
+			removeCookie(httpServletResponse, cookies, "refreshToken");
+			httpServletResponse.addCookie(createTokenCookie("refreshToken", reissuedTokens.getRefreshToken()));
+		}
 
-				TokenDTO refreshTokenDTO = (TokenDTO)tokens.get("refreshToken");
+		authenticate(parsedAccessToken, parsedRefreshToken);
 
-				refreshTokenCookie = new Cookie("refreshToken", refreshTokenDTO.getToken());
+		log.debug("jwtAuthenticationFilter pass.");
+		filterChain.doFilter(httpServletRequest, httpServletResponse);
 
-				refreshTokenCookie.setMaxAge(60 * 24 * 24 * 31);
-				refreshTokenCookie.setPath("/");
-				refreshTokenCookie.setHttpOnly(true);
-				refreshTokenCookie.setSecure(true);
-				refreshTokenCookie.setDomain("marrymo.site");
-			}
+	}
 
-			// accessToken만 만료 되어서
-			// accessToken만 재발급
-			if (accessTokenCookie != null && refreshTokenCookie == null) {
-				httpServletResponse.addCookie(accessTokenCookie);
-			}
-			// refreshToken만 만료 되어서
-			// refreshToken만 재발급
-			else if (accessTokenCookie == null && refreshTokenCookie != null) {
-				httpServletResponse.addCookie(refreshTokenCookie);
-				redisService.setValue(refreshTokenCookie.getValue(), userCode, refreshTokenExpireTime);
-			}
-			//accessToken, refreshToken 모두 만료 되었을 시에
-			//재로그인 하라는 에러메시지를 보낸다
-			else if (accessTokenCookie != null && refreshTokenCookie != null) {
-				// 인증되지 않은 사용자들에게 401 에러를 던진다
-				throw new UnAuthorizedException("AccessToken, RefreshToken are expired.");
-			}
-		}
+	//서명이 검증된 토큰의 userCode로 식별 정보 캐시를 찾아 SecurityContext에 올려 둔다
+	//(access token이 재발급된 경우에도 refresh token의 userCode로 인증된다)
+	//사용자가 없으면 인증 정보를 올리지 않고, @LoginUser가 INVALID_TOKEN(401)으로 거절한다
+	private void authenticate(ParsedToken accessToken, ParsedToken refreshToken) {
+		String userCode = accessToken.isVerified() ? accessToken.getUserCode() : refreshToken.getUserCode();
+
+		userIdentityService.findByUserCode(userCode).ifPresent(userIdentity -> {
+			SecurityContext securityContext = SecurityContextHolder.createEmptyContext();
+			securityContext.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+				MarrymoPrincipal.of(userIdentity), null, USER_AUTHORITIES));
+			SecurityContextHolder.setContext(securityContext);
+		});
+	}
 
-		log.debug("jwtAuthenticationFilter pass.");
-		filterChain.doFilter(httpServletRequest, httpServletResponse);
+	private Cookie createTokenCookie(String name, TokenDTO tokenDTO) {
+		Cookie cookie = new Cookie(name, tokenDTO.getToken());
 
+		cookie.setMaxAge(60 * 24 * 24 * 31);
+		cookie.setPath("/");
+		cookie.setHttpOnly(true);
+		cookie.setSecure(true);
+		cookie.setDomain("marrymo.site");
+		return cookie;
 	}
 
 	//기존에 쿠키를 제거하는 로직
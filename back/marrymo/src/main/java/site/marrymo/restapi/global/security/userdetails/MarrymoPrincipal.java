@@ -0,0 +1,31 @@
+package site.marrymo.restapi.global.security.userdetails;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import site.marrymo.restapi.user.dto.UserIdentity;
+
+import java.security.Principal;
+
+/**
+ * JwtAuthenticationFilter가 인증을 마친 뒤 SecurityContext에 올려 두는 로그인 사용자 정보
+ * @LoginUser는 이 값으로 UserDTO를 만들기 때문에 요청마다 user 테이블을 다시 조회하지 않는다.
+ * User 엔티티 전체가 필요한 곳에서는 userSequence로 직접 조회한다.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class MarrymoPrincipal implements Principal {
+    private final Long userSequence;
+    private final String userCode;
+    private final String email;
+
+    public static MarrymoPrincipal of(UserIdentity userIdentity) {
+        return new MarrymoPrincipal(userIdentity.getUserSequence(), userIdentity.getUserCode(), userIdentity.getEmail());
+    }
+
+    @Override
+    public String getName() {
+        return userCode;
+    }
+}
@@ -0,0 +1,71 @@
+package site.marrymo.restapi.global.smtp;
+
+import org.springframework.web.util.HtmlUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ${name} 자리에 값을 넣는 HTML 메일 본문 템플릿
+ * 템플릿은 처음 한 번만 고정된 조각과 자리로 나눠 두고(compile), 메일마다 조각 사이에 값만 이어 붙인다.
+ * 값은 HTML escape 해서 넣는다.
+ */
+public final class MailTemplate {
+    private static final String OPEN = "${";
+    private static final String CLOSE = "}";
+
+    //자리 앞뒤의 고정된 조각 (literals.length == names.length + 1)
+    private final String[] literals;
+    private final String[] names;
+    private final int literalLength;
+
+    private MailTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+
+        int length = 0;
+        for (String literal : literals)
+            length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static MailTemplate compile(String template) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+
+        int position = 0;
+        int open;
+        while ((open = template.indexOf(OPEN, position)) >= 0) {
+            int close = template.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0)
+                throw new IllegalArgumentException("unclosed placeholder at " + open);
+
+            literals.add(template.substring(position, open));
+            names.add(template.substring(open + OPEN.length(), close));
+            position = close + CLOSE.length();
+        }
+        literals.add(template.substring(position));
+
+        return new MailTemplate(literals.toArray(new String[0]), names.toArray(new String[0]));
+    }
+
+    public String render(Map<String, String> values) {
+        String[] escaped = new String[names.length];
+        int length = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            String value = values.get(names[i]);
+            if (value == null)
+                throw new IllegalArgumentException("missing value for " + names[i]);
+
+            escaped[i] = HtmlUtils.htmlEscape(value, "UTF-8");
+            length += escaped[i].length();
+        }
+
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]).append(escaped[i]);
+        }
+        return builder.append(literals[names.length]).toString();
+    }
+}
@@ -0,0 +1,27 @@
+package site.marrymo.restapi.global.smtp.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+//메일 큐에 JSON으로 저장하는 발송 요청
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MailJob {
+    private String id;
+    private String toEmail;
+    private String title;
+    private String text;
+    //실패한 횟수
+    private int attempt;
+    //큐에 넣은 시각 (epoch millis)
+    private long enqueuedAt;
+    //이 시각이 지나면 보내지 않는다 (인증 번호가 만료된 경우 등, epoch millis)
+    private long expiredAt;
+
+    public MailJob nextAttempt() {
+        return new MailJob(id, toEmail, title, text, attempt + 1, enqueuedAt, expiredAt);
+    }
+}
@@ -0,0 +1,14 @@
+package site.marrymo.restapi.global.smtp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//부부 한 쌍에게 보내는 축의금 정산 메일
+@Getter
+@AllArgsConstructor
+public class SettlementMail {
+    private String email;
+    private String fileUrl;
+    private String brideName;
+    private String groomName;
+}
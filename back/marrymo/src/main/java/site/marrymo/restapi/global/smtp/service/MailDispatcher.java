@@ -0,0 +1,69 @@
+package site.marrymo.restapi.global.smtp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import site.marrymo.restapi.global.worker.PollingWorker;
+
+/**
+ * 메일 큐를 비우는 worker 묶음
+ * worker 수(mail.queue.worker-count)만큼만 동시에 SMTP 서버에 연결한다.
+ * 메일을 보내지 않을 서버는 mail.queue.dispatcher.enabled=false로 끈다(요청은 다른 서버가 보낸다).
+ */
+@Component
+@ConditionalOnProperty(name = "mail.queue.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class MailDispatcher extends PollingWorker {
+    private final MailQueueService mailQueueService;
+
+    @Value("${mail.queue.worker-count:4}")
+    private int workerCount;
+
+    @Value("${mail.queue.poll-interval-millis:1000}")
+    private long pollIntervalMillis;
+
+    //종료할 때 보내던 메일을 마저 보내도록 기다리는 시간
+    @Value("${mail.queue.shutdown-timeout-millis:10000}")
+    private long shutdownTimeoutMillis;
+
+    public MailDispatcher(MailQueueService mailQueueService) {
+        super("mail-dispatcher");
+        this.mailQueueService = mailQueueService;
+    }
+
+    //보내던 서버가 죽어 processing에 오래 남은 메일을 먼저 큐로 되돌린다
+    @Override
+    protected void beforeStart() {
+        mailQueueService.recover();
+    }
+
+    @Override
+    protected boolean poll() {
+        return mailQueueService.dispatchNext();
+    }
+
+    @Override
+    protected void awaitWork() throws InterruptedException {
+        mailQueueService.awaitEnqueue();
+    }
+
+    @Override
+    protected void wakeUp(int workers) {
+        mailQueueService.wakeUp(workers);
+    }
+
+    @Override
+    protected int workerCount() {
+        return workerCount;
+    }
+
+    @Override
+    protected long pollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    @Override
+    protected long shutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+}
@@ -0,0 +1,205 @@
+package site.marrymo.restapi.global.smtp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.global.smtp.dto.MailJob;
+import site.marrymo.restapi.global.smtp.exception.SmtpErrorCode;
+import site.marrymo.restapi.global.smtp.exception.SmtpException;
+
+import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Redis에 두는 메일 발송 큐
+ * 1. 요청 스레드는 발송 요청을 MailQueue(LIST)에 넣고 바로 돌아간다.
+ * 2. MailDispatcher의 worker가 하나씩 꺼내 보낸다. 꺼낸 요청은 보내는 동안 꺼낸 시각을 score로 MailQueue:processing(ZSET)에 남겨 둔다.
+ * 3. 실패하면 다음 시도 시각을 score로 MailQueue:retry(ZSET)에 넣고(지수 backoff), 시각이 되면 MailQueue로 되돌린다.
+ * 4. max-attempts번 실패하면 MailQueue:dead(LIST)에 남기고 더 보내지 않는다.
+ * 서버가 보내는 도중에 죽으면 processing-timeout이 지나도록 남은 요청만 MailQueue로 되돌려 다시 보낸다(같은 메일이 두 번 갈 수 있다).
+ * 다른 서버가 지금 보내고 있는 요청은 되돌리지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MailQueueService {
+    private static final String READY_KEY = "MailQueue";
+    private static final String PROCESSING_KEY = "MailQueue:processing";
+    private static final String RETRY_KEY = "MailQueue:retry";
+    private static final String DEAD_KEY = "MailQueue:dead";
+    //한 번에 MailQueue로 되돌리는 재시도 / 복구 요청 수
+    private static final long RETRY_BATCH_SIZE = 100;
+
+    private final SmtpService smtpService;
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    //이 서버에서 넣은 요청을 worker에게 바로 알린다 (다른 서버에서 넣은 요청은 poll-interval마다 확인한다)
+    private final Semaphore enqueued = new Semaphore(0);
+    private final AtomicLong nextRetryCheckAt = new AtomicLong();
+
+    @Value("${mail.queue.max-attempts:5}")
+    private int maxAttempts;
+
+    //첫 재시도까지 기다리는 시간 (재시도마다 두 배)
+    @Value("${mail.queue.retry-backoff-millis:2000}")
+    private long retryBackoffMillis;
+
+    @Value("${mail.queue.max-retry-backoff-millis:300000}")
+    private long maxRetryBackoffMillis;
+
+    //꺼낸 뒤 이 시간이 지나도록 processing에 남은 요청은 보내던 서버가 죽은 것으로 보고 되돌린다 (SMTP 타임아웃보다 길게)
+    @Value("${mail.queue.processing-timeout-millis:300000}")
+    private long processingTimeoutMillis;
+
+    @Value("${mail.queue.poll-interval-millis:1000}")
+    private long pollIntervalMillis;
+
+    //dead letter는 최근 것만 남긴다
+    @Value("${mail.queue.dead-letter-limit:1000}")
+    private long deadLetterLimit;
+
+    public void enqueue(String toEmail, String title, String text, long expireTime) {
+        long now = System.currentTimeMillis();
+        MailJob mailJob = new MailJob(UUID.randomUUID().toString(), toEmail, title, text, 0, now, now + expireTime);
+
+        redisService.pushValue(READY_KEY, write(mailJob));
+        enqueued.release();
+        count("enqueued");
+    }
+
+    //큐에서 하나를 꺼내 보낸다. 큐가 비어 있으면 false
+    public boolean dispatchNext() {
+        promoteRetries();
+
+        String payload = redisService.moveValueToScored(READY_KEY, PROCESSING_KEY, System.currentTimeMillis());
+        if (payload == null)
+            return false;
+
+        //이 요청을 알린 신호는 쓴 것으로 친다
+        enqueued.tryAcquire();
+
+        MailJob mailJob = read(payload);
+        if (mailJob == null) {
+            deadLetter(payload);
+        } else if (System.currentTimeMillis() > mailJob.getExpiredAt()) {
+            log.debug("mail job expired. id: {}, toEmail: {}", mailJob.getId(), mailJob.getToEmail());
+            count("expired");
+        } else {
+            send(mailJob);
+        }
+
+        redisService.removeScoredValue(PROCESSING_KEY, payload);
+        return true;
+    }
+
+    //큐가 비어 있을 때 새 요청이 들어오거나 poll-interval이 지날 때까지 기다린다
+    public void awaitEnqueue() throws InterruptedException {
+        enqueued.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //worker가 멈출 때 기다리는 worker를 깨운다
+    public void wakeUp(int workers) {
+        enqueued.release(workers);
+    }
+
+    //보내는 도중에 서버가 죽어 processing-timeout이 지나도록 남은 요청만 다시 큐에 넣는다
+    //(여러 서버가 동시에 실행해도 요청마다 한 번만 옮겨진다)
+    public long recover() {
+        long claimedBefore = System.currentTimeMillis() - processingTimeoutMillis;
+        long recovered = 0;
+        long moved;
+        do {
+            moved = redisService.moveScoredValues(PROCESSING_KEY, READY_KEY, claimedBefore, RETRY_BATCH_SIZE);
+            recovered += moved;
+        } while (moved == RETRY_BATCH_SIZE);
+
+        if (recovered > 0) {
+            log.warn("recovered {} mail jobs from {}", recovered, PROCESSING_KEY);
+            enqueued.release((int) recovered);
+        }
+        return recovered;
+    }
+
+    private void send(MailJob mailJob) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            smtpService.sendEmail(mailJob.getToEmail(), mailJob.getTitle(), mailJob.getText());
+            sample.stop(meterRegistry.timer("marrymo.mail.send", "result", "success"));
+        } catch (SmtpException e) {
+            sample.stop(meterRegistry.timer("marrymo.mail.send", "result", "failure"));
+            retryOrDeadLetter(mailJob.nextAttempt());
+            return;
+        }
+
+        count("sent");
+        //큐에 넣은 뒤 실제로 보내기까지 걸린 시간
+        meterRegistry.timer("marrymo.mail.queue.latency")
+                .record(System.currentTimeMillis() - mailJob.getEnqueuedAt(), TimeUnit.MILLISECONDS);
+    }
+
+    private void retryOrDeadLetter(MailJob mailJob) {
+        if (mailJob.getAttempt() >= maxAttempts) {
+            log.error("mail job dead-lettered. id: {}, toEmail: {}, attempt: {}",
+                    mailJob.getId(), mailJob.getToEmail(), mailJob.getAttempt());
+            deadLetter(write(mailJob));
+            return;
+        }
+
+        long backoff = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(mailJob.getAttempt() - 1, 30));
+        redisService.addScoredValue(RETRY_KEY, write(mailJob), System.currentTimeMillis() + backoff);
+        count("retried");
+    }
+
+    private void deadLetter(String payload) {
+        redisService.pushValue(DEAD_KEY, payload);
+        redisService.trimValues(DEAD_KEY, deadLetterLimit);
+        count("dead");
+    }
+
+    //다시 보낼 시각이 된 요청과 보내던 서버가 죽어 남은 요청을 MailQueue로 되돌린다
+    //(worker 여러 개가 있어도 poll-interval에 한 번만 확인한다)
+    private void promoteRetries() {
+        long now = System.currentTimeMillis();
+        long checkAt = nextRetryCheckAt.get();
+        if (now < checkAt || !nextRetryCheckAt.compareAndSet(checkAt, now + pollIntervalMillis))
+            return;
+
+        long promoted = redisService.moveScoredValues(RETRY_KEY, READY_KEY, now, RETRY_BATCH_SIZE);
+        if (promoted > 0)
+            enqueued.release((int) promoted);
+
+        recover();
+    }
+
+    private String write(MailJob mailJob) {
+        try {
+            return objectMapper.writeValueAsString(mailJob);
+        } catch (JsonProcessingException e) {
+            throw new SmtpException(SmtpErrorCode.UNABLE_TO_SEND_EMAIL);
+        }
+    }
+
+    private MailJob read(String payload) {
+        try {
+            return objectMapper.readValue(payload, MailJob.class);
+        } catch (JsonProcessingException e) {
+            log.error("invalid mail job. payload: {}", payload);
+            return null;
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("marrymo.mail.queue", "result", result).increment();
+    }
+}
@@ -2,22 +2,43 @@ package site.marrymo.restapi.global.smtp.service;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
-import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import site.marrymo.restapi.global.smtp.MailTemplate;
+import site.marrymo.restapi.global.smtp.dto.SettlementMail;
 import site.marrymo.restapi.global.smtp.exception.SmtpErrorCode;
 import site.marrymo.restapi.global.smtp.exception.SmtpException;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Slf4j
 @Service
-@Transactional
 @RequiredArgsConstructor
 public class SmtpService {
+    private static final String SETTLEMENT_FROM = "smarp4643@gmail.com";
+
+    //정산 메일 본문 (처음 한 번만 compile 한다)
+    private static final MailTemplate SETTLEMENT_TEMPLATE = MailTemplate.compile(
+            "안녕하세요, Marrymo 입니다. <br>"
+                    + "<strong>${bride}</strong>님, <strong>${groom}</strong>님의 결혼을 진심으로 축하드립니다. "
+                    + "두 분의 새로운 시작을 응원하며, 행복한 결혼 생활을 기원합니다. <br>"
+                    + "결혼식에 참석해주신 모든 분들의 따뜻한 마음과 축복의 메시지가 담긴 축의금 정산 내역을 첨부하여 드립니다. <br>"
+                    + " 모든 분들께서 보내주신 사랑과 지원에 감사드리며, 정산 내역을 통해 두 분의 새 출발이 더욱 뜻깊어지길 바랍니다. <br><br>"
+                    + " <a href=\"${fileUrl}\"> 축의금 정산 내역 파일 링크</a> <br><br>"
+                    + "정산 내역에 대해 궁금하신 점이나 논의하고 싶으신 부분이 있으시면 언제든지 연락 주시기 바랍니다.<br>"
+                    + "다시 한번 축하의 말씀을 드리며, 두 분의 앞날에 행복이 가득하기를 기원합니다.<br>"
+                    + "감사합니다.<br><br>"
+                    + "이메일 : officialmarrymo@gmail.com");
 
     private final JavaMailSender javaMailSender;
 
@@ -47,28 +68,59 @@ public class SmtpService {
         return message;
     }
 
-    public void sendEmail(String email, String fileUrl, String bride, String groom) throws MessagingException {
-        String setForm = "smarp4643@gmail.com";
-        String title = bride + "님, " + groom + "님의 축의금 정산 내역입니다.";
-        String content =
-                "안녕하세요, Marrymo 입니다. <br>" +
-                        "<strong>" + bride + "</strong>님, <strong>" + groom
-                        + "</strong>님의 결혼을 진심으로 축하드립니다. 두 분의 새로운 시작을 응원하며, 행복한 결혼 생활을 기원합니다. <br>" +
-                        "결혼식에 참석해주신 모든 분들의 따뜻한 마음과 축복의 메시지가 담긴 축의금 정산 내역을 첨부하여 드립니다. <br>"
-                        + " 모든 분들께서 보내주신 사랑과 지원에 감사드리며, 정산 내역을 통해 두 분의 새 출발이 더욱 뜻깊어지길 바랍니다. <br><br>"
-                        + " <a href = " + fileUrl + "> 축의금 정산 내역 파일 링크</a> <br><br>"
-                        + "정산 내역에 대해 궁금하신 점이나 논의하고 싶으신 부분이 있으시면 언제든지 연락 주시기 바랍니다.<br>"
-                        + "다시 한번 축하의 말씀을 드리며, 두 분의 앞날에 행복이 가득하기를 기원합니다.<br>" +
-                        "감사합니다.<br><br>"
-                        + "이메일 : officialmarrymo@gmail.com";
+    //정산 메일을 SMTP 연결 하나로 모두 보낸다 (연결은 batch마다 한 번만 맺는다)
+    //보내지 못한 메일을 반환한다
+    public List<SettlementMail> sendSettlementEmails(List<SettlementMail> mails) {
+        Map<MimeMessage, SettlementMail> messages = new LinkedHashMap<>();
+        List<SettlementMail> failed = new ArrayList<>();
+
+        for (SettlementMail mail : mails) {
+            try {
+                messages.put(createSettlementEmailForm(mail), mail);
+            } catch (MessagingException e) {
+                log.warn("invalid settlement email. email: {}, message: {}", mail.getEmail(), e.getMessage());
+                failed.add(mail);
+            }
+        }
+
+        if (messages.isEmpty())
+            return failed;
+
+        try {
+            javaMailSender.send(messages.keySet().toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            //메시지별 실패 (연결이 끊기면 남은 메시지도 모두 포함된다)
+            e.getFailedMessages().forEach((message, exception) -> {
+                SettlementMail mail = messages.get(message);
+                if (mail != null) {
+                    log.warn("failed to send settlement email. email: {}, message: {}", mail.getEmail(), exception.getMessage());
+                    failed.add(mail);
+                }
+            });
+            if (e.getFailedMessages().isEmpty())
+                failed.addAll(messages.values());
+        } catch (MailException e) {
+            log.warn("failed to send settlement emails. message: {}", e.getMessage());
+            failed.addAll(messages.values());
+        }
+
+        log.info("settlement emails sent. sent: {}, failed: {}", mails.size() - failed.size(), failed.size());
+        return failed;
+    }
+
+    private MimeMessage createSettlementEmailForm(SettlementMail mail) throws MessagingException {
+        String title = mail.getBrideName() + "님, " + mail.getGroomName() + "님의 축의금 정산 내역입니다.";
+        String content = SETTLEMENT_TEMPLATE.render(Map.of(
+                "bride", mail.getBrideName(),
+                "groom", mail.getGroomName(),
+                "fileUrl", mail.getFileUrl()));
 
         MimeMessage message = javaMailSender.createMimeMessage();
         MimeMessageHelper mimeMessageHelper = new MimeMessageHelper(message, false, "UTF-8");
-        mimeMessageHelper.setTo(email);
+        mimeMessageHelper.setTo(mail.getEmail());
         mimeMessageHelper.setSubject(title);
-        mimeMessageHelper.setFrom(setForm);
+        mimeMessageHelper.setFrom(SETTLEMENT_FROM);
         mimeMessageHelper.setText(content, true);
-        javaMailSender.send(message);
-        log.info("request to send email successfully.");
+        return message;
     }
 }
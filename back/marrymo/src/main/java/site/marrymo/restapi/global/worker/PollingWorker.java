@@ -0,0 +1,117 @@
+package site.marrymo.restapi.global.worker;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큐를 계속 비우는 worker 스레드 묶음 (메일 큐, 송금 outbox)
+ * 서버가 뜰 때 worker를 띄우고, 내려갈 때 처리 중인 일을 shutdown-timeout까지 마저 끝낸다.
+ * worker는 처리할 일이 없으면 awaitWork()로 기다리고, 저장소 장애 등으로 실패하면 poll-interval만큼 쉬었다가 다시 시도한다.
+ */
+@Slf4j
+public abstract class PollingWorker implements SmartLifecycle {
+    private final String name;
+
+    private volatile boolean running;
+    private ExecutorService workers;
+
+    //로그와 스레드 이름에 쓴다
+    protected PollingWorker(String name) {
+        this.name = name;
+    }
+
+    protected abstract int workerCount();
+
+    protected abstract long pollIntervalMillis();
+
+    protected abstract long shutdownTimeoutMillis();
+
+    //일을 하나(또는 한 batch) 처리한다. 처리할 일이 없으면 false
+    protected abstract boolean poll();
+
+    //처리할 일이 생기거나 poll-interval이 지날 때까지 기다린다
+    protected abstract void awaitWork() throws InterruptedException;
+
+    //멈출 때 awaitWork()에서 기다리는 worker를 깨운다
+    protected abstract void wakeUp(int workers);
+
+    //worker를 띄우기 전에 한 번 실행한다
+    protected void beforeStart() {
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running)
+            return;
+
+        try {
+            beforeStart();
+        } catch (DataAccessException e) {
+            log.warn("{} prepare failed. message: {}", name, e.getMessage());
+        }
+
+        running = true;
+        workers = Executors.newFixedThreadPool(workerCount(), new CustomizableThreadFactory(name + "-"));
+        for (int i = 0; i < workerCount(); i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (!running)
+            return;
+
+        running = false;
+        wakeUp(workerCount());
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownTimeoutMillis(), TimeUnit.MILLISECONDS))
+                workers.shutdownNow();
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void work() {
+        while (running) {
+            try {
+                if (!poll())
+                    awaitWork();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                log.warn("{} poll failed. message: {}", name, e.getMessage());
+                if (!sleep())
+                    return;
+            } catch (RuntimeException e) {
+                log.error("{} dispatch failed.", name, e);
+                if (!sleep())
+                    return;
+            }
+        }
+    }
+
+    private boolean sleep() {
+        try {
+            Thread.sleep(pollIntervalMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
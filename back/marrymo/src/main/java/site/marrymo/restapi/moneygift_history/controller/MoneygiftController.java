@@ -1,6 +1,5 @@
 package site.marrymo.restapi.moneygift_history.controller;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -13,11 +12,18 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
+import reactor.core.publisher.Mono;
+
 import site.marrymo.restapi.bank.dto.response.PaymentResponse;
 import site.marrymo.restapi.bank.service.PaymentService;
 import site.marrymo.restapi.global.annotation.LoginUser;
+import site.marrymo.restapi.global.idempotency.service.IdempotencyService;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.Type;
 import site.marrymo.restapi.moneygift_history.dto.request.MoneygiftTransferRequest;
 import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftGetResponse;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftPageResponse;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftTotalResponse;
 import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftTransferResponse;
 import site.marrymo.restapi.moneygift_history.service.MoneygiftService;
 import site.marrymo.restapi.user.dto.UserDTO;
@@ -30,6 +36,10 @@ import site.marrymo.restapi.user.dto.UserDTO;
 public class MoneygiftController {
 	private final MoneygiftService moneygiftService;
 	private final PaymentService paymentService;
+	private final IdempotencyService idempotencyService;
+
+	//송금 요청의 Idempotency-Key 범위
+	private static final String SEND_SCOPE = "moneygift-send";
 
 	@GetMapping
 	@ResponseBody
@@ -40,16 +50,48 @@ public class MoneygiftController {
 		return ResponseEntity.ok(moneygiftGetResponse);
 	}
 
+	@GetMapping("/history")
+	@Operation(summary = "축의금 송금 내역 페이지 조회", description = "cursor(마지막으로 받은 moneygiftSequence) 기준으로 송금 내역을 최신순으로 나눠서 조회하는 API입니다.")
+	public ResponseEntity<MoneygiftPageResponse> getMoneygiftHistory(@LoginUser UserDTO userDTO,
+		@RequestParam(required = false) Long cursor,
+		@RequestParam(required = false) Integer size,
+		@RequestParam(required = false) Type type,
+		@RequestParam(required = false) GuestType guestType) {
+		log.info("call getMoneygiftHistory....");
+		MoneygiftPageResponse moneygiftPageResponse = moneygiftService.getMoneygiftHistory(userDTO, cursor, size, type,
+			guestType);
+		return ResponseEntity.ok(moneygiftPageResponse);
+	}
+
+	@GetMapping("/totals")
+	@Operation(summary = "축의금 합계 조회", description = "축의금, 펀딩, 전체 합계만 조회하는 API입니다.")
+	public ResponseEntity<MoneygiftTotalResponse> getMoneygiftTotals(@LoginUser UserDTO userDTO) {
+		log.info("call getMoneygiftTotals....");
+		MoneygiftTotalResponse moneygiftTotalResponse = moneygiftService.getMoneygiftTotals(userDTO);
+		return ResponseEntity.ok(moneygiftTotalResponse);
+	}
+
 	@PostMapping("/send")
-	@Operation(summary = "하객이 부부에게 송금하기 (테스트 완료)", description = "축의금 or 펀딩을 위한 송금 API입니다.")
-	public ResponseEntity<?> sendMoneygift(@RequestBody MoneygiftTransferRequest moneygiftTransferRequest) throws
-		IOException {
+	@Operation(summary = "하객이 부부에게 송금하기 (테스트 완료)", description = "축의금 or 펀딩을 위한 송금 API입니다. "
+		+ "Idempotency-Key 헤더를 보내면 같은 key로 다시 보낸 요청은 처음 응답을 그대로 돌려줍니다.")
+	public Mono<ResponseEntity<Map<String, String>>> sendMoneygift(
+		@RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+		@RequestBody MoneygiftTransferRequest moneygiftTransferRequest) {
 		log.info("call sendMoneygift...");
-		PaymentResponse paymentResponse = paymentService.paymentApi(moneygiftTransferRequest);
-		log.debug(paymentResponse.toString());
-		Map<String, String> response = new HashMap<>();
-		response.put("payment_url", paymentResponse.getNext_redirect_pc_url());
-		log.debug("kakao url 생성");
-		return ResponseEntity.ok(response);
+		//카카오페이 응답을 기다리는 동안 요청 스레드를 반환한다 (응답은 Spring MVC 비동기 처리로 보낸다)
+		//Idempotency-Key가 있으면 같은 key로 다시 보낸 요청에는 카카오페이를 다시 호출하지 않고 처음 응답을 돌려준다
+		Mono<PaymentResponse> payment = idempotencyKey == null
+			? paymentService.paymentApiAsync(moneygiftTransferRequest)
+			: idempotencyService.execute(SEND_SCOPE, idempotencyKey, moneygiftTransferRequest, PaymentResponse.class,
+				() -> paymentService.paymentApiAsync(moneygiftTransferRequest));
+
+		return payment
+			.map(paymentResponse -> {
+				log.debug(paymentResponse.toString());
+				Map<String, String> response = new HashMap<>();
+				response.put("payment_url", paymentResponse.getNext_redirect_pc_url());
+				log.debug("kakao url 생성");
+				return ResponseEntity.ok(response);
+			});
 	}
 }
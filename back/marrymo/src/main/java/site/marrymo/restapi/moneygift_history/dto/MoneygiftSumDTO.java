@@ -0,0 +1,12 @@
+package site.marrymo.restapi.moneygift_history.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+//종류(축의금/펀딩)별 송금 합계
+@Getter
+@AllArgsConstructor
+public class MoneygiftSumDTO {
+    private Type type;
+    private Long amount;
+}
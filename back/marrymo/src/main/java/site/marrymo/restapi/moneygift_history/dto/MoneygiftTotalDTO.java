@@ -0,0 +1,17 @@
+package site.marrymo.restapi.moneygift_history.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+//부부 / 종류 / 신랑·신부 측 별 송금 합계와 건수
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor
+public class MoneygiftTotalDTO {
+    private Long userSequence;
+    private Type type;
+    private GuestType guestType;
+    private Long amount;
+    private Long giftCount;
+}
@@ -0,0 +1,7 @@
+package site.marrymo.restapi.moneygift_history.dto;
+
+//MoBank 송금 상태 (PENDING: 보내는 중, SETTLED: 송금 완료, FAILED: 송금 실패)
+//다른 enum 컬럼처럼 ordinal로 저장되므로 새 상태는 맨 뒤에 추가한다
+public enum TransferStatus {
+    PENDING, SETTLED, FAILED
+}
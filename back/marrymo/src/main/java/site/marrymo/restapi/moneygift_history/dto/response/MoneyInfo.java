@@ -1,11 +1,14 @@
 package site.marrymo.restapi.moneygift_history.dto.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
 import site.marrymo.restapi.moneygift_history.dto.Type;
 
 @Getter
 @Builder
+@AllArgsConstructor
 public class MoneyInfo {
     private Long moneygiftSequence;
     private Long userSequence;
@@ -16,4 +19,27 @@ public class MoneyInfo {
     private String relationship;
     private String wishItemName;
     private String guestType;
+
+    //JPQL constructor expression 전용 생성자 (GuestType을 화면에 보여줄 문자열로 바꿔서 담는다)
+    public MoneyInfo(Long moneygiftSequence,
+                     Long userSequence,
+                     Long wishItemSequence,
+                     Type type,
+                     String sender,
+                     Integer amount,
+                     String relationship,
+                     String wishItemName,
+                     GuestType guestType) {
+        this(moneygiftSequence, userSequence, wishItemSequence, type, sender, amount, relationship, wishItemName,
+                toGuestTypeStr(guestType));
+    }
+
+    public static String toGuestTypeStr(GuestType guestType) {
+        if (guestType == GuestType.GROOM)
+            return "신랑";
+        else if (guestType == GuestType.BRIDE)
+            return "신부";
+
+        return "";
+    }
 }
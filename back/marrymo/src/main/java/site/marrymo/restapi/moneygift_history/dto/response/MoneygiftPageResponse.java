@@ -0,0 +1,15 @@
+package site.marrymo.restapi.moneygift_history.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class MoneygiftPageResponse {
+    private List<MoneyInfo> moneyList;
+    //다음 페이지 요청 시 cursor로 넘길 값 (마지막 페이지면 null)
+    private Long nextCursor;
+    private Boolean hasNext;
+}
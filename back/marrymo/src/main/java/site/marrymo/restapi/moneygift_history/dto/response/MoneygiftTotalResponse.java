@@ -0,0 +1,12 @@
+package site.marrymo.restapi.moneygift_history.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class MoneygiftTotalResponse {
+    private Long moneygiftListSum;
+    private Long wishItemListSum;
+    private Long totalSum;
+}
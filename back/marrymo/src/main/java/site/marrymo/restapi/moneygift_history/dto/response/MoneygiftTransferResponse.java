@@ -3,6 +3,7 @@ package site.marrymo.restapi.moneygift_history.dto.response;
 import lombok.Builder;
 import lombok.Data;
 import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
 import site.marrymo.restapi.moneygift_history.dto.Type;
 
 import java.time.LocalDateTime;
@@ -16,5 +17,6 @@ public class MoneygiftTransferResponse {
     int amount;                    // 금액
     String relationship;            // 관계
     String sender;                  // 보낸 사람 이름
+    TransferStatus transferStatus;  // 송금 상태 (PENDING이면 MoBank로 보내는 중)
 
 }
@@ -7,6 +7,7 @@ import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 import site.marrymo.restapi.global.entity.BaseTimeEntity;
 import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
 import site.marrymo.restapi.moneygift_history.dto.Type;
 import site.marrymo.restapi.user.entity.User;
 import site.marrymo.restapi.wishitem.entity.WishItem;
@@ -52,6 +53,10 @@ public class Moneygift extends BaseTimeEntity {
     @Column(name = "sender", nullable = false)
     private String sender;
 
+    //outbox 도입 전에 저장된 내역은 null (송금 결과를 기록하지 않았다)
+    @Column(name = "transfer_status")
+    private TransferStatus transferStatus;
+
     @Builder
     public Moneygift(
                      Type type,
@@ -82,5 +87,14 @@ public class Moneygift extends BaseTimeEntity {
         this.amount = amount;
         this.relationship = relationship;
         this.sender = sender;
+        this.transferStatus = TransferStatus.PENDING;
+    }
+
+    public void settle() {
+        this.transferStatus = TransferStatus.SETTLED;
+    }
+
+    public void fail() {
+        this.transferStatus = TransferStatus.FAILED;
     }
 }
@@ -0,0 +1,50 @@
+package site.marrymo.restapi.moneygift_history.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.antlr.v4.runtime.misc.NotNull;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.user.entity.User;
+
+/**
+ * 부부별 송금 합계 (종류 x 신랑/신부 측 하나씩)
+ * 송금이 저장될 때 같은 트랜잭션에서 upsert로 더해지고,
+ * 매일 moneygift_history 기준으로 다시 맞춰진다 (MoneygiftTotalService.reconcile)
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "moneygift_total",
+        uniqueConstraints = @UniqueConstraint(
+                name = "uk_moneygift_total_user_type_guest_type",
+                columnNames = {"user_sequence", "type", "guest_type"}))
+public class MoneygiftTotal {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "moneygift_total_sequence")
+    private Long moneygiftTotalSequence;
+
+    @NotNull
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_sequence", referencedColumnName = "user_sequence", nullable = false)
+    private User user;
+
+    @NotNull
+    @Column(name = "type", nullable = false)
+    private Type type;
+
+    @NotNull
+    @Column(name = "guest_type", nullable = false)
+    private GuestType guestType;
+
+    @NotNull
+    @Column(name = "amount", nullable = false)
+    private Long amount;
+
+    @NotNull
+    @Column(name = "gift_count", nullable = false)
+    private Long giftCount;
+}
@@ -0,0 +1,133 @@
+package site.marrymo.restapi.moneygift_history.entity;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.antlr.v4.runtime.misc.NotNull;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
+import site.marrymo.restapi.moneygift_history.dto.request.MoBankTransferRequest;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * MoBank 송금 outbox
+ * 송금 내역(moneygift_history)과 같은 트랜잭션에서 저장되고, MoneygiftTransferDispatcher가 MoBank로 보낸다.
+ * next_attempt_at이 지난 PENDING row만 보내며, 보내는 동안에는 next_attempt_at을 lease 시각으로 미뤄 둔다
+ * (서버가 보내는 도중에 죽으면 lease가 끝난 뒤 다시 보낸다. 같은 idempotency_key로 보내므로 MoBank에서 한 번만 처리된다).
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(name = "moneygift_transfer",
+        indexes = @Index(name = "idx_moneygift_transfer_status_next_attempt_at", columnList = "status, next_attempt_at"))
+public class MoneygiftTransfer {
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "moneygift_transfer_sequence")
+    private Long moneygiftTransferSequence;
+
+    @NotNull
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "moneygift_sequence", referencedColumnName = "moneygift_sequence", nullable = false, unique = true)
+    private Moneygift moneygift;
+
+    //MoBank가 같은 송금을 두 번 처리하지 않도록 재시도할 때도 같은 값을 보낸다
+    @NotNull
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 36)
+    private String idempotencyKey;
+
+    @NotNull
+    @Column(name = "tran_amt", nullable = false)
+    private Integer tranAmt;
+
+    @Column(name = "sender_name")
+    private String senderName;
+
+    @Column(name = "sender_account_num")
+    private String senderAccountNum;
+
+    @Column(name = "receiver_name")
+    private String receiverName;
+
+    @Column(name = "receiver_account_num")
+    private String receiverAccountNum;
+
+    @Column(name = "tran_msg")
+    private String tranMsg;
+
+    @NotNull
+    @Column(name = "status", nullable = false)
+    private TransferStatus status;
+
+    //보낸 횟수
+    @NotNull
+    @Column(name = "attempt", nullable = false)
+    private Integer attempt;
+
+    @NotNull
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = MAX_ERROR_LENGTH)
+    private String lastError;
+
+    @NotNull
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public MoneygiftTransfer(Moneygift moneygift, MoBankTransferRequest moBankTransferRequest, LocalDateTime now) {
+        this.moneygift = moneygift;
+        this.idempotencyKey = UUID.randomUUID().toString();
+        this.tranAmt = moBankTransferRequest.getTranAmt();
+        this.senderName = moBankTransferRequest.getSenderName();
+        this.senderAccountNum = moBankTransferRequest.getSenderAccountNum();
+        this.receiverName = moBankTransferRequest.getReceiverName();
+        this.receiverAccountNum = moBankTransferRequest.getReceiverAccountNum();
+        this.tranMsg = moBankTransferRequest.getTranMsg();
+        this.status = TransferStatus.PENDING;
+        this.attempt = 0;
+        this.nextAttemptAt = now;
+        this.createdAt = now;
+    }
+
+    public MoBankTransferRequest toMoBankTransferRequest() {
+        return MoBankTransferRequest.builder()
+                .tranAmt(tranAmt)
+                .senderName(senderName)
+                .senderAccountNum(senderAccountNum)
+                .receiverName(receiverName)
+                .receiverAccountNum(receiverAccountNum)
+                .tranMsg(tranMsg)
+                .build();
+    }
+
+    public void settle(LocalDateTime now) {
+        this.status = TransferStatus.SETTLED;
+        this.completedAt = now;
+        this.lastError = null;
+        this.moneygift.settle();
+    }
+
+    public void fail(LocalDateTime now, String error) {
+        this.status = TransferStatus.FAILED;
+        this.completedAt = now;
+        this.lastError = truncate(error);
+        this.moneygift.fail();
+    }
+
+    public void retryAt(LocalDateTime nextAttemptAt, String error) {
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = truncate(error);
+    }
+
+    private String truncate(String error) {
+        return error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+    }
+}
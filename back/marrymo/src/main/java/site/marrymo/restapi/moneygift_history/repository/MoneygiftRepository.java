@@ -1,6 +1,14 @@
 package site.marrymo.restapi.moneygift_history.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftSumDTO;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo;
 import site.marrymo.restapi.moneygift_history.entity.Moneygift;
 import site.marrymo.restapi.user.entity.User;
 import site.marrymo.restapi.wishitem.entity.WishItem;
@@ -8,6 +16,53 @@ import site.marrymo.restapi.wishitem.entity.WishItem;
 import java.util.List;
 
 public interface MoneygiftRepository extends JpaRepository<Moneygift, Long> {
+    //송금에 실패한 내역은 받은 것으로 치지 않는다 (transfer_status가 null이면 outbox 도입 전 내역)
+    String RECEIVED = "(m.transferStatus IS NULL "
+            + "OR m.transferStatus <> site.marrymo.restapi.moneygift_history.dto.TransferStatus.FAILED) ";
+
     List<Moneygift> findByUser(User user);
     List<Moneygift> findByUserAndWishItem(User user, WishItem wishItem);
+
+    //종류(축의금/펀딩)별 합계
+    @Query("SELECT new site.marrymo.restapi.moneygift_history.dto.MoneygiftSumDTO(m.type, SUM(m.amount)) "
+            + "FROM Moneygift m "
+            + "WHERE m.user.userSequence = :userSequence AND " + RECEIVED
+            + "GROUP BY m.type")
+    List<MoneygiftSumDTO> sumAmountGroupByType(@Param("userSequence") Long userSequence);
+
+    //송금 내역을 엔티티 로딩 없이 DTO로 조회 (펀딩 상품명도 같은 쿼리에서 조인)
+    @Query("SELECT new site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo("
+            + "m.moneygiftSequence, m.user.userSequence, w.wishItemSequence, m.type, m.sender, "
+            + "m.amount, m.relationship, w.name, m.guestType) "
+            + "FROM Moneygift m "
+            + "LEFT JOIN m.wishItem w "
+            + "WHERE m.user.userSequence = :userSequence AND " + RECEIVED
+            + "ORDER BY m.moneygiftSequence")
+    List<MoneyInfo> findMoneyInfoByUserSequence(@Param("userSequence") Long userSequence);
+
+    //송금 내역 keyset 페이지네이션 (moneygift_sequence 내림차순)
+    //cursor가 null이면 첫 페이지, type/guestType이 null이면 필터하지 않는다
+    @Query("SELECT new site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo("
+            + "m.moneygiftSequence, m.user.userSequence, w.wishItemSequence, m.type, m.sender, "
+            + "m.amount, m.relationship, w.name, m.guestType) "
+            + "FROM Moneygift m "
+            + "LEFT JOIN m.wishItem w "
+            + "WHERE m.user.userSequence = :userSequence AND " + RECEIVED
+            + "AND (:cursor IS NULL OR m.moneygiftSequence < :cursor) "
+            + "AND (:type IS NULL OR m.type = :type) "
+            + "AND (:guestType IS NULL OR m.guestType = :guestType) "
+            + "ORDER BY m.moneygiftSequence DESC")
+    List<MoneyInfo> findMoneyInfoPage(@Param("userSequence") Long userSequence,
+                                      @Param("cursor") Long cursor,
+                                      @Param("type") Type type,
+                                      @Param("guestType") GuestType guestType,
+                                      Pageable pageable);
+
+    //moneygift_total 검증용: 전체 부부의 종류 / 신랑·신부 측 별 합계
+    @Query("SELECT new site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO("
+            + "m.user.userSequence, m.type, m.guestType, SUM(m.amount), COUNT(m)) "
+            + "FROM Moneygift m "
+            + "WHERE " + RECEIVED
+            + "GROUP BY m.user.userSequence, m.type, m.guestType")
+    List<MoneygiftTotalDTO> sumAllGroupByUserAndTypeAndGuestType();
 }
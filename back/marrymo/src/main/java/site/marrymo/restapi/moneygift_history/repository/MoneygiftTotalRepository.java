@@ -0,0 +1,65 @@
+package site.marrymo.restapi.moneygift_history.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftSumDTO;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.entity.MoneygiftTotal;
+
+import java.util.List;
+
+public interface MoneygiftTotalRepository extends JpaRepository<MoneygiftTotal, Long> {
+
+    //합계 row가 없으면 만들고, 있으면 그 자리에서 더한다 (row lock 하나로 끝나는 원자적 갱신)
+    //enum은 ordinal로 저장되므로 ordinal 값을 넘긴다
+    @Modifying
+    @Query(value = "INSERT INTO moneygift_total (user_sequence, type, guest_type, amount, gift_count) "
+            + "VALUES (:userSequence, :type, :guestType, :amount, :giftCount) "
+            + "ON DUPLICATE KEY UPDATE amount = amount + :amount, gift_count = gift_count + :giftCount",
+            nativeQuery = true)
+    int upsert(@Param("userSequence") Long userSequence,
+               @Param("type") int type,
+               @Param("guestType") int guestType,
+               @Param("amount") long amount,
+               @Param("giftCount") long giftCount);
+
+    default void add(Long userSequence, Type type, GuestType guestType, long amount, long giftCount) {
+        upsert(userSequence, type.ordinal(), guestType.ordinal(), amount, giftCount);
+    }
+
+    //종류(축의금/펀딩)별 합계 (부부당 최대 4 row)
+    @Query("SELECT new site.marrymo.restapi.moneygift_history.dto.MoneygiftSumDTO(t.type, SUM(t.amount)) "
+            + "FROM MoneygiftTotal t "
+            + "WHERE t.user.userSequence = :userSequence "
+            + "GROUP BY t.type")
+    List<MoneygiftSumDTO> sumAmountGroupByType(@Param("userSequence") Long userSequence);
+
+    @Query("SELECT new site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO("
+            + "t.user.userSequence, t.type, t.guestType, t.amount, t.giftCount) "
+            + "FROM MoneygiftTotal t")
+    List<MoneygiftTotalDTO> findAllTotals();
+
+    @Modifying
+    @Query(value = "DELETE FROM moneygift_total WHERE user_sequence = :userSequence", nativeQuery = true)
+    int deleteByUserSequence(@Param("userSequence") Long userSequence);
+
+    //moneygift_history에서 해당 부부의 합계를 다시 계산해서 채운다 (송금에 실패한 내역은 빼고)
+    @Modifying
+    @Query(value = "INSERT INTO moneygift_total (user_sequence, type, guest_type, amount, gift_count) "
+            + "SELECT user_sequence, type, guest_type, SUM(amount), COUNT(*) "
+            + "FROM moneygift_history "
+            + "WHERE user_sequence = :userSequence AND deleted_at IS NULL "
+            + "AND (transfer_status IS NULL OR transfer_status <> :failed) "
+            + "GROUP BY user_sequence, type, guest_type",
+            nativeQuery = true)
+    int insertFromHistory(@Param("userSequence") Long userSequence, @Param("failed") int failed);
+
+    default int insertFromHistory(Long userSequence) {
+        return insertFromHistory(userSequence, TransferStatus.FAILED.ordinal());
+    }
+}
@@ -0,0 +1,40 @@
+package site.marrymo.restapi.moneygift_history.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import site.marrymo.restapi.moneygift_history.entity.MoneygiftTransfer;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface MoneygiftTransferRepository extends JpaRepository<MoneygiftTransfer, Long> {
+
+    //보낼 시각이 된 송금 (오래된 순)
+    @Query("SELECT t.moneygiftTransferSequence FROM MoneygiftTransfer t "
+            + "WHERE t.status = site.marrymo.restapi.moneygift_history.dto.TransferStatus.PENDING "
+            + "AND t.nextAttemptAt <= :now "
+            + "ORDER BY t.moneygiftTransferSequence")
+    List<Long> findDueSequences(@Param("now") LocalDateTime now, Pageable pageable);
+
+    //보낼 시각이 된 송금을 lease 시각까지 이 서버가 가져간다. 다른 서버가 먼저 가져갔으면 0
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MoneygiftTransfer t "
+            + "SET t.nextAttemptAt = :leaseUntil, t.attempt = t.attempt + 1 "
+            + "WHERE t.moneygiftTransferSequence = :sequence "
+            + "AND t.status = site.marrymo.restapi.moneygift_history.dto.TransferStatus.PENDING "
+            + "AND t.nextAttemptAt <= :now")
+    int claim(@Param("sequence") Long sequence,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    //송금 내역과 받는 사람을 함께 조회한다 (결과를 기록할 때 합계도 고친다)
+    @Query("SELECT t FROM MoneygiftTransfer t "
+            + "JOIN FETCH t.moneygift m "
+            + "JOIN FETCH m.user "
+            + "WHERE t.moneygiftTransferSequence = :sequence")
+    Optional<MoneygiftTransfer> findWithMoneygift(@Param("sequence") Long sequence);
+}
@@ -4,24 +4,25 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
 import site.marrymo.restapi.card.entity.Card;
 import site.marrymo.restapi.card.exception.CardErrorCode;
 import site.marrymo.restapi.card.exception.CardException;
 import site.marrymo.restapi.card.repository.CardRepository;
 import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftSumDTO;
 import site.marrymo.restapi.moneygift_history.dto.Type;
 import site.marrymo.restapi.moneygift_history.dto.request.MoBankTransferRequest;
 import site.marrymo.restapi.moneygift_history.dto.request.MoneygiftTransferRequest;
-import site.marrymo.restapi.moneygift_history.dto.response.MoBankTransferResponse;
 import site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo;
 import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftGetResponse;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftPageResponse;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftTotalResponse;
 import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftTransferResponse;
 import site.marrymo.restapi.moneygift_history.entity.Moneygift;
 import site.marrymo.restapi.moneygift_history.repository.MoneygiftRepository;
-import site.marrymo.restapi.bank.service.MoBankService;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftTotalRepository;
 import site.marrymo.restapi.user.dto.UserDTO;
 import site.marrymo.restapi.user.dto.response.UserInfoResponse;
 import site.marrymo.restapi.user.entity.User;
@@ -45,16 +46,64 @@ public class MoneygiftService {
     @Value("${mo-bank.client_account}")
     String clientAccount;
 
-    private final MoBankService moBankService;
+    private final MoneygiftTransferService moneygiftTransferService;
     private final UserRepository userRepository;
     private final MoneygiftRepository moneygiftRepository;
+    private final MoneygiftTotalRepository moneygiftTotalRepository;
     private final WishItemRepository wishItemRepository;
     private final CardRepository cardRepository;
-    private final WebClient moBankWebClient = WebClient.builder().baseUrl("http://3.37.251.197/api/").build();
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
 
     public MoneygiftGetResponse getMoneygiftInfo(UserDTO userDTO) {
         Long userSequence = userDTO.getUserSequence();
+        validateUser(userSequence);
 
+        MoneygiftTotalResponse totals = getTotals(userSequence);
+
+        //내역은 엔티티 대신 DTO projection으로 바로 조회
+        List<MoneyInfo> moneyInfoList = moneygiftRepository.findMoneyInfoByUserSequence(userSequence);
+
+        return MoneygiftGetResponse.builder()
+                .moneygiftListSum(totals.getMoneygiftListSum())
+                .wishItemListSum(totals.getWishItemListSum())
+                .totalSum(totals.getTotalSum())
+                .moneyList(moneyInfoList)
+                .build();
+    }
+
+    public MoneygiftPageResponse getMoneygiftHistory(UserDTO userDTO, Long cursor, Integer size, Type type,
+                                                     GuestType guestType) {
+        Long userSequence = userDTO.getUserSequence();
+        validateUser(userSequence);
+
+        int pageSize = (size == null) ? DEFAULT_PAGE_SIZE : Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+
+        //다음 페이지가 있는지 알기 위해 한 건 더 조회한다
+        List<MoneyInfo> moneyInfoList = moneygiftRepository.findMoneyInfoPage(
+                userSequence, cursor, type, guestType, PageRequest.of(0, pageSize + 1));
+
+        boolean hasNext = moneyInfoList.size() > pageSize;
+        if (hasNext)
+            moneyInfoList = moneyInfoList.subList(0, pageSize);
+
+        Long nextCursor = hasNext ? moneyInfoList.get(moneyInfoList.size() - 1).getMoneygiftSequence() : null;
+
+        return MoneygiftPageResponse.builder()
+                .moneyList(moneyInfoList)
+                .nextCursor(nextCursor)
+                .hasNext(hasNext)
+                .build();
+    }
+
+    public MoneygiftTotalResponse getMoneygiftTotals(UserDTO userDTO) {
+        Long userSequence = userDTO.getUserSequence();
+        validateUser(userSequence);
+
+        return getTotals(userSequence);
+    }
+
+    private void validateUser(Long userSequence) {
         User user = userRepository.findByUserSequence(userSequence)
                 .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
 
@@ -62,67 +111,26 @@ public class MoneygiftService {
         if (user.getDeletedAt() != null) {
             throw new UserException(UserErrorCode.USER_ALREADY_DELETE);
         }
+    }
 
-        List<Moneygift> moneygiftList = moneygiftRepository.findByUser(user);
-
+    private MoneygiftTotalResponse getTotals(Long userSequence) {
+        //합계는 송금할 때마다 갱신되는 moneygift_total에서 읽는다
         long moneygiftListSum = 0L;
         long wishItemListSum = 0L;
-        long totalSum = 0L;
-        List<MoneyInfo> moneyInfoList = new ArrayList<>();
-
-        for (Moneygift moneygift : moneygiftList) {
-            int amount = moneygift.getAmount();
-            GuestType guestType = moneygift.getGuestType();
-            String guestTypeToStr = "";
-
-            if (guestType == GuestType.GROOM)
-                guestTypeToStr = "신랑";
-            else if (guestType == GuestType.BRIDE)
-                guestTypeToStr = "신부";
 
+        for (MoneygiftSumDTO moneygiftSum : moneygiftTotalRepository.sumAmountGroupByType(userSequence)) {
             //축의금이면
-            if (moneygift.getType() == Type.CASH) {
-                moneygiftListSum += amount;
-
-                moneyInfoList.add(
-                        MoneyInfo.builder()
-                                .moneygiftSequence(moneygift.getMoneygiftSequence())
-                                .userSequence(userSequence)
-                                .type(moneygift.getType())
-                                .sender(moneygift.getSender())
-                                .amount(amount)
-                                .relationship(moneygift.getRelationship())
-                                .guestType(guestTypeToStr)
-                                .build()
-                );
-            }
+            if (moneygiftSum.getType() == Type.CASH)
+                moneygiftListSum = moneygiftSum.getAmount();
             //펀딩이면
-            else if (moneygift.getType() == Type.ITEM) {
-                wishItemListSum += amount;
-
-                moneyInfoList.add(
-                        MoneyInfo.builder()
-                                .moneygiftSequence(moneygift.getMoneygiftSequence())
-                                .userSequence(userSequence)
-                                .wishItemSequence(moneygift.getWishItem().getWishItemSequence())
-                                .type(moneygift.getType())
-                                .sender(moneygift.getSender())
-                                .amount(amount)
-                                .relationship(moneygift.getRelationship())
-                                .wishItemName(moneygift.getWishItem().getName())
-                                .guestType(guestTypeToStr)
-                                .build()
-                );
-            }
-
-            totalSum += amount;
+            else if (moneygiftSum.getType() == Type.ITEM)
+                wishItemListSum = moneygiftSum.getAmount();
         }
 
-        return MoneygiftGetResponse.builder()
+        return MoneygiftTotalResponse.builder()
                 .moneygiftListSum(moneygiftListSum)
                 .wishItemListSum(wishItemListSum)
-                .totalSum(totalSum)
-                .moneyList(moneyInfoList)
+                .totalSum(moneygiftListSum + wishItemListSum)
                 .build();
     }
 
@@ -176,15 +184,9 @@ public class MoneygiftService {
                     .receiverAccountNum(userInfoResponse.getBrideAccount())
                     .build();
         }
-        try{
-            MoBankTransferResponse moBankTransferResponse=moBankService.sendMoney(moBankTransferRequest);
-
-        }catch (WebClientResponseException e){
-            e.printStackTrace();
-        }
         // 메리모 moneygift history 데이터베이스에 저장할 entity를 만든다.
-        User receiver = userRepository.findByUserCode(userInfoResponse.getUserCode())
-                .orElseThrow(()->new UserException(UserErrorCode.USER_NOT_FOUND));
+        // 받는 사람은 위에서 조회한 user와 같으므로 다시 조회하지 않는다
+        User receiver = user;
 
         WishItem wishItem=null;
         if (moneygiftTransferRequest.getType()==Type.ITEM){
@@ -202,12 +204,20 @@ public class MoneygiftService {
                 moneygiftTransferRequest.getSender());
 
         Moneygift savedMoneygift = moneygiftRepository.save(moneygift);
+
+        //MoBank 송금은 outbox에 남기고 MoneygiftTransferDispatcher가 보낸다 (같은 트랜잭션)
+        moneygiftTransferService.enqueue(savedMoneygift, moBankTransferRequest);
+
+        //부부별 합계 갱신 (같은 트랜잭션)
+        moneygiftTotalRepository.add(receiver.getUserSequence(), savedMoneygift.getType(),
+                savedMoneygift.getGuestType(), savedMoneygift.getAmount(), 1L);
         MoneygiftTransferResponse moneygiftTransferResponse = MoneygiftTransferResponse.builder()
                 .amount(savedMoneygift.getAmount())
                 .relationship(savedMoneygift.getRelationship())
                 .guestType(savedMoneygift.getGuestType())
                 .type(savedMoneygift.getType())
                 .guestType(savedMoneygift.getGuestType())
+                .transferStatus(savedMoneygift.getTransferStatus())
                 .build();
 
         return moneygiftTransferResponse;
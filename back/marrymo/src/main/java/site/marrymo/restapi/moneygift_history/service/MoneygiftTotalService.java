@@ -0,0 +1,119 @@
+package site.marrymo.restapi.moneygift_history.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftRepository;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftTotalRepository;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * moneygift_total 검증 / 복구
+ * moneygift_history를 기준으로 부부별 합계를 다시 계산해서 moneygift_total과 비교하고,
+ * 어긋난 부부만 다시 채운다.
+ * 부부 한 명씩 별도 트랜잭션으로 처리해서 한 번에 오래 락을 잡지 않도록 클래스에 @Transactional을 두지 않는다.
+ */
+@Slf4j
+@Service
+public class MoneygiftTotalService {
+
+    private final MoneygiftRepository moneygiftRepository;
+    private final MoneygiftTotalRepository moneygiftTotalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter driftCounter;
+
+    public MoneygiftTotalService(MoneygiftRepository moneygiftRepository,
+                                 MoneygiftTotalRepository moneygiftTotalRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry) {
+        this.moneygiftRepository = moneygiftRepository;
+        this.moneygiftTotalRepository = moneygiftTotalRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.driftCounter = Counter.builder("marrymo.moneygift.total.drift")
+                .description("moneygift_total과 moneygift_history 합계가 어긋난 부부 수")
+                .register(meterRegistry);
+    }
+
+    //합계 테이블이 비어 있으면 (처음 배포 시) 기존 내역으로 채운다
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        if (moneygiftTotalRepository.count() == 0 && moneygiftRepository.count() > 0) {
+            log.info("moneygift_total is empty. backfill from moneygift_history...");
+            reconcile();
+        }
+    }
+
+    //어긋난 부부 수를 반환한다
+    public int reconcile() {
+        long start = System.currentTimeMillis();
+
+        Map<Long, Set<MoneygiftTotalDTO>> expected = groupByUser(moneygiftRepository.sumAllGroupByUserAndTypeAndGuestType());
+        Map<Long, Set<MoneygiftTotalDTO>> actual = groupByUser(moneygiftTotalRepository.findAllTotals());
+
+        Set<Long> userSequences = new HashSet<>(expected.keySet());
+        userSequences.addAll(actual.keySet());
+
+        int drift = 0;
+        for (Long userSequence : userSequences) {
+            Set<MoneygiftTotalDTO> expectedTotals = expected.getOrDefault(userSequence, Set.of());
+            Set<MoneygiftTotalDTO> actualTotals = actual.getOrDefault(userSequence, Set.of());
+
+            if (expectedTotals.equals(actualTotals))
+                continue;
+
+            drift++;
+            log.warn("moneygift_total drift. userSequence: {}, expected: {}, actual: {}",
+                    userSequence, toLog(expectedTotals), toLog(actualTotals));
+
+            try {
+                rebuild(userSequence);
+            } catch (RuntimeException e) {
+                //한 부부의 실패가 나머지 검증을 막지 않도록 한다
+                log.error("moneygift_total rebuild failed. userSequence: {}, message: {}", userSequence, e.getMessage());
+            }
+        }
+
+        driftCounter.increment(drift);
+        log.info("moneygift_total reconcile finished. users: {}, drift: {}, elapsed: {}ms",
+                userSequences.size(), drift, System.currentTimeMillis() - start);
+
+        return drift;
+    }
+
+    //비교하는 동안 새로 들어온 송금까지 반영되도록, 다시 채울 때는 moneygift_history에서 바로 계산한다
+    public void rebuild(Long userSequence) {
+        transactionTemplate.executeWithoutResult(status -> {
+            moneygiftTotalRepository.deleteByUserSequence(userSequence);
+            moneygiftTotalRepository.insertFromHistory(userSequence);
+        });
+    }
+
+    private Map<Long, Set<MoneygiftTotalDTO>> groupByUser(List<MoneygiftTotalDTO> totals) {
+        Map<Long, Set<MoneygiftTotalDTO>> result = new HashMap<>();
+        for (MoneygiftTotalDTO total : totals)
+            result.computeIfAbsent(total.getUserSequence(), key -> new HashSet<>()).add(total);
+
+        return result;
+    }
+
+    private String toLog(Set<MoneygiftTotalDTO> totals) {
+        StringBuilder sb = new StringBuilder("[");
+        for (MoneygiftTotalDTO total : totals) {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(total.getType()).append('/').append(total.getGuestType())
+                    .append('=').append(total.getAmount()).append('(').append(total.getGiftCount()).append(')');
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,61 @@
+package site.marrymo.restapi.moneygift_history.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import site.marrymo.restapi.global.worker.PollingWorker;
+
+/**
+ * MoBank 송금 outbox를 비우는 스레드
+ * 스레드 하나가 batch 단위로 non-blocking으로 보내므로, 동시에 보내는 송금 수는 moneygift.transfer.concurrency로 정한다.
+ * 송금을 보내지 않을 서버는 moneygift.transfer.dispatcher.enabled=false로 끈다(송금은 다른 서버가 보낸다).
+ */
+@Component
+@ConditionalOnProperty(name = "moneygift.transfer.dispatcher.enabled", havingValue = "true", matchIfMissing = true)
+public class MoneygiftTransferDispatcher extends PollingWorker {
+    private final MoneygiftTransferService moneygiftTransferService;
+
+    @Value("${moneygift.transfer.poll-interval-millis:1000}")
+    private long pollIntervalMillis;
+
+    //보낸 batch의 결과를 마저 기록하도록 기다리는 시간 (기록하지 못한 송금은 lease가 끝난 뒤 다시 보낸다)
+    @Value("${moneygift.transfer.shutdown-timeout-millis:30000}")
+    private long shutdownTimeoutMillis;
+
+    public MoneygiftTransferDispatcher(MoneygiftTransferService moneygiftTransferService) {
+        super("moneygift-transfer");
+        this.moneygiftTransferService = moneygiftTransferService;
+    }
+
+    @Override
+    protected boolean poll() {
+        return moneygiftTransferService.dispatchDue() > 0;
+    }
+
+    @Override
+    protected void awaitWork() throws InterruptedException {
+        moneygiftTransferService.awaitEnqueue();
+    }
+
+    @Override
+    protected void wakeUp(int workers) {
+        moneygiftTransferService.wakeUp();
+    }
+
+    //batch 안에서 동시에 보내므로 스레드는 하나만 둔다
+    @Override
+    protected int workerCount() {
+        return 1;
+    }
+
+    @Override
+    protected long pollIntervalMillis() {
+        return pollIntervalMillis;
+    }
+
+    @Override
+    protected long shutdownTimeoutMillis() {
+        return shutdownTimeoutMillis;
+    }
+}
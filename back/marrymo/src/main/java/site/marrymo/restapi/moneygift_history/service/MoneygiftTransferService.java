@@ -0,0 +1,218 @@
+package site.marrymo.restapi.moneygift_history.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import site.marrymo.restapi.bank.service.MoBankService;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
+import site.marrymo.restapi.moneygift_history.dto.request.MoBankTransferRequest;
+import site.marrymo.restapi.moneygift_history.entity.Moneygift;
+import site.marrymo.restapi.moneygift_history.entity.MoneygiftTransfer;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftTotalRepository;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftTransferRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MoBank 송금 outbox
+ * 1. 송금 요청은 송금 내역과 같은 트랜잭션에서 moneygift_transfer에 저장만 하고 바로 돌아간다.
+ * 2. MoneygiftTransferDispatcher가 보낼 시각이 된 송금을 batch-size개씩 가져가(claim) concurrency개씩 동시에 MoBank로 보낸다.
+ * 3. 성공하면 SETTLED, MoBank가 거절하면(4xx) 바로 FAILED, 그 밖의 오류는 지수 backoff 뒤에 다시 보낸다.
+ *    max-attempts번 보내도 실패하면 FAILED로 남기고, 송금 내역도 FAILED로 바꿔 합계에서 뺀다.
+ * 트랜잭션 하나가 MoBank 응답을 기다리지 않도록 claim과 결과 기록은 송금마다 짧은 트랜잭션으로 나눈다 (클래스에 @Transactional을 두지 않는다).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MoneygiftTransferService {
+    private final MoBankService moBankService;
+    private final MoneygiftTransferRepository moneygiftTransferRepository;
+    private final MoneygiftTotalRepository moneygiftTotalRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    //커밋된 송금 수만큼 올라간다. 다른 서버에서 저장한 송금은 알림이 없으므로 outbox를 poll-interval마다 조회한다
+    private final Semaphore enqueued = new Semaphore(0);
+
+    //한 번에 가져가는 송금 수
+    @Value("${moneygift.transfer.batch-size:50}")
+    private int batchSize;
+
+    //동시에 MoBank로 보내는 송금 수
+    @Value("${moneygift.transfer.concurrency:8}")
+    private int concurrency;
+
+    @Value("${moneygift.transfer.max-attempts:5}")
+    private int maxAttempts;
+
+    //MoBank 장애(5xx, 타임아웃) 뒤 첫 재시도까지 기다리는 시간. 같은 idempotency key로 다시 보내므로 두 번 송금되지 않는다
+    @Value("${moneygift.transfer.retry-backoff-millis:5000}")
+    private long retryBackoffMillis;
+
+    @Value("${moneygift.transfer.max-retry-backoff-millis:600000}")
+    private long maxRetryBackoffMillis;
+
+    //가져간 송금을 다른 서버가 가져가지 못하는 시간 (batch 하나를 보내는 시간보다 길어야 한다)
+    @Value("${moneygift.transfer.lease-millis:300000}")
+    private long leaseMillis;
+
+    @Value("${moneygift.transfer.poll-interval-millis:1000}")
+    private long pollIntervalMillis;
+
+    //호출하는 쪽의 트랜잭션에서 저장한다. 커밋된 뒤에 dispatcher를 깨운다
+    public MoneygiftTransfer enqueue(Moneygift moneygift, MoBankTransferRequest moBankTransferRequest) {
+        MoneygiftTransfer moneygiftTransfer = moneygiftTransferRepository.save(
+                new MoneygiftTransfer(moneygift, moBankTransferRequest, LocalDateTime.now()));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueued.release();
+                }
+            });
+        } else {
+            enqueued.release();
+        }
+        count("enqueued");
+        return moneygiftTransfer;
+    }
+
+    //보낼 시각이 된 송금을 한 batch 보내고 결과를 기록한다. 보낸 송금 수를 반환한다
+    public int dispatchDue() {
+        List<MoneygiftTransfer> claimed = claimDue();
+        if (claimed.isEmpty())
+            return 0;
+
+        //이 batch를 알린 신호는 쓴 것으로 친다
+        enqueued.tryAcquire(Math.min(claimed.size(), enqueued.availablePermits()));
+
+        List<TransferResult> results = Flux.fromIterable(claimed)
+                .flatMap(this::send, concurrency)
+                .collectList()
+                .block();
+
+        for (TransferResult result : results) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> record(result));
+            } catch (RuntimeException e) {
+                //기록하지 못한 송금은 lease가 끝난 뒤 같은 idempotency key로 다시 보낸다
+                log.error("moneygift transfer record failed. sequence: {}", result.sequence, e);
+            }
+        }
+        return claimed.size();
+    }
+
+    //송금이 없을 때 새 송금이 저장되거나 poll-interval이 지날 때까지 기다린다
+    public void awaitEnqueue() throws InterruptedException {
+        enqueued.tryAcquire(pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    //dispatcher가 멈출 때 기다리는 스레드를 깨운다
+    public void wakeUp() {
+        enqueued.release();
+    }
+
+    private List<MoneygiftTransfer> claimDue() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(Duration.ofMillis(leaseMillis));
+
+        List<MoneygiftTransfer> claimed = new ArrayList<>();
+        for (Long sequence : moneygiftTransferRepository.findDueSequences(now, PageRequest.of(0, batchSize))) {
+            MoneygiftTransfer moneygiftTransfer = transactionTemplate.execute(status ->
+                    moneygiftTransferRepository.claim(sequence, now, leaseUntil) == 1
+                            ? moneygiftTransferRepository.findById(sequence).orElse(null)
+                            : null);
+            //다른 서버가 먼저 가져간 송금은 건너뛴다
+            if (moneygiftTransfer != null)
+                claimed.add(moneygiftTransfer);
+        }
+        return claimed;
+    }
+
+    private Mono<TransferResult> send(MoneygiftTransfer moneygiftTransfer) {
+        Long sequence = moneygiftTransfer.getMoneygiftTransferSequence();
+        return moBankService.sendMoneyAsync(moneygiftTransfer.toMoBankTransferRequest(), moneygiftTransfer.getIdempotencyKey())
+                .then(Mono.fromSupplier(() -> new TransferResult(sequence, null)))
+                .onErrorResume(e -> Mono.just(new TransferResult(sequence, e)));
+    }
+
+    private void record(TransferResult result) {
+        MoneygiftTransfer moneygiftTransfer = moneygiftTransferRepository.findWithMoneygift(result.sequence)
+                .orElse(null);
+        //이미 결과가 기록된 송금 (lease가 끝난 뒤 다른 서버가 보낸 경우)
+        if (moneygiftTransfer == null || moneygiftTransfer.getStatus() != TransferStatus.PENDING)
+            return;
+
+        LocalDateTime now = LocalDateTime.now();
+        if (result.error == null) {
+            moneygiftTransfer.settle(now);
+            count("settled");
+            //송금 요청부터 MoBank 송금 완료까지 걸린 시간
+            meterRegistry.timer("marrymo.moneygift.transfer.latency")
+                    .record(Duration.between(moneygiftTransfer.getCreatedAt(), now));
+            return;
+        }
+
+        String error = describe(result.error);
+        if (isRetryable(result.error) && moneygiftTransfer.getAttempt() < maxAttempts) {
+            long backoff = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(moneygiftTransfer.getAttempt() - 1, 30));
+            moneygiftTransfer.retryAt(now.plus(Duration.ofMillis(backoff)), error);
+            log.warn("moneygift transfer retry. sequence: {}, attempt: {}, error: {}",
+                    result.sequence, moneygiftTransfer.getAttempt(), error);
+            count("retried");
+            return;
+        }
+
+        moneygiftTransfer.fail(now, error);
+        //받은 것으로 더해 둔 합계에서 뺀다
+        Moneygift moneygift = moneygiftTransfer.getMoneygift();
+        moneygiftTotalRepository.add(moneygift.getUser().getUserSequence(), moneygift.getType(),
+                moneygift.getGuestType(), -moneygift.getAmount(), -1L);
+        log.error("moneygift transfer failed. sequence: {}, moneygiftSequence: {}, attempt: {}, error: {}",
+                result.sequence, moneygift.getMoneygiftSequence(), moneygiftTransfer.getAttempt(), error);
+        count("failed");
+    }
+
+    //MoBank가 요청을 거절한 경우(4xx)는 다시 보내도 같은 결과이므로 재시도하지 않는다
+    //(401은 MoBankService가 토큰을 바꿔 한 번 다시 보낸다. 408, 429는 나중에 다시 보낸다)
+    private boolean isRetryable(Throwable error) {
+        if (error instanceof WebClientResponseException e && e.getStatusCode().is4xxClientError())
+            return e.getStatusCode().value() == HttpStatus.REQUEST_TIMEOUT.value()
+                    || e.getStatusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        return true;
+    }
+
+    private String describe(Throwable error) {
+        if (error instanceof WebClientResponseException e)
+            return e.getStatusCode().value() + " " + e.getResponseBodyAsString();
+        return error.getClass().getSimpleName() + ": " + error.getMessage();
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("marrymo.moneygift.transfer", "result", result).increment();
+    }
+
+    @AllArgsConstructor
+    private static class TransferResult {
+        private final Long sequence;
+        //null이면 성공
+        private final Throwable error;
+    }
+}
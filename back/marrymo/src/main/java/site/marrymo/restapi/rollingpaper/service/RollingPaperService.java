@@ -14,6 +14,7 @@ import site.marrymo.restapi.user.entity.User;
 import site.marrymo.restapi.user.exception.UserErrorCode;
 import site.marrymo.restapi.user.exception.UserException;
 import site.marrymo.restapi.user.repository.UserRepository;
+import site.marrymo.restapi.user.service.UserIdentityService;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -25,11 +26,11 @@ import java.util.stream.Collectors;
 public class RollingPaperService {
     private final RollingPaperRepository rollingPaperRepository;
     private final UserRepository userRepository;
+    private final UserIdentityService userIdentityService;
 
     public void registRollingPaper(String userCode, RollingPaperRegistRequest rollingPaperRegistRequest) {
-        //1. userCode로 사용자 조회
-        User user = userRepository.findByUserCode(userCode)
-                .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
+        //1. userCode로 사용자 조회 (식별 정보 캐시에서 찾고, 엔티티는 조회 없이 참조만 만든다)
+        User user = userRepository.getReferenceById(userIdentityService.getByUserCode(userCode).getUserSequence());
 
         RollingPaper rollingPaper = RollingPaper.builder()
                 .user(user)
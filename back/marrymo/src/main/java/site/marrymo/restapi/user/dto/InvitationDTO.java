@@ -0,0 +1,35 @@
+package site.marrymo.restapi.user.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * 청첩장 조회용 projection
+ * user - card - wedding_img를 한 번에 조인해서 이미지 한 장당 한 row로 받는다
+ * (카드가 없으면 cardSequence가 null, 이미지가 없으면 imgUrl이 null)
+ */
+@Getter
+@AllArgsConstructor
+public class InvitationDTO {
+    private Long userSequence;
+    private String userCode;
+    private String email;
+    private Long cardSequence;
+    private String groomName;
+    private String brideName;
+    private String groomContact;
+    private String brideContact;
+    private LocalDate weddingDate;
+    private String weddingDay;
+    private LocalTime weddingTime;
+    private String location;
+    private String greeting;
+    private String groomFather;
+    private String groomMother;
+    private String brideFather;
+    private String brideMother;
+    private String imgUrl;
+}
@@ -4,6 +4,7 @@ package site.marrymo.restapi.user.dto;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import site.marrymo.restapi.global.security.userdetails.MarrymoPrincipal;
 import site.marrymo.restapi.user.entity.User;
 
 @Data
@@ -39,4 +40,13 @@ public class UserDTO {
                 .isGroomOnce(user.getIsGroomOnce())
                 .build();
     }
+
+    //@LoginUser로 받는 UserDTO는 필터가 올려 둔 로그인 사용자 정보로 만든다 (DB를 조회하지 않는다)
+    public static UserDTO toDTO(MarrymoPrincipal principal){
+        return UserDTO.builder()
+                .userSequence(principal.getUserSequence())
+                .userCode(principal.getUserCode())
+                .email(principal.getEmail())
+                .build();
+    }
 }
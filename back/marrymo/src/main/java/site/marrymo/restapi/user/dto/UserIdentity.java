@@ -0,0 +1,24 @@
+package site.marrymo.restapi.user.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+//userCode로 찾은 사용자 식별 정보 (userCode, userSequence는 바뀌지 않으므로 캐시해 둔다. email은 바뀔 때 무효화한다)
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class UserIdentity {
+    private Long userSequence;
+    private String userCode;
+    private String email;
+    //탈퇴한 회원인가
+    private boolean deleted;
+
+    public UserIdentity(Long userSequence, String userCode, String email, LocalDateTime deletedAt) {
+        this(userSequence, userCode, email, deletedAt != null);
+    }
+}
@@ -1,9 +1,13 @@
 package site.marrymo.restapi.user.dto.response;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import site.marrymo.restapi.card.entity.Card;
+import site.marrymo.restapi.user.dto.InvitationDTO;
 import site.marrymo.restapi.user.entity.User;
 
 import java.time.LocalDate;
@@ -11,7 +15,9 @@ import java.time.LocalTime;
 import java.util.List;
 
 @Getter
-@Builder
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class UserGetResponse {
     private Long userSequence;
     private String groomName;
@@ -56,4 +62,27 @@ public class UserGetResponse {
                 .isMem(isMem)
                 .build();
     }
+
+    public static UserGetResponse toDto(InvitationDTO invitation, List<String> imgUrl, Boolean isMem){
+        return UserGetResponse.builder()
+                .userSequence(invitation.getUserSequence())
+                .groomName(invitation.getGroomName())
+                .brideName(invitation.getBrideName())
+                .groomContact(invitation.getGroomContact())
+                .brideContact(invitation.getBrideContact())
+                .weddingDate(invitation.getWeddingDate())
+                .weddingDay(invitation.getWeddingDay())
+                .weddingTime(invitation.getWeddingTime())
+                .location(invitation.getLocation())
+                .email(invitation.getEmail())
+                .greeting(invitation.getGreeting())
+                .groomFather(invitation.getGroomFather())
+                .groomMother(invitation.getGroomMother())
+                .brideFather(invitation.getBrideFather())
+                .brideMother(invitation.getBrideMother())
+                .imgUrl(imgUrl)
+                .userCode(invitation.getUserCode())
+                .isMem(isMem)
+                .build();
+    }
 }
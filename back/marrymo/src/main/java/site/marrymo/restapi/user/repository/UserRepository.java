@@ -1,10 +1,15 @@
 package site.marrymo.restapi.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import site.marrymo.restapi.user.dto.InvitationDTO;
+import site.marrymo.restapi.user.dto.UserIdentity;
 import site.marrymo.restapi.user.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -12,4 +17,22 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUserSequence(Long userSequence);
     Optional<User> findByKakaoId(String kakaoId);
     Optional<User> findByEmail(String email);
+
+    @Query("SELECT new site.marrymo.restapi.user.dto.UserIdentity(u.userSequence, u.userCode, u.email, u.deletedAt) "
+            + "FROM User u "
+            + "WHERE u.userCode = :userCode")
+    Optional<UserIdentity> findIdentityByUserCode(@Param("userCode") String userCode);
+
+    //청첩장 조회용: user, card, 삭제되지 않은 이미지를 한 번의 쿼리로 가져온다
+    @Query("SELECT new site.marrymo.restapi.user.dto.InvitationDTO("
+            + "u.userSequence, u.userCode, u.email, c.cardSequence, "
+            + "c.groomName, c.brideName, c.groomContact, c.brideContact, "
+            + "c.weddingDate, c.weddingDay, c.weddingTime, c.location, c.greeting, "
+            + "c.groomFather, c.groomMother, c.brideFather, c.brideMother, w.imgUrl) "
+            + "FROM User u "
+            + "LEFT JOIN Card c ON c.user = u "
+            + "LEFT JOIN WeddingImg w ON w.card = c AND w.deletedAt IS NULL "
+            + "WHERE u.userCode = :userCode "
+            + "ORDER BY w.imgSequence")
+    List<InvitationDTO> findInvitationByUserCode(@Param("userCode") String userCode);
 }
@@ -0,0 +1,42 @@
+package site.marrymo.restapi.user.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import site.marrymo.restapi.global.cache.TwoTierCache;
+import site.marrymo.restapi.user.dto.UserIdentity;
+import site.marrymo.restapi.user.exception.UserErrorCode;
+import site.marrymo.restapi.user.exception.UserException;
+import site.marrymo.restapi.user.repository.UserRepository;
+
+import java.util.Optional;
+
+/**
+ * userCode -> userSequence / 탈퇴 여부 조회
+ * 거의 모든 요청에서 userCode로 사용자를 찾으므로 TwoTierCache(로컬 + Redis)에 올려 두고 MySQL 조회를 줄인다.
+ * userCode와 userSequence는 바뀌지 않고, 탈퇴 여부만 바뀌므로 탈퇴 시에 무효화한다.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserIdentityService {
+    private final UserRepository userRepository;
+    private final TwoTierCache<UserIdentity> userIdentityCache;
+
+    //없는 userCode는 캐시하지 않는다 (가입하면 바로 조회되어야 하므로)
+    public Optional<UserIdentity> findByUserCode(String userCode) {
+        if (userCode == null)
+            return Optional.empty();
+
+        return Optional.ofNullable(userIdentityCache.get(userCode,
+                () -> userRepository.findIdentityByUserCode(userCode).orElse(null)));
+    }
+
+    public UserIdentity getByUserCode(String userCode) {
+        return findByUserCode(userCode)
+                .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
+    }
+
+    public void evict(String userCode) {
+        userIdentityCache.evict(userCode);
+    }
+}
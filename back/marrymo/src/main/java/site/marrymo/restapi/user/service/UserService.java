@@ -8,19 +8,21 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import site.marrymo.restapi.global.cache.TwoTierCache;
 import site.marrymo.restapi.global.redis.service.RedisService;
 import site.marrymo.restapi.global.smtp.dto.request.SmtpVerifyRequest;
-import site.marrymo.restapi.global.smtp.service.SmtpService;
-import site.marrymo.restapi.user.repository.BlackListRepository;
+import site.marrymo.restapi.global.smtp.service.MailQueueService;
 import site.marrymo.restapi.card.entity.Card;
 import site.marrymo.restapi.card.exception.CardErrorCode;
 import site.marrymo.restapi.card.exception.CardException;
 import site.marrymo.restapi.card.repository.CardRepository;
-import site.marrymo.restapi.global.jwt.entity.BlackList;
+import site.marrymo.restapi.global.jwt.JWTProvider;
 import site.marrymo.restapi.global.s3.service.AwsS3Service;
 import site.marrymo.restapi.global.util.UserCodeGenerator;
+import site.marrymo.restapi.user.dto.InvitationDTO;
 import site.marrymo.restapi.user.dto.UserDTO;
 import site.marrymo.restapi.user.dto.Who;
 import site.marrymo.restapi.user.dto.request.*;
@@ -35,7 +37,6 @@ import site.marrymo.restapi.user.repository.UserRepository;
 import site.marrymo.restapi.wedding_img.entity.WeddingImg;
 import site.marrymo.restapi.wedding_img.repository.WeddingImgRepository;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
@@ -53,9 +54,12 @@ public class UserService {
     private final CardRepository cardRepository;
     private final WeddingImgRepository weddingImgRepository;
     private final AwsS3Service awsS3Service;
-    private final BlackListRepository blackListRepository;
     private final RedisService redisService;
-    private final SmtpService smtpService;
+    private final MailQueueService mailQueueService;
+    private final TwoTierCache<UserGetResponse> invitationCache;
+    private final TransactionTemplate transactionTemplate;
+    private final UserIdentityService userIdentityService;
+    private final JWTProvider jwtProvider;
 
     @Value("${spring.mail.auth-code-expiration-millis}")
     private long authCodeExpirationMillis;
@@ -77,7 +81,21 @@ public class UserService {
         return uniqueUserCode;
     }
 
+    //S3 업로드는 트랜잭션 밖에서 동시에 진행해서, 업로드하는 동안 DB 커넥션을 잡고 있지 않도록 한다
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void registUserInfo(UserDTO userDTO, UserRegistRequest userRegistRequest) {
+        List<String> imgUrlList = uploadWeddingImgs(userDTO.getUserCode(), userRegistRequest.getImgUrl(), List.of());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> saveUserInfo(userDTO, userRegistRequest, imgUrlList));
+        } catch (RuntimeException e) {
+            //DB 저장에 실패하면 올린 이미지도 되돌린다
+            awsS3Service.deleteFiles(imgUrlList, List.of());
+            throw e;
+        }
+    }
+
+    private void saveUserInfo(UserDTO userDTO, UserRegistRequest userRegistRequest, List<String> imgUrlList) {
         //user table에 email 정보 저장
         User user = userRepository.findByUserSequence(userDTO.getUserSequence())
                 .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
@@ -86,9 +104,11 @@ public class UserService {
 
         user.modifyUserEmail(userRegistRequest.getEmail());
         userRepository.save(user);
+        //식별 정보 캐시에 email이 들어 있으므로 무효화
+        userIdentityService.evict(user.getUserCode());
 
         //card table에 청첩장 정보 저장
-        cardRepository.save(Card.builder()
+        Card card = cardRepository.save(Card.builder()
                 .user(user)
                 .groomName(userRegistRequest.getGroomName())
                 .brideName(userRegistRequest.getBrideName())
@@ -108,34 +128,33 @@ public class UserService {
                 .build());
 
         //웨딩 이미지에 이미지 정보 저장
-        Card card = cardRepository.findByUser(user)
-                .orElseThrow(() -> new CardException(CardErrorCode.CARD_NOT_FOUND));
+        saveWeddingImgs(card, imgUrlList);
+    }
 
-        if (userRegistRequest.getImgUrl() != null) {
-            for (MultipartFile file : userRegistRequest.getImgUrl()) {
-                try {
-                    String imgUrl = awsS3Service.uploadFileImage("wedding_img", file, user.getUserCode());
-                    System.out.println("imgUrl:" + imgUrl);
-
-                    weddingImgRepository.save(
-                            WeddingImg.builder()
-                                    .card(card)
-                                    .imgUrl(imgUrl)
-                                    .build());
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public void modifyUserInfo(UserDTO userDTO, UserModifyRequest userModifyRequest) {
+        //같은 이름의 이미지는 기존 이미지를 덮어쓰므로, 실패해도 지금 청첩장에서 쓰고 있는 이미지는 지우지 않는다
+        List<String> inUseUrlList = weddingImgRepository.findImgUrlByUserSequence(userDTO.getUserSequence());
+        List<String> imgUrlList = uploadWeddingImgs(userDTO.getUserCode(), userModifyRequest.getImgUrl(), inUseUrlList);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> updateUserInfo(userDTO, userModifyRequest, imgUrlList));
+        } catch (RuntimeException e) {
+            //DB 저장에 실패하면 올린 이미지도 되돌린다
+            awsS3Service.deleteFiles(imgUrlList, inUseUrlList);
+            throw e;
         }
     }
 
-    public void modifyUserInfo(UserDTO userDTO, UserModifyRequest userModifyRequest) {
+    private void updateUserInfo(UserDTO userDTO, UserModifyRequest userModifyRequest, List<String> imgUrlList) {
         //user table에 email 정보 저장
         User user = userRepository.findByUserSequence(userDTO.getUserSequence())
                 .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
 
         user.modifyUserEmail(userModifyRequest.getEmail());
         userRepository.save(user);
+        //식별 정보 캐시에 email이 들어 있으므로 무효화
+        userIdentityService.evict(user.getUserCode());
 
         //card table에 청첩장 정보 저장
         Card card = cardRepository.findByUser(user)
@@ -159,24 +178,34 @@ public class UserService {
 
         //웨딩 이미지에 이미지 정보 저장
 
-        //저장되어 있는 이미지 정보 모두 삭제
-        weddingImgRepository.deleteAll();
-
-        if (userModifyRequest.getImgUrl() != null) {
-            for (MultipartFile file : userModifyRequest.getImgUrl()) {
-                try {
-                    String imgUrl = awsS3Service.uploadFileImage("wedding_img", file, user.getUserCode());
-
-                    weddingImgRepository.save(
-                            WeddingImg.builder()
-                                    .card(card)
-                                    .imgUrl(imgUrl)
-                                    .build());
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            }
+        //이 청첩장에 저장되어 있는 이미지 정보만 삭제
+        weddingImgRepository.softDeleteByCard(card);
+
+        //청첩장 조회 캐시 무효화
+        invitationCache.evict(user.getUserCode());
+
+        saveWeddingImgs(card, imgUrlList);
+    }
+
+    //이미지를 동시에 올린다 (전체 소요 시간은 가장 오래 걸리는 한 장의 업로드 시간에 가까워진다)
+    private List<String> uploadWeddingImgs(String userCode, List<MultipartFile> files, List<String> inUseUrlList) {
+        if (files == null || files.isEmpty())
+            return List.of();
+
+        return awsS3Service.uploadFileImages("wedding_img", files, userCode, inUseUrlList);
+    }
+
+    //요청한 순서대로 img_sequence가 매겨지도록 순서를 유지해서 한 번에 저장
+    private void saveWeddingImgs(Card card, List<String> imgUrlList) {
+        List<WeddingImg> weddingImgList = new ArrayList<>();
+        for (String imgUrl : imgUrlList) {
+            weddingImgList.add(WeddingImg.builder()
+                    .card(card)
+                    .imgUrl(imgUrl)
+                    .build());
         }
+
+        weddingImgRepository.saveAll(weddingImgList);
     }
 
     public UserGetResponse getUserInfo(UserDTO userDTO, String userCode) {
@@ -191,24 +220,33 @@ public class UserService {
         if (userDTO == null)
             isMem = false;
 
-        User user = userRepository.findByUserCode(userCode)
-                .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
+        //청첩장 내용은 요청자와 무관하므로 캐시에서 꺼내고, 요청마다 달라지는 isMem만 채워서 반환
+        UserGetResponse invitation = invitationCache.get(userCode, () -> loadInvitation(userCode));
 
-        Card card = cardRepository.findByUser(user)
-                .orElseThrow(() -> new CardException(CardErrorCode.CARD_NOT_FOUND));
+        return invitation.toBuilder()
+                .isMem(Boolean.valueOf(isMem))
+                .build();
+    }
 
-        List<WeddingImg> weddingImgList = weddingImgRepository.findByCard(card);
-        List<String> imgUrlList = new ArrayList<>();
+    private UserGetResponse loadInvitation(String userCode) {
+        //user - card - 삭제되지 않은 이미지를 한 번에 조회 (이미지 한 장당 한 row)
+        List<InvitationDTO> rows = userRepository.findInvitationByUserCode(userCode);
+
+        if (rows.isEmpty())
+            throw new UserException(UserErrorCode.USER_NOT_FOUND);
 
-        for (WeddingImg weddingImg : weddingImgList) {
-            //img가 삭제된 시간이 찍혀 있으면 얻어오지 않는다
-            if (weddingImg.getDeletedAt() != null)
-                continue;
+        InvitationDTO invitation = rows.get(0);
+        if (invitation.getCardSequence() == null)
+            throw new CardException(CardErrorCode.CARD_NOT_FOUND);
 
-            imgUrlList.add(weddingImg.getImgUrl());
+        List<String> imgUrlList = new ArrayList<>();
+        for (InvitationDTO row : rows) {
+            //이미지가 하나도 없으면 imgUrl이 null인 row 하나만 온다
+            if (row.getImgUrl() != null)
+                imgUrlList.add(row.getImgUrl());
         }
 
-        return UserGetResponse.toDto(user, card, imgUrlList, Boolean.valueOf(isMem));
+        return UserGetResponse.toDto(invitation, imgUrlList, null);
     }
 
     public void deleteUser(UserDTO userDTO) {
@@ -223,6 +261,10 @@ public class UserService {
         cardRepository.save(card);
 
         userRepository.delete(user);
+
+        //청첩장 조회 캐시, 식별 정보(탈퇴 여부) 캐시 무효화
+        invitationCache.evict(user.getUserCode());
+        userIdentityService.evict(user.getUserCode());
     }
 
     public InvitationIssueResponse invitationIssued(UserDTO userDTO, InvitationIssueRequest invitationIssueRequest) {
@@ -237,6 +279,9 @@ public class UserService {
         card.modifyIsIssued(invitationIssueRequest.getIsIssued());
         cardRepository.save(card);
 
+        //청첩장 조회 캐시 무효화
+        invitationCache.evict(user.getUserCode());
+
         return InvitationIssueResponse.builder().isIssued(invitationIssueRequest.getIsIssued()).build();
     }
 
@@ -314,8 +359,9 @@ public class UserService {
             httpServletResponse.addCookie(cookie);
         }
 
-        //black_list 테이블에 만료된 refresh token 정보를 저장
-        blackListRepository.save(BlackList.builder().invalidRefreshToken(refreshToken).build());
+        //로그아웃한 refresh token은 토큰이 만료될 때까지 Redis에 토큰 ID로 보관
+        if (!refreshToken.isEmpty())
+            jwtProvider.revokeToken(jwtProvider.parseToken(refreshToken));
     }
 
     public void sendCodeToEmail(String toEmail) {
@@ -327,17 +373,17 @@ public class UserService {
                 "안녕하세요, Marrymo 입니다. <br>"
                         + "<strong>" + toEmail + "</strong>님께 이메일 인증번호를 발송해드립니다.<br/><br/>"
                         + "<h3>" + authCode + "</h3>";
-        log.debug("send mail start...");
-        smtpService.sendEmail(toEmail, title, content);
-        log.debug("send mail end...");
 
         //이메일 요청 시 인증 번호를 Redis에 저장
         //(key = Email / value = AuthCode)
         redisService.setValue(toEmail, authCode, Long.valueOf(authCodeExpirationMillis));
+
+        //메일은 큐에 넣고 바로 응답한다 (인증 번호가 만료되면 보내지 않는다)
+        mailQueueService.enqueue(toEmail, title, content, authCodeExpirationMillis);
     }
 
     public Boolean verifiedAuthCode(SmtpVerifyRequest smtpVerifyRequest) {
-        String redisAuthCode = redisService.getValue(smtpVerifyRequest.getEmail());
+        String redisAuthCode = redisService.getCachedValue(smtpVerifyRequest.getEmail());
 
         if (smtpVerifyRequest.getCode().equals(redisAuthCode))
             return Boolean.valueOf(true);
@@ -1,6 +1,9 @@
 package site.marrymo.restapi.wedding_img.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import site.marrymo.restapi.card.entity.Card;
 import site.marrymo.restapi.wedding_img.entity.WeddingImg;
 
@@ -8,4 +11,15 @@ import java.util.List;
 
 public interface WeddingImgRepository extends JpaRepository<WeddingImg, Long> {
     List<WeddingImg> findByCard(Card card);
+
+    //청첩장에서 현재 쓰고 있는 (삭제되지 않은) 이미지 URL
+    @Query("SELECT w.imgUrl FROM WeddingImg w "
+            + "WHERE w.card.user.userSequence = :userSequence AND w.deletedAt IS NULL")
+    List<String> findImgUrlByUserSequence(@Param("userSequence") Long userSequence);
+
+    //한 청첩장의 이미지만 한 번의 UPDATE로 soft delete
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE WeddingImg w SET w.deletedAt = CURRENT_TIMESTAMP "
+            + "WHERE w.card = :card AND w.deletedAt IS NULL")
+    int softDeleteByCard(@Param("card") Card card);
 }
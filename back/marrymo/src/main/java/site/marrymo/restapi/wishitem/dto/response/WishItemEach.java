@@ -2,11 +2,13 @@ package site.marrymo.restapi.wishitem.dto.response;
 
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 
 @Data
 @Builder
+@AllArgsConstructor
 public class WishItemEach {
     @NotNull(message = "빈칸이면 안되고 null이어도 안됩니다")
     private Long wishItemSequence;
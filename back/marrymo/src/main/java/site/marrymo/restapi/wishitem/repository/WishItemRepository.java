@@ -1,7 +1,10 @@
 package site.marrymo.restapi.wishitem.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import site.marrymo.restapi.user.entity.User;
+import site.marrymo.restapi.wishitem.dto.response.WishItemEach;
 import site.marrymo.restapi.wishitem.entity.WishItem;
 
 import java.util.List;
@@ -14,4 +17,10 @@ public interface WishItemRepository extends JpaRepository<WishItem, Long> {
     //원래는 findById가 기본으로 제공, 우리는 userSequence를 써서 선언해줘야 함.
     List<WishItem> findByUser(User user);
     Optional<WishItem>  findByWishItemSequenceAndUser(Long wishItemSequence, User user);
+
+    //정산 엑셀용: 부부의 위시 아이템 이름 / 가격을 한 번에 조회
+    @Query("SELECT new site.marrymo.restapi.wishitem.dto.response.WishItemEach(w.wishItemSequence, w.name, w.price, w.img) "
+            + "FROM WishItem w "
+            + "WHERE w.user.userSequence = :userSequence")
+    List<WishItemEach> findWishItemEachByUserSequence(@Param("userSequence") Long userSequence);
 }
@@ -5,6 +5,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
 import site.marrymo.restapi.moneygift_history.entity.Moneygift;
 import site.marrymo.restapi.moneygift_history.repository.MoneygiftRepository;
 import site.marrymo.restapi.user.dto.UserDTO;
@@ -12,6 +13,7 @@ import site.marrymo.restapi.user.entity.User;
 import site.marrymo.restapi.user.exception.UserErrorCode;
 import site.marrymo.restapi.user.exception.UserException;
 import site.marrymo.restapi.user.repository.UserRepository;
+import site.marrymo.restapi.user.service.UserIdentityService;
 import site.marrymo.restapi.wishitem.dto.request.WishItemDeleteRequest;
 import site.marrymo.restapi.wishitem.dto.request.WishItemRegistRequest;
 import site.marrymo.restapi.wishitem.dto.response.WishItemDetailResponse;
@@ -31,6 +33,7 @@ import java.util.stream.Collectors;
 @Transactional
 public class WishItemService {
     private final UserRepository userRepository;
+    private final UserIdentityService userIdentityService;
     private final WishItemRepository wishItemRepository;
     private final MoneygiftRepository moneygiftRepository;
 
@@ -52,9 +55,8 @@ public class WishItemService {
     }
 
     public WishItemGetResponse getWishItems(String userCode) {
-        //1. userCode로 사용자 조회
-        User user = userRepository.findByUserCode(userCode)
-                .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
+        //1. userCode로 사용자 조회 (식별 정보 캐시에서 찾고, 엔티티는 조회 없이 참조만 만든다)
+        User user = userRepository.getReferenceById(userIdentityService.getByUserCode(userCode).getUserSequence());
 
         //여기 에러 바꾸기
         //2. user로 WishItem 엔티티 목록 조회
@@ -77,16 +79,18 @@ public class WishItemService {
     }
 
     public WishItemDetailResponse getWishItemDetail(String userCode, Long wishItemSequence) {
-        //1. userCode로 사용자 조회
-        User user = userRepository.findByUserCode(userCode)
-                .orElseThrow(() -> new UserException(UserErrorCode.USER_NOT_FOUND));
+        //1. userCode로 사용자 조회 (식별 정보 캐시에서 찾고, 엔티티는 조회 없이 참조만 만든다)
+        User user = userRepository.getReferenceById(userIdentityService.getByUserCode(userCode).getUserSequence());
 
         //2. wishItemSequence로 wishItem 조회
         WishItem wishItem = wishItemRepository.findByWishItemSequenceAndUser(wishItemSequence, user)
                 .orElseThrow(() -> new WishItemException(WishItemErrorCode.WISH_ITEM_NOT_FOUNT_FOR_USER));
 
         //3. user와 wishItem으로 moneygift 내역 list로 가져오기
-        List<Moneygift> moneygiftList = moneygiftRepository.findByUserAndWishItem(user, wishItem);
+        //송금에 실패한 내역은 펀딩 금액에서 뺀다
+        List<Moneygift> moneygiftList = moneygiftRepository.findByUserAndWishItem(user, wishItem).stream()
+                .filter(moneygift -> moneygift.getTransferStatus() != TransferStatus.FAILED)
+                .toList();
 
         //4. moneygiftList에서 amount 합산하여 fund 계산
         int fund = moneygiftList.stream()
@@ -0,0 +1,121 @@
+package site.marrymo.restapi.bank.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import site.marrymo.restapi.bank.dto.response.MoBankTokenApiResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoBankTokenManagerTest {
+    //MoBank 토큰 API 대신 호출 횟수를 세는 loader
+    private final AtomicInteger calls = new AtomicInteger();
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("발급받은 토큰은 만료 전까지 다시 발급받지 않는다")
+    void cacheTest() {
+        //Given
+        MoBankTokenManager moBankTokenManager = tokenManager(3600L, 0);
+
+        //When
+        for (int i = 0; i < 100; i++) {
+            assertEquals("Bearer token-1", moBankTokenManager.getAuthorization());
+        }
+
+        //Then
+        assertEquals(1, calls.get());
+        assertEquals(99, meterRegistry.counter("marrymo.mobank.token", "result", "hit").count());
+    }
+
+    @Test
+    @DisplayName("동시에 토큰이 필요해도 MoBank 토큰 API는 한 번만 호출한다")
+    void singleFlightTest() throws Exception {
+        //Given
+        MoBankTokenManager moBankTokenManager = tokenManager(3600L, 100);
+        int requests = 32;
+        ExecutorService executorService = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> futures = new ArrayList<>();
+
+        //When
+        for (int i = 0; i < requests; i++) {
+            futures.add(executorService.submit(() -> {
+                start.await();
+                return moBankTokenManager.getAuthorization();
+            }));
+        }
+        start.countDown();
+
+        //Then
+        for (Future<String> future : futures)
+            assertEquals("Bearer token-1", future.get());
+        executorService.shutdown();
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("401을 받은 토큰은 버리고 다시 발급받는다. 이미 바뀐 토큰은 버리지 않는다")
+    void invalidateTest() {
+        //Given
+        MoBankTokenManager moBankTokenManager = tokenManager(3600L, 0);
+        String rejected = moBankTokenManager.getAuthorization();
+
+        //When
+        moBankTokenManager.invalidate(rejected);
+        String reissued = moBankTokenManager.getAuthorization();
+        //같은 401을 늦게 받은 요청
+        moBankTokenManager.invalidate(rejected);
+
+        //Then
+        assertEquals("Bearer token-2", reissued);
+        assertEquals("Bearer token-2", moBankTokenManager.getAuthorization());
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.counter("marrymo.mobank.token.invalidations").count());
+    }
+
+    @Test
+    @DisplayName("만료가 가까운 토큰은 새로 발급받는다")
+    void expiryTest() throws Exception {
+        //Given
+        //유효 시간 1초 < refresh-skew 이므로 절반(0.5초)이 지나면 다시 받는다
+        MoBankTokenManager moBankTokenManager = tokenManager(1L, 0);
+
+        //When
+        moBankTokenManager.getAuthorization();
+        Thread.sleep(600);
+
+        //Then
+        assertEquals("Bearer token-2", moBankTokenManager.getAuthorization());
+    }
+
+    private MoBankTokenManager tokenManager(Long expiresIn, long latencyMillis) {
+        return new MoBankTokenManager(() -> {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            MoBankTokenApiResponse response = new MoBankTokenApiResponse();
+            response.setAccess_token("token-" + calls.incrementAndGet());
+            response.setTokenType("Bearer");
+            response.setExpires_in(expiresIn);
+            return response;
+        }, 60_000L, 600_000L, meterRegistry);
+    }
+}
@@ -0,0 +1,161 @@
+package site.marrymo.restapi.bank.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import site.marrymo.restapi.bank.dto.response.PaymentResponse;
+import site.marrymo.restapi.card.entity.Card;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.dto.request.MoneygiftTransferRequest;
+import site.marrymo.restapi.user.entity.User;
+import site.marrymo.restapi.user.repository.UserRepository;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//카카오페이 대신 JDK HttpServer에 붙여서 테스트한다
+class PaymentServiceTest {
+    private static final String PAYMENT_URL = "https://online-pay.kakao.com/mockup/v1/ready";
+
+    private HttpServer kakaopayServer;
+    private ExecutorService kakaopayExecutor;
+    private Scheduler dbScheduler;
+    private PaymentService paymentService;
+
+    //카카오페이 응답 지연
+    private volatile long latencyMillis;
+    private final AtomicReference<String> lastRequestBody = new AtomicReference<>();
+    private final AtomicReference<String> lookupThread = new AtomicReference<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        kakaopayServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        kakaopayServer.createContext("/", exchange -> {
+            lastRequestBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = ("{\"tid\":\"T1\",\"next_redirect_pc_url\":\"" + PAYMENT_URL + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        kakaopayExecutor = Executors.newCachedThreadPool();
+        kakaopayServer.setExecutor(kakaopayExecutor);
+        kakaopayServer.start();
+
+        Card card = mock(Card.class);
+        when(card.getGroomName()).thenReturn("김자바");
+        User user = mock(User.class);
+        when(user.getCard()).thenReturn(card);
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findByUserCode("user")).thenAnswer(invocation -> {
+            lookupThread.set(Thread.currentThread().getName());
+            return Optional.of(user);
+        });
+
+        dbScheduler = Schedulers.newBoundedElastic(10, 1000, "db");
+        WebClient kakaopayWebClient = WebClient.builder()
+                .baseUrl("http://127.0.0.1:" + kakaopayServer.getAddress().getPort())
+                .build();
+        paymentService = new PaymentService(userRepository, dbScheduler,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), kakaopayWebClient);
+        ReflectionTestUtils.setField(paymentService, "secretKey", "secret");
+        ReflectionTestUtils.setField(paymentService, "redirectUrl", "https://marrymo.site/redirect");
+    }
+
+    @AfterEach
+    void tearDown() {
+        kakaopayServer.stop(0);
+        kakaopayExecutor.shutdownNow();
+        dbScheduler.dispose();
+    }
+
+    @Test
+    @DisplayName("사용자 조회는 db 스레드에서 하고, 카카오페이 결제 준비 응답을 돌려준다")
+    void paymentApiAsyncTest() {
+        //When
+        PaymentResponse paymentResponse = paymentService.paymentApiAsync(transferRequest()).block();
+
+        //Then
+        assertEquals(PAYMENT_URL, paymentResponse.getNext_redirect_pc_url());
+        assertTrue(lookupThread.get().startsWith("db-"), lookupThread.get());
+        assertTrue(lastRequestBody.get().contains("김자바님에게 전달할 축의금(Marrymo)"));
+        assertTrue(lastRequestBody.get().contains("\"total_amount\":50000"));
+    }
+
+    /**
+     * 요청 스레드 수가 같을 때 카카오페이 응답을 기다리며 스레드를 잡아 둘 때와 반환할 때의 처리량
+     * BENCHMARK=true 환경 변수가 있을 때만 실행한다
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+    @DisplayName("송금 요청 blocking / non-blocking 처리량 벤치마크")
+    void benchmark() throws Exception {
+        latencyMillis = 100;
+        int requestThreads = 8;
+        int requests = 400;
+
+        ExecutorService requestPool = Executors.newFixedThreadPool(requestThreads);
+        //요청 스레드가 카카오페이 응답을 받을 때까지 기다린다
+        List<CompletableFuture<PaymentResponse>> responses = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            responses.add(CompletableFuture.supplyAsync(() -> paymentService.paymentApiAsync(transferRequest()).block(),
+                    requestPool));
+        }
+        CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        double blockingSeconds = (System.nanoTime() - start) / 1e9;
+
+        //요청 스레드는 구독만 하고 바로 다음 요청을 받는다
+        List<CompletableFuture<PaymentResponse>> asyncResponses = new ArrayList<>();
+        start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            asyncResponses.add(CompletableFuture.supplyAsync(() -> paymentService.paymentApiAsync(transferRequest()).toFuture(), requestPool)
+                    .thenCompose(future -> future));
+        }
+        CompletableFuture.allOf(asyncResponses.toArray(CompletableFuture[]::new)).get(5, TimeUnit.MINUTES);
+        double asyncSeconds = (System.nanoTime() - start) / 1e9;
+        requestPool.shutdown();
+
+        System.out.printf("%d request threads, kakaopay latency %d ms%n", requestThreads, latencyMillis);
+        System.out.printf("blocking: %.1f requests/s%n", requests / blockingSeconds);
+        System.out.printf("non-blocking: %.1f requests/s%n", requests / asyncSeconds);
+    }
+
+    private MoneygiftTransferRequest transferRequest() {
+        return MoneygiftTransferRequest.builder()
+                .userCode("user")
+                .guestType(GuestType.GROOM)
+                .type(Type.CASH)
+                .amount(50000)
+                .sender("하객")
+                .build();
+    }
+}
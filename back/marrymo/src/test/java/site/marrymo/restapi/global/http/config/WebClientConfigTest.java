@@ -0,0 +1,91 @@
+package site.marrymo.restapi.global.http.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WebClientConfigTest {
+    private HttpServer hungServer;
+    private WebClientConfig webClientConfig;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        //요청을 받고 응답하지 않는 서버
+        hungServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        hungServer.createContext("/", exchange -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        hungServer.setExecutor(Executors.newCachedThreadPool());
+        hungServer.start();
+
+        webClientConfig = new WebClientConfig();
+        ReflectionTestUtils.setField(webClientConfig, "connectTimeoutMillis", 1000);
+        ReflectionTestUtils.setField(webClientConfig, "responseTimeoutMillis", 300L);
+        ReflectionTestUtils.setField(webClientConfig, "pendingAcquireTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(webClientConfig, "maxIdleTimeMillis", 20_000L);
+        ReflectionTestUtils.setField(webClientConfig, "maxLifeTimeMillis", 300_000L);
+        ReflectionTestUtils.setField(webClientConfig, "moBankBaseUrl", "http://127.0.0.1:" + hungServer.getAddress().getPort());
+        ReflectionTestUtils.setField(webClientConfig, "moBankMaxConnections", 2);
+        ReflectionTestUtils.setField(webClientConfig, "moBankPendingAcquireMaxCount", 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        webClientConfig.destroy();
+        hungServer.stop(0);
+    }
+
+    @Test
+    @DisplayName("응답하지 않는 서버로 요청이 몰려도 pool 밖의 요청은 바로 실패하고, 나머지는 응답 timeout에 끝난다")
+    void hungServerTest() {
+        //Given
+        WebClient moBankWebClient = webClientConfig.moBankWebClient(WebClient.builder());
+        int requests = 10;
+
+        //When
+        long start = System.currentTimeMillis();
+        List<Throwable> errors = Flux.range(0, requests)
+                .flatMap(i -> moBankWebClient.post()
+                        .uri("/api/account/transfer")
+                        .retrieve()
+                        .bodyToMono(String.class)
+                        .map(body -> (Throwable) new AssertionError("unexpected response"))
+                        .onErrorResume(Mono::just))
+                .collectList()
+                .block();
+        long elapsed = System.currentTimeMillis() - start;
+
+        //Then
+        assertEquals(requests, errors.size());
+        //연결 2개 + 대기 2개를 넘는 요청은 기다리지 않고 실패한다
+        assertEquals(requests - 4, errors.stream().filter(this::isPendingLimit).count());
+        //연결을 얻은 요청도 응답 timeout(300ms) 두 번 안에 끝난다
+        assertTrue(elapsed < 2_000, "elapsed: " + elapsed);
+    }
+
+    //reactor-netty 안에 shade된 reactor-pool의 예외라서 이름으로 확인한다
+    private boolean isPendingLimit(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause.getClass().getSimpleName().equals("PoolAcquirePendingLimitException"))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,179 @@
+package site.marrymo.restapi.global.idempotency.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import site.marrymo.restapi.bank.dto.response.PaymentResponse;
+import site.marrymo.restapi.global.idempotency.exception.IdempotencyErrorCode;
+import site.marrymo.restapi.global.idempotency.exception.IdempotencyException;
+import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.dto.request.MoneygiftTransferRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Redis 대신 jedis-mock에 붙여서 테스트한다
+class IdempotencyServiceTest {
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisService redisService;
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private MeterRegistry meterRegistry;
+    private IdempotencyService idempotencyService;
+    private String idempotencyKey;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+
+        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+
+        redisService = new RedisService(redisTemplate, Optional.empty());
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(redisService, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(idempotencyService, "lockTtlMillis", 30_000L);
+        ReflectionTestUtils.setField(idempotencyService, "responseTtlMillis", 60_000L);
+        ReflectionTestUtils.setField(idempotencyService, "waitIntervalMillis", 20L);
+        ReflectionTestUtils.setField(idempotencyService, "waitTimeoutMillis", 5_000L);
+        idempotencyKey = UUID.randomUUID().toString();
+    }
+
+    @Test
+    @DisplayName("같은 key로 다시 보낸 요청은 처리하지 않고 처음 응답을 돌려준다")
+    void replayTest() {
+        //When
+        PaymentResponse first = send(transferRequest(50000), slowPayment(0)).block();
+        PaymentResponse second = send(transferRequest(50000), slowPayment(0)).block();
+
+        //Then
+        assertEquals(1, calls.get());
+        assertEquals(first, second);
+        assertEquals("https://marrymo.site/pay/1", second.getNext_redirect_pc_url());
+        assertEquals(1, meterRegistry.counter("marrymo.idempotency", "result", "replayed").count());
+    }
+
+    @Test
+    @DisplayName("같은 key로 동시에 온 요청은 처음 요청이 끝나기를 기다렸다가 같은 응답을 받는다")
+    void concurrentDuplicateTest() {
+        //When
+        List<PaymentResponse> responses = Flux.range(0, 20)
+                .flatMap(i -> send(transferRequest(50000), slowPayment(300)))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        //Then
+        assertEquals(1, calls.get());
+        assertEquals(20, responses.size());
+        assertTrue(responses.stream().allMatch(response -> response.equals(responses.get(0))));
+    }
+
+    @Test
+    @DisplayName("같은 key로 다른 요청을 보내면 거절한다")
+    void reusedKeyTest() {
+        //Given
+        send(transferRequest(50000), slowPayment(0)).block();
+
+        //When
+        IdempotencyException exception = assertThrows(IdempotencyException.class,
+                () -> send(transferRequest(100000), slowPayment(0)).block());
+
+        //Then
+        assertEquals(IdempotencyErrorCode.IDEMPOTENCY_KEY_REUSED.getErrorCode(), exception.getErrorCode());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    @DisplayName("처리에 실패한 요청은 기록을 남기지 않아 같은 key로 다시 처리할 수 있다")
+    void failureReleaseTest() {
+        //Given
+        Mono<PaymentResponse> failing = Mono.defer(() -> {
+            calls.incrementAndGet();
+            return Mono.error(new IllegalStateException("kakaopay unavailable"));
+        });
+        assertThrows(IllegalStateException.class, () -> send(transferRequest(50000), failing).block());
+
+        //When
+        PaymentResponse retried = send(transferRequest(50000), slowPayment(0)).block();
+
+        //Then
+        assertEquals(2, calls.get());
+        assertEquals("https://marrymo.site/pay/2", retried.getNext_redirect_pc_url());
+    }
+
+    @Test
+    @DisplayName("잘못된 key는 처리하지 않는다")
+    void invalidKeyTest() {
+        //When
+        IdempotencyException exception = assertThrows(IdempotencyException.class,
+                () -> idempotencyService.execute("moneygift-send", " ", transferRequest(50000), PaymentResponse.class,
+                        () -> slowPayment(0)).block());
+
+        //Then
+        assertEquals(IdempotencyErrorCode.INVALID_IDEMPOTENCY_KEY.getErrorCode(), exception.getErrorCode());
+        assertEquals(0, calls.get());
+    }
+
+    private Mono<PaymentResponse> send(MoneygiftTransferRequest request, Mono<PaymentResponse> payment) {
+        return idempotencyService.execute("moneygift-send", idempotencyKey, request, PaymentResponse.class, () -> payment);
+    }
+
+    //카카오페이 결제 준비 호출 대신 호출 횟수를 세고 delayMillis 뒤에 응답한다
+    private Mono<PaymentResponse> slowPayment(long delayMillis) {
+        return Mono.delay(Duration.ofMillis(delayMillis))
+                .map(tick -> {
+                    PaymentResponse paymentResponse = new PaymentResponse();
+                    paymentResponse.setTid("T" + calls.incrementAndGet());
+                    paymentResponse.setNext_redirect_pc_url("https://marrymo.site/pay/" + calls.get());
+                    return paymentResponse;
+                });
+    }
+
+    private MoneygiftTransferRequest transferRequest(int amount) {
+        return MoneygiftTransferRequest.builder()
+                .userCode("abc123")
+                .guestType(GuestType.GROOM)
+                .type(Type.CASH)
+                .amount(amount)
+                .sender("하객")
+                .build();
+    }
+}
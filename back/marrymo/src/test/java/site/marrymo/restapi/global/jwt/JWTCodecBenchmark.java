@@ -0,0 +1,68 @@
+package site.marrymo.restapi.global.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.dto.TokenDTO;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWTCodec(미리 만든 key / parser)과 예전 방식(호출마다 salt로 key와 parser 생성) 비교
+ * JWTCodecTest.jmhBenchmark에서 실행한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JWTCodecBenchmark {
+    private JWTCodec jwtCodec;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtCodec = new JWTCodec(JWTCodecTest.SALT);
+        token = jwtCodec.issue("abcd1234", "access-token", 60 * 60 * 1000L).getToken();
+    }
+
+    @Benchmark
+    public TokenDTO issue() {
+        return jwtCodec.issue("abcd1234", "access-token", 60 * 60 * 1000L);
+    }
+
+    @Benchmark
+    public ParsedToken parse() {
+        return jwtCodec.parse(token);
+    }
+
+    @Benchmark
+    public String issuePerCallKey() {
+        Claims claims = Jwts.claims()
+                .setSubject("access-token")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60 * 60 * 1000L));
+        claims.put("userCode", "abcd1234");
+
+        return Jwts.builder()
+                .setHeaderParam("typ", "JWT").setClaims(claims)
+                .signWith(SignatureAlgorithm.HS256, JWTCodecTest.SALT.getBytes(StandardCharsets.UTF_8))
+                .compact();
+    }
+
+    @Benchmark
+    public Claims parsePerCallKey() {
+        return Jwts.parser()
+                .setSigningKey(JWTCodecTest.SALT.getBytes(StandardCharsets.UTF_8))
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
@@ -0,0 +1,102 @@
+package site.marrymo.restapi.global.jwt;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.springframework.test.util.ReflectionTestUtils;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.dto.TokenDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JWTCodecTest {
+    static final String SALT = "marrymo-test-salt-marrymo-test-salt";
+
+    @Test
+    @DisplayName("여러 스레드에서 동시에 발급해도 반환된 만료 시각은 항상 자기 토큰의 만료 시각과 같다")
+    void concurrentIssueStressTest() throws Exception {
+        //Given
+        //access token 1시간, refresh token 30일: 다른 토큰의 만료 시각이 섞이면 바로 드러난다
+        JWTProvider jwtProvider = new JWTProvider(new JWTCodec(SALT), null, null);
+        ReflectionTestUtils.setField(jwtProvider, "accessTokenExpireTime", 60 * 60 * 1000L);
+        ReflectionTestUtils.setField(jwtProvider, "refreshTokenExpireTime", 30 * 24 * 60 * 60 * 1000L);
+
+        int threads = 16;
+        int tokensPerThread = 2_000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        //When
+        List<Future<List<String>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String userCode = String.format("user%04d", t);
+            futures.add(executorService.submit(() -> {
+                start.await();
+                List<String> mismatches = new ArrayList<>();
+                for (int i = 0; i < tokensPerThread; i++) {
+                    TokenDTO tokenDTO = (i % 2 == 0)
+                            ? jwtProvider.createAccessToken(userCode)
+                            : jwtProvider.createRefreshToken(userCode);
+                    ParsedToken parsedToken = jwtProvider.parseToken(tokenDTO.getToken());
+
+                    if (parsedToken.getExpiration().getTime() / 1000 != tokenDTO.getExpired()
+                            || !userCode.equals(parsedToken.getUserCode()))
+                        mismatches.add(tokenDTO.getToken());
+                }
+                return mismatches;
+            }));
+        }
+        start.countDown();
+
+        //Then
+        for (Future<List<String>> future : futures)
+            assertEquals(List.of(), future.get(60, TimeUnit.SECONDS));
+        executorService.shutdown();
+    }
+
+    @Test
+    @DisplayName("다른 key로 서명된 토큰은 검증에 실패한다")
+    void invalidSignatureTest() {
+        //Given
+        String token = new JWTCodec("other-salt-other-salt-other-salt").issue("abcd1234", "access-token", 60_000L)
+                .getToken();
+
+        //When
+        ParsedToken parsedToken = new JWTCodec(SALT).parse(token);
+
+        //Then
+        assertFalse(parsedToken.isVerified());
+        assertNull(parsedToken.getUserCode());
+    }
+
+    /**
+     * JMH 벤치마크 (JWTCodecBenchmark)
+     * BENCHMARK=true 환경 변수가 있을 때만 실행한다
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+    @DisplayName("JWT 발급 / 검증 JMH 벤치마크")
+    void jmhBenchmark() throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(JWTCodecBenchmark.class.getName())
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .threads(4)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,177 @@
+package site.marrymo.restapi.global.jwt.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import site.marrymo.restapi.global.exception.UnAuthorizedException;
+import site.marrymo.restapi.global.jwt.JWTCodec;
+import site.marrymo.restapi.global.jwt.JWTProvider;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.dto.ReissuedTokens;
+import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.user.dto.UserIdentity;
+import site.marrymo.restapi.user.service.UserIdentityService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class TokenRefreshServiceTest {
+    private static final String USER_CODE = "abcd1234";
+    private static final long ACCESS_TOKEN_EXPIRE_TIME = 60 * 60 * 1000L;
+    private static final long REFRESH_TOKEN_EXPIRE_TIME = 30 * 24 * ACCESS_TOKEN_EXPIRE_TIME;
+
+    //서버 여러 대가 같이 쓰는 Redis 대신
+    private final Map<String, String> redis = new ConcurrentHashMap<>();
+
+    private RedisService redisService;
+    private JWTCodec jwtCodec;
+    private JWTProvider jwtProvider;
+
+    @BeforeEach
+    void setUp() {
+        redisService = mock(RedisService.class);
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(redisService).setValue(anyString(), anyString(), anyLong());
+        when(redisService.setValueIfAbsent(anyString(), anyString(), anyLong()))
+                .thenAnswer(invocation -> redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        when(redisService.getValue(anyString())).thenAnswer(invocation -> redis.get(invocation.getArgument(0)));
+        when(redisService.getCachedValue(anyString())).thenAnswer(invocation -> redis.get(invocation.getArgument(0)));
+        when(redisService.compareAndDelete(anyString(), anyString()))
+                .thenAnswer(invocation -> redis.remove(invocation.getArgument(0), invocation.getArgument(1)));
+
+        UserIdentityService userIdentityService = mock(UserIdentityService.class);
+        when(userIdentityService.findByUserCode(USER_CODE))
+                .thenReturn(Optional.of(new UserIdentity(1L, USER_CODE, "marrymo@marrymo.site", false)));
+
+        jwtCodec = spy(new JWTCodec("marrymo-test-salt-marrymo-test-salt"));
+        jwtProvider = new JWTProvider(jwtCodec, userIdentityService, redisService);
+        ReflectionTestUtils.setField(jwtProvider, "accessTokenExpireTime", ACCESS_TOKEN_EXPIRE_TIME);
+        ReflectionTestUtils.setField(jwtProvider, "refreshTokenExpireTime", REFRESH_TOKEN_EXPIRE_TIME);
+    }
+
+    @Test
+    @DisplayName("만료까지 여유가 있는 토큰은 재발급하지 않고, 만료 직전인 토큰만 재발급한다")
+    void refreshWindowTest() {
+        //Given
+        TokenRefreshService tokenRefreshService = tokenRefreshService(new SimpleMeterRegistry());
+        ParsedToken refreshToken = refreshTokenInRedis();
+        ParsedToken accessToken = jwtProvider.parseToken(jwtCodec.issue(USER_CODE, "access-token", ACCESS_TOKEN_EXPIRE_TIME).getToken());
+        ParsedToken nearExpiryAccessToken = jwtProvider.parseToken(jwtCodec.issue(USER_CODE, "access-token", 60 * 1000L).getToken());
+
+        //When
+        ReissuedTokens notReissued = tokenRefreshService.refreshIfNeeded(accessToken, refreshToken);
+        ReissuedTokens reissued = tokenRefreshService.refreshIfNeeded(nearExpiryAccessToken, refreshToken);
+
+        //Then
+        assertTrue(notReissued.isEmpty());
+        assertNotNull(reissued.getAccessToken());
+        assertNull(reissued.getRefreshToken());
+        assertTrue(reissued.getAccessToken().getExpired() * 1000 > System.currentTimeMillis() + ACCESS_TOKEN_EXPIRE_TIME / 2);
+    }
+
+    @Test
+    @DisplayName("같은 사용자의 동시 요청은 서버가 달라도 한 번만 재발급하고 같은 토큰을 나눠 쓴다")
+    void singleFlightTest() throws Exception {
+        //Given
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        List<TokenRefreshService> servers = List.of(tokenRefreshService(meterRegistry), tokenRefreshService(meterRegistry));
+        ParsedToken refreshToken = refreshTokenInRedis();
+        ParsedToken expiredAccessToken = jwtProvider.parseToken(jwtCodec.issue(USER_CODE, "access-token", -1000L).getToken());
+        clearInvocations(jwtCodec);
+
+        int requests = 20;
+        ExecutorService executorService = Executors.newFixedThreadPool(requests);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ReissuedTokens>> futures = new ArrayList<>();
+
+        //When
+        for (int i = 0; i < requests; i++) {
+            TokenRefreshService server = servers.get(i % servers.size());
+            futures.add(executorService.submit(() -> {
+                start.await();
+                return server.refreshIfNeeded(expiredAccessToken, refreshToken);
+            }));
+        }
+        start.countDown();
+
+        List<String> accessTokens = new ArrayList<>();
+        for (Future<ReissuedTokens> future : futures)
+            accessTokens.add(future.get().getAccessToken().getToken());
+        executorService.shutdown();
+
+        //Then
+        assertEquals(1, accessTokens.stream().distinct().count());
+        verify(jwtCodec, times(1)).issue(eq(USER_CODE), eq("access-token"), anyLong());
+        assertEquals(1, meterRegistry.counter("marrymo.token.refresh", "result", "issued").count());
+        assertEquals(requests - 1,
+                meterRegistry.counter("marrymo.token.refresh", "result", "shared_local").count()
+                        + meterRegistry.counter("marrymo.token.refresh", "result", "shared_redis").count());
+    }
+
+    @Test
+    @DisplayName("같은 사용자라도 refresh token이 다른 세션(다른 기기)은 재발급 결과를 나눠 쓰지 않는다")
+    void sessionIsolationTest() {
+        //Given
+        List<TokenRefreshService> servers = List.of(tokenRefreshService(new SimpleMeterRegistry()),
+                tokenRefreshService(new SimpleMeterRegistry()));
+        ParsedToken laptopRefreshToken = refreshTokenInRedis();
+        ParsedToken phoneRefreshToken = refreshTokenInRedis();
+        ParsedToken expiredAccessToken = jwtProvider.parseToken(jwtCodec.issue(USER_CODE, "access-token", -1000L).getToken());
+
+        //When
+        ReissuedTokens laptop = servers.get(0).refreshIfNeeded(expiredAccessToken, laptopRefreshToken);
+        ReissuedTokens laptopAgain = servers.get(1).refreshIfNeeded(expiredAccessToken, laptopRefreshToken);
+        ReissuedTokens phone = servers.get(1).refreshIfNeeded(expiredAccessToken, phoneRefreshToken);
+
+        //Then
+        assertEquals(laptop.getAccessToken().getToken(), laptopAgain.getAccessToken().getToken());
+        assertNotEquals(laptop.getAccessToken().getToken(), phone.getAccessToken().getToken());
+        assertNotEquals(jwtProvider.parseToken(laptop.getAccessToken().getToken()).getTokenId(),
+                jwtProvider.parseToken(phone.getAccessToken().getToken()).getTokenId());
+        assertFalse(redis.containsKey("TokenRefreshResult " + USER_CODE));
+        assertTrue(redis.containsKey("TokenRefreshResult " + laptopRefreshToken.getTokenId()));
+    }
+
+    @Test
+    @DisplayName("로그아웃해서 Redis에 없는 refresh token으로는 access token을 재발급할 수 없다")
+    void refreshTokenNotInRedisTest() {
+        //Given
+        TokenRefreshService tokenRefreshService = tokenRefreshService(new SimpleMeterRegistry());
+        ParsedToken refreshToken = jwtProvider.parseToken(jwtProvider.createRefreshToken(USER_CODE).getToken());
+        ParsedToken expiredAccessToken = jwtProvider.parseToken(jwtCodec.issue(USER_CODE, "access-token", -1000L).getToken());
+
+        //When, Then
+        assertThrows(UnAuthorizedException.class,
+                () -> tokenRefreshService.refreshIfNeeded(expiredAccessToken, refreshToken));
+    }
+
+    private ParsedToken refreshTokenInRedis() {
+        String refreshToken = jwtProvider.createRefreshToken(USER_CODE).getToken();
+        redis.put(refreshToken, USER_CODE);
+        return jwtProvider.parseToken(refreshToken);
+    }
+
+    private TokenRefreshService tokenRefreshService(MeterRegistry meterRegistry) {
+        TokenRefreshService tokenRefreshService = new TokenRefreshService(jwtProvider, redisService, meterRegistry);
+        ReflectionTestUtils.setField(tokenRefreshService, "refreshTokenExpireTime", REFRESH_TOKEN_EXPIRE_TIME);
+        ReflectionTestUtils.setField(tokenRefreshService, "accessTokenRefreshWindow", 5 * 60 * 1000L);
+        ReflectionTestUtils.setField(tokenRefreshService, "refreshTokenRefreshWindow", 24 * ACCESS_TOKEN_EXPIRE_TIME);
+        ReflectionTestUtils.setField(tokenRefreshService, "lockTtlMillis", 3000L);
+        ReflectionTestUtils.setField(tokenRefreshService, "resultTtlMillis", 10000L);
+        return tokenRefreshService;
+    }
+}
@@ -0,0 +1,123 @@
+package site.marrymo.restapi.global.redis.service;
+
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.StatefulRedisConnectionImpl;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 테스트용 Redis 서버(jedis-mock)는 RESP3 / CLIENT TRACKING을 지원하지 않으므로,
+ * Lettuce 연결을 mock으로 두고 Redis가 보내는 invalidate push를 직접 흘려 보낸다.
+ */
+class RedisNearCacheTest {
+    private RedisCommands<String, String> commands;
+    private RedisClient redisClient;
+    private List<PushListener> pushListeners;
+    private MeterRegistry meterRegistry;
+    private RedisNearCache redisNearCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StatefulRedisConnectionImpl<String, String> connection = mock(StatefulRedisConnectionImpl.class);
+        commands = mock(RedisCommands.class);
+        redisClient = mock(RedisClient.class);
+        when(connection.sync()).thenReturn(commands);
+        when(connection.getCodec()).thenReturn(StringCodec.UTF8);
+
+        meterRegistry = new SimpleMeterRegistry();
+        redisNearCache = new RedisNearCache(redisClient, connection, 100, Duration.ofMinutes(1), meterRegistry);
+
+        verify(commands).clientTracking(any(TrackingArgs.class));
+        ArgumentCaptor<PushListener> captor = ArgumentCaptor.forClass(PushListener.class);
+        verify(connection, atLeastOnce()).addListener(captor.capture());
+        pushListeners = captor.getAllValues();
+    }
+
+    @Test
+    @DisplayName("한 번 읽은 key는 서버 메모리에서 읽고, invalidate push를 받으면 다시 Redis에서 읽는다")
+    void invalidationTest() {
+        //Given
+        when(commands.get("refresh-token")).thenReturn("abcd1234", "efgh5678");
+
+        //When, Then
+        assertEquals("abcd1234", redisNearCache.get("refresh-token"));
+        assertEquals("abcd1234", redisNearCache.get("refresh-token"));
+        assertEquals("abcd1234", redisNearCache.get("refresh-token"));
+        verify(commands, times(1)).get("refresh-token");
+
+        invalidate("refresh-token");
+
+        assertEquals("efgh5678", redisNearCache.get("refresh-token"));
+        verify(commands, times(2)).get("refresh-token");
+
+        assertEquals(1, meterRegistry.counter("marrymo.redis.near_cache.invalidations").count());
+        assertEquals(0.5, meterRegistry.get("marrymo.redis.near_cache.hit_ratio").gauge().value());
+    }
+
+    @Test
+    @DisplayName("GET 응답 직후에 invalidate가 먼저 처리되면 읽은 값을 로컬에 넣지 않는다")
+    void invalidationDuringReadTest() {
+        //Given
+        when(commands.get("auth-code")).thenAnswer(invocation -> {
+            invalidate("auth-code");
+            return "111111";
+        }).thenReturn("222222");
+
+        //When, Then
+        assertEquals("111111", redisNearCache.get("auth-code"));
+        assertEquals("222222", redisNearCache.get("auth-code"));
+        assertEquals("222222", redisNearCache.get("auth-code"));
+        verify(commands, times(2)).get("auth-code");
+    }
+
+    @Test
+    @DisplayName("연결이 끊기면 로컬 값을 버리고 tracking을 다시 켤 때까지 Redis에서 직접 읽는다")
+    void disconnectTest() {
+        //Given
+        when(commands.get("refresh-token")).thenReturn("abcd1234");
+        redisNearCache.get("refresh-token");
+        ArgumentCaptor<RedisConnectionStateListener> captor = ArgumentCaptor.forClass(RedisConnectionStateListener.class);
+        verify(redisClient).addListener(captor.capture());
+
+        //When
+        captor.getValue().onRedisDisconnected(null);
+        redisNearCache.get("refresh-token");
+        redisNearCache.get("refresh-token");
+
+        //Then
+        verify(commands, times(3)).get("refresh-token");
+    }
+
+    @SuppressWarnings("unchecked")
+    private void invalidate(String key) {
+        ByteBuffer type = StandardCharsets.UTF_8.encode("invalidate");
+        ByteBuffer rawKey = StandardCharsets.UTF_8.encode(key);
+
+        PushMessage message = mock(PushMessage.class);
+        when(message.getType()).thenReturn("invalidate");
+        when(message.getContent()).thenReturn(List.of(type, List.of(rawKey)));
+        when(message.getContent(any())).thenReturn(List.of("invalidate", List.of(key)));
+
+        pushListeners.forEach(listener -> listener.onPushMessage(message));
+    }
+}
@@ -0,0 +1,147 @@
+package site.marrymo.restapi.global.redis.service;
+
+import com.github.fppt.jedismock.RedisServer;
+import com.github.fppt.jedismock.operations.server.MockExecutor;
+import com.github.fppt.jedismock.server.ServiceOptions;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import site.marrymo.restapi.global.redis.dto.RedisEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//Redis 대신 jedis-mock(RESP 프로토콜을 그대로 구현한 메모리 서버)에 붙여서 테스트한다
+class RedisServiceTest {
+    //클라이언트 연결 / 설정 명령은 세지 않는다
+    private static final Set<String> CONNECTION_COMMANDS = Set.of("hello", "client", "ping", "select");
+
+    private static final List<String> commands = new CopyOnWriteArrayList<>();
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisService redisService;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = RedisServer.newRedisServer()
+                .setOptions(ServiceOptions.withInterceptor((state, command, params) -> {
+                    if (!CONNECTION_COMMANDS.contains(command.toLowerCase()))
+                        commands.add(command.toLowerCase());
+                    return MockExecutor.proceed(state, command, params);
+                }))
+                .start();
+
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+
+        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+
+        redisService = new RedisService(redisTemplate, Optional.empty());
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisService.deleteData(List.of("key", "lock", "code", "a", "b", "c"));
+        commands.clear();
+    }
+
+    @Test
+    @DisplayName("setValue는 기존 값이 있어도 SET 한 번으로 덮어쓰고 만료 시간을 건다")
+    void setValueTest() throws Exception {
+        //Given
+        redisService.setValue("key", "old", 60_000L);
+        commands.clear();
+
+        //When
+        redisService.setValue("key", "new", 100L);
+
+        //Then
+        //SET PX (PSETEX) 명령 하나만 보낸다
+        assertEquals(1, commands.size());
+        assertFalse(commands.contains("del") || commands.contains("exists"));
+        assertEquals("new", redisService.getValue("key"));
+        Thread.sleep(200);
+        assertNull(redisService.getValue("key"));
+    }
+
+    @Test
+    @DisplayName("getAndDelete는 한 번만 값을 돌려준다")
+    void getAndDeleteTest() {
+        //Given
+        redisService.setValue("code", "123456", 60_000L);
+
+        //When, Then
+        assertEquals("123456", redisService.getAndDelete("code"));
+        assertNull(redisService.getAndDelete("code"));
+        assertFalse(redisService.hasKey("code"));
+    }
+
+    @Test
+    @DisplayName("compareAndSet / compareAndDelete는 현재 값이 기대한 값일 때만 바꾸거나 지운다")
+    void compareAndSetTest() {
+        //Given
+        redisService.setValue("key", "v1", 60_000L);
+        redisService.setValueIfAbsent("lock", "owner-1", 60_000L);
+
+        //When, Then
+        assertFalse(redisService.setValueIfAbsent("lock", "owner-2", 60_000L));
+        assertFalse(redisService.compareAndSet("key", "v0", "v2", 60_000L));
+        assertTrue(redisService.compareAndSet("key", "v1", "v2", 60_000L));
+        assertEquals("v2", redisService.getValue("key"));
+
+        //처음 한 번은 스크립트를 Redis에 올린다 (EVALSHA 실패 -> EVAL)
+        redisService.compareAndDelete("none", "owner-1");
+        commands.clear();
+        assertFalse(redisService.compareAndDelete("lock", "owner-2"));
+        assertTrue(redisService.compareAndDelete("lock", "owner-1"));
+        //이후에는 호출마다 EVALSHA 한 번이다
+        assertEquals(List.of("evalsha", "evalsha"), commands);
+        assertFalse(redisService.hasKey("lock"));
+    }
+
+    @Test
+    @DisplayName("여러 key를 한 번에 저장 / 조회 / 삭제한다")
+    void batchTest() {
+        //Given
+        List<RedisEntry> entries = new ArrayList<>();
+        entries.add(RedisEntry.of("a", "1", 60_000L));
+        entries.add(RedisEntry.of("b", "2", 60_000L));
+        entries.add(RedisEntry.of("c", "3", 60_000L));
+
+        //When
+        redisService.setValues(entries);
+        commands.clear();
+        List<String> values = redisService.getValues(Arrays.asList("a", "none", "c"));
+        redisService.deleteData(List.of("a", "b"));
+
+        //Then
+        assertEquals(Arrays.asList("1", null, "3"), values);
+        assertEquals(List.of("mget", "del"), commands);
+        assertNull(redisService.getValue("a"));
+        assertNull(redisService.getValue("b"));
+        assertEquals("3", redisService.getValue("c"));
+    }
+}
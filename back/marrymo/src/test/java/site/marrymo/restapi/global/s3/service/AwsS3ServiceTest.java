@@ -0,0 +1,182 @@
+package site.marrymo.restapi.global.s3.service;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ListPartsRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PartListing;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+import site.marrymo.restapi.global.s3.exception.S3ErrorCode;
+import site.marrymo.restapi.global.s3.exception.S3Exception;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AwsS3ServiceTest {
+    private static final long THRESHOLD = 6 * 1024 * 1024;
+    private static final long PART_SIZE = 5 * 1024 * 1024;
+
+    private AmazonS3 amazonS3;
+    private TransferManager transferManager;
+    private SimpleMeterRegistry meterRegistry;
+    private ThreadPoolTaskExecutor imageUploadExecutor;
+    private AwsS3Service awsS3Service;
+
+    @BeforeEach
+    void setUp() {
+        amazonS3 = mock(AmazonS3.class);
+        when(amazonS3.putObject(any(PutObjectRequest.class))).thenReturn(new PutObjectResult());
+        when(amazonS3.initiateMultipartUpload(any(InitiateMultipartUploadRequest.class))).thenAnswer(invocation -> {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setUploadId("upload-id");
+            return result;
+        });
+        when(amazonS3.listParts(any(ListPartsRequest.class))).thenReturn(new PartListing());
+        when(amazonS3.uploadPart(any(UploadPartRequest.class))).thenAnswer(invocation -> {
+            UploadPartRequest request = invocation.getArgument(0);
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag("etag-" + request.getPartNumber());
+            return result;
+        });
+        when(amazonS3.completeMultipartUpload(any(CompleteMultipartUploadRequest.class)))
+                .thenReturn(new CompleteMultipartUploadResult());
+
+        transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3)
+                .withMultipartUploadThreshold(THRESHOLD)
+                .withMinimumUploadPartSize(PART_SIZE)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(4))
+                .build();
+
+        meterRegistry = new SimpleMeterRegistry();
+        imageUploadExecutor = new ThreadPoolTaskExecutor();
+        imageUploadExecutor.setCorePoolSize(4);
+        imageUploadExecutor.setMaxPoolSize(4);
+        imageUploadExecutor.initialize();
+        awsS3Service = new AwsS3Service(transferManager, meterRegistry, imageUploadExecutor);
+        ReflectionTestUtils.setField(awsS3Service, "bucket", "marrymo");
+        ReflectionTestUtils.setField(awsS3Service, "multipartThreshold", THRESHOLD);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transferManager.shutdownNow(false);
+        imageUploadExecutor.shutdown();
+    }
+
+    @Test
+    @DisplayName("작은 이미지는 존재 확인 / 삭제 없이 한 번의 PUT으로 올린다")
+    void smallImageUploadTest() throws Exception {
+        //Given
+        MockMultipartFile file = new MockMultipartFile("file", "a.png", "image/png", new byte[1024]);
+
+        //When
+        String url = awsS3Service.uploadFileImage("wedding_img", file, "abc123");
+
+        //Then
+        assertEquals("https://marrymo.s3.amazonaws.com/wedding_img/abc123a.png", url);
+        verify(amazonS3, times(1)).putObject(any(PutObjectRequest.class));
+        verify(amazonS3, never()).doesObjectExist(any(), any());
+        verify(amazonS3, never()).deleteObject(any(), any());
+        verify(amazonS3, never()).initiateMultipartUpload(any());
+        assertEquals(1, meterRegistry.get("marrymo.s3.upload").tag("type", "image").timer().count());
+    }
+
+    @Test
+    @DisplayName("큰 이미지는 임시 파일로 옮긴 뒤 조각으로 나눠 올린다")
+    void largeImageMultipartUploadTest() throws Exception {
+        //Given
+        MockMultipartFile file = new MockMultipartFile("file", "b.png", "image/png", new byte[12 * 1024 * 1024]);
+
+        //When
+        awsS3Service.uploadFileImage("wedding_img", file, "abc123");
+
+        //Then
+        verify(amazonS3, times(1)).initiateMultipartUpload(any());
+        verify(amazonS3, atLeast(2)).uploadPart(any());
+        verify(amazonS3, times(1)).completeMultipartUpload(argThatHasParts());
+        verify(amazonS3, never()).putObject(any(PutObjectRequest.class));
+    }
+
+    @Test
+    @DisplayName("정산 엑셀 파일도 크기가 임계값을 넘으면 multipart로 올린다")
+    void excelFileMultipartUploadTest() throws Exception {
+        //Given
+        Path excel = Files.createTempFile("settlement", ".xlsx");
+        Files.write(excel, new byte[11 * 1024 * 1024]);
+        File file = excel.toFile();
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(file.length());
+
+        try {
+            //When
+            String url = awsS3Service.uploadExcelFile("excel", file, "abc123.xlsx", metadata);
+
+            //Then
+            assertEquals("https://marrymo.s3.amazonaws.com/abc123.xlsx", url);
+            verify(amazonS3, atLeast(2)).uploadPart(any());
+            assertEquals(11 * 1024 * 1024,
+                    meterRegistry.get("marrymo.s3.upload.bytes").tag("type", "excel").summary().totalAmount());
+        } finally {
+            Files.deleteIfExists(excel);
+        }
+    }
+
+    @Test
+    @DisplayName("여러 이미지를 동시에 올리다 하나가 실패하면, 올라간 이미지 중 쓰고 있지 않은 이미지만 지운다")
+    void concurrentImageUploadRollbackTest() {
+        //Given
+        when(amazonS3.putObject(argThat((PutObjectRequest request) -> request != null
+                && request.getKey().endsWith("c.png"))))
+                .thenThrow(new AmazonServiceException("slow down"));
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("file", "a.png", "image/png", new byte[16]),
+                new MockMultipartFile("file", "b.png", "image/png", new byte[16]),
+                new MockMultipartFile("file", "c.png", "image/png", new byte[16]));
+        List<String> inUseUrls = List.of("https://marrymo.s3.amazonaws.com/wedding_img/abc123a.png");
+
+        //When
+        S3Exception exception = assertThrows(S3Exception.class,
+                () -> awsS3Service.uploadFileImages("wedding_img", files, "abc123", inUseUrls));
+
+        //Then
+        assertEquals(S3ErrorCode.UNABLE_TO_UPLOAD_IMAGE.getErrorCode(), exception.getErrorCode());
+        verify(amazonS3, times(3)).putObject(any(PutObjectRequest.class));
+        verify(amazonS3).deleteObject("marrymo", "wedding_img/abc123b.png");
+        verify(amazonS3, never()).deleteObject("marrymo", "wedding_img/abc123a.png");
+    }
+
+    private static CompleteMultipartUploadRequest argThatHasParts() {
+        return argThat(request -> request.getPartETags().stream()
+                .map(PartETag::getPartNumber)
+                .distinct()
+                .count() >= 2);
+    }
+}
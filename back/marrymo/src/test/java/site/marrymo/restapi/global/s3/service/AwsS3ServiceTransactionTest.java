@@ -0,0 +1,116 @@
+package site.marrymo.restapi.global.s3.service;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+//트랜잭션 proxy가 붙는지 확인해야 하므로 Spring 컨텍스트에서 꺼낸 빈으로 테스트한다
+//테스트가 끝나면 컨텍스트를 닫아 업로드 스레드 풀을 종료한다
+@SpringJUnitConfig(AwsS3ServiceTransactionTest.Config.class)
+@DirtiesContext
+class AwsS3ServiceTransactionTest {
+    //업로드를 맡길 때 호출한 스레드에 트랜잭션이 있었는지
+    private static final Queue<Boolean> transactionActive = new ConcurrentLinkedQueue<>();
+
+    @Autowired
+    private AwsS3Service awsS3Service;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        transactionActive.clear();
+        clearInvocations(dataSource);
+        ReflectionTestUtils.setField(awsS3Service, "bucket", "marrymo");
+        ReflectionTestUtils.setField(awsS3Service, "multipartThreshold", 8L * 1024 * 1024);
+    }
+
+    @Test
+    @DisplayName("이미지를 올리고 지우는 동안 트랜잭션을 열지 않는다 (DB connection을 잡지 않는다)")
+    void noTransactionDuringUploadTest() throws Exception {
+        //Given
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("file", "a.png", "image/png", new byte[1024]),
+                new MockMultipartFile("file", "b.png", "image/png", new byte[1024]));
+
+        //When
+        List<String> urls = awsS3Service.uploadFileImages("wedding_img", files, "abc123", List.of());
+        awsS3Service.deleteFiles(urls, List.of());
+
+        //Then
+        assertEquals(List.of(false, false), List.copyOf(transactionActive));
+        verify(dataSource, never()).getConnection();
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+        @Bean
+        DataSource dataSource() throws Exception {
+            DataSource dataSource = mock(DataSource.class);
+            when(dataSource.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+            return dataSource;
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean(destroyMethod = "shutdownNow")
+        TransferManager transferManager() {
+            AmazonS3 amazonS3 = mock(AmazonS3.class);
+            when(amazonS3.putObject(any(PutObjectRequest.class))).thenReturn(new PutObjectResult());
+            return TransferManagerBuilder.standard().withS3Client(amazonS3).build();
+        }
+
+        @Bean
+        ThreadPoolTaskExecutor imageUploadExecutor() {
+            ThreadPoolTaskExecutor imageUploadExecutor = new ThreadPoolTaskExecutor();
+            imageUploadExecutor.setCorePoolSize(2);
+            //업로드를 맡기는 시점(호출한 스레드)의 트랜잭션 상태를 기록한다
+            imageUploadExecutor.setTaskDecorator(task -> {
+                transactionActive.add(TransactionSynchronizationManager.isActualTransactionActive());
+                return task;
+            });
+            return imageUploadExecutor;
+        }
+
+        @Bean
+        AwsS3Service awsS3Service(TransferManager transferManager, ThreadPoolTaskExecutor imageUploadExecutor) {
+            MeterRegistry meterRegistry = new SimpleMeterRegistry();
+            return new AwsS3Service(transferManager, meterRegistry, imageUploadExecutor);
+        }
+    }
+}
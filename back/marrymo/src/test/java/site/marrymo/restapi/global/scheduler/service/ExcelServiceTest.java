@@ -0,0 +1,259 @@
+package site.marrymo.restapi.global.scheduler.service;
+
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneygiftGetResponse;
+import site.marrymo.restapi.moneygift_history.service.MoneygiftService;
+import site.marrymo.restapi.user.dto.UserDTO;
+import site.marrymo.restapi.wishitem.dto.response.WishItemEach;
+import site.marrymo.restapi.wishitem.repository.WishItemRepository;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ExcelServiceTest {
+    @InjectMocks
+    private ExcelService excelService;
+
+    @Mock
+    private MoneygiftService moneygiftService;
+
+    @Mock
+    private WishItemRepository wishItemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final UserDTO user = UserDTO.builder().userSequence(1L).userCode("abc123").build();
+
+    private final NumberFormat formatter = NumberFormat.getNumberInstance();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(excelService, "rowAccessWindow", 2);
+        ReflectionTestUtils.setField(excelService, "compressTempFiles", true);
+    }
+
+    @Test
+    @DisplayName("행 단위로 흘려 쓰더라도 축의금 / 위시리스트 / 통계 블록이 같은 행에 나란히 들어간다")
+    void createExcelLayoutTest() throws Exception {
+        //Given
+        List<MoneyInfo> moneyList = List.of(
+                gift(1L, Type.CASH, null, "신부", "친구", "김자바", 50000),
+                gift(2L, Type.CASH, null, "신부", "동료", "김씨샵", 30000),
+                gift(3L, Type.CASH, null, "신랑", "가족", "김파이", 10000),
+                gift(4L, Type.ITEM, 7L, "신부", "친구", "김노드", 20000),
+                gift(5L, Type.ITEM, 7L, "신부", "가족", "김알고", 40000));
+
+        when(moneygiftService.getMoneygiftInfo(user)).thenReturn(MoneygiftGetResponse.builder()
+                .moneygiftListSum(90000L)
+                .wishItemListSum(60000L)
+                .totalSum(150000L)
+                .moneyList(moneyList)
+                .build());
+        when(wishItemRepository.findWishItemEachByUserSequence(1L)).thenReturn(List.of(
+                new WishItemEach(7L, "냉장고", 1000000, "https://marrymo.site/item/7")));
+
+        //When
+        Path excel = excelService.createExcel(user);
+
+        //Then
+        try (InputStream inputStream = Files.newInputStream(excel);
+             Workbook workbook = new XSSFWorkbook(inputStream)) {
+            Sheet sheet = workbook.getSheet("신부 축의금 내역");
+
+            assertEquals("신부 축의금 내역", text(sheet, 3, 6));
+            assertEquals("품목", text(sheet, 7, 2));
+            assertEquals("구분", text(sheet, 7, 15));
+
+            //8행: 축의금 첫 번째, 위시 아이템 이름, 통계 첫 줄
+            assertEquals(1, sheet.getRow(8).getCell(9).getNumericCellValue());
+            assertEquals("김자바", text(sheet, 8, 11));
+            assertEquals("냉장고", text(sheet, 8, 2));
+            assertEquals(formatter.format(1000000), text(sheet, 8, 6));
+            assertEquals("축의금", text(sheet, 8, 15));
+            assertEquals(formatter.format(90000), text(sheet, 8, 16));
+
+            //축의금 합계
+            assertEquals("합계", text(sheet, 10, 11));
+            assertEquals(formatter.format(80000), text(sheet, 10, 12));
+
+            //위시 아이템 보낸 사람, 누계, 합계
+            assertEquals("김노드", text(sheet, 9, 5));
+            assertEquals(2, sheet.getRow(10).getCell(3).getNumericCellValue());
+            assertEquals("누계", text(sheet, 11, 5));
+            assertEquals(formatter.format(60000), text(sheet, 11, 6));
+            assertEquals("합계", text(sheet, 12, 5));
+            assertEquals("(부부 합계)", text(sheet, 11, 16));
+
+            Sheet groomSheet = workbook.getSheet("신랑 축의금 내역");
+            assertEquals("김파이", text(groomSheet, 8, 11));
+            assertEquals("합계", text(groomSheet, 9, 11));
+        } finally {
+            Files.deleteIfExists(excel);
+        }
+
+        //두 시트를 그리는 동안 조회는 송금 내역 한 번, 위시 아이템 한 번
+        verify(moneygiftService, times(1)).getMoneygiftInfo(user);
+        verify(wishItemRepository, times(1)).findWishItemEachByUserSequence(1L);
+        //조회만 읽기 전용 트랜잭션 하나에서 한다
+        verify(transactionManager, times(1)).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    @DisplayName("송금 이후 삭제된 위시 아이템도 엑셀에 남는다")
+    void createExcelWithDeletedWishItemTest() throws Exception {
+        //Given
+        //삭제된 위시 아이템은 조인 결과가 없어서 wishItemSequence가 null로 온다
+        when(moneygiftService.getMoneygiftInfo(user)).thenReturn(MoneygiftGetResponse.builder()
+                .moneygiftListSum(0L)
+                .wishItemListSum(20000L)
+                .totalSum(20000L)
+                .moneyList(List.of(gift(1L, Type.ITEM, null, "신부", "친구", "김노드", 20000)))
+                .build());
+        when(wishItemRepository.findWishItemEachByUserSequence(1L)).thenReturn(List.of());
+
+        //When
+        Path excel = excelService.createExcel(user);
+
+        //Then
+        try (InputStream inputStream = Files.newInputStream(excel);
+             Workbook workbook = new XSSFWorkbook(inputStream)) {
+            Sheet sheet = workbook.getSheet("신부 축의금 내역");
+            assertEquals("삭제된 위시 아이템", text(sheet, 8, 2));
+            assertEquals("김노드", text(sheet, 9, 5));
+        } finally {
+            Files.deleteIfExists(excel);
+        }
+    }
+
+    /**
+     * 송금 내역 수에 따른 엑셀 생성 시간 / 최대 힙 사용량 비교
+     * window=-1은 모든 행을 메모리에 두는 방식(기존 XSSF와 같음), window=100은 스트리밍 방식
+     * BENCHMARK=true 환경 변수가 있을 때만 실행한다
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+    @DisplayName("엑셀 생성 벤치마크 (100 / 10k / 100k 행)")
+    void createExcelBenchmark() throws Exception {
+        List<WishItemEach> wishItems = new ArrayList<>();
+        for (long i = 0; i < 20; i++)
+            wishItems.add(new WishItemEach(i, "위시 아이템" + i, 1000000, "https://marrymo.site/item/" + i));
+        when(wishItemRepository.findWishItemEachByUserSequence(1L)).thenReturn(wishItems);
+
+        System.out.printf("%-8s %-8s %10s %14s%n", "rows", "window", "time(ms)", "peakHeap(MB)");
+        for (int rows : new int[] {100, 10_000, 100_000}) {
+            when(moneygiftService.getMoneygiftInfo(user)).thenReturn(benchmarkResponse(rows));
+
+            for (int window : new int[] {-1, 100}) {
+                ReflectionTestUtils.setField(excelService, "rowAccessWindow", window);
+
+                HeapSampler sampler = new HeapSampler();
+                long start = System.nanoTime();
+                Path excel = excelService.createExcel(user);
+                long elapsed = (System.nanoTime() - start) / 1_000_000;
+                long peak = sampler.stop();
+                Files.deleteIfExists(excel);
+
+                System.out.printf("%-8d %-8d %10d %14.1f%n", rows, window, elapsed, peak / 1024.0 / 1024.0);
+            }
+        }
+    }
+
+    private MoneygiftGetResponse benchmarkResponse(int rows) {
+        List<MoneyInfo> moneyList = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            String guestType = (i % 2 == 0) ? "신부" : "신랑";
+            if (i % 10 == 0)
+                moneyList.add(gift((long)i, Type.ITEM, (long)(i % 20), guestType, "친구", "하객" + i, 30000));
+            else
+                moneyList.add(gift((long)i, Type.CASH, null, guestType, "친구", "하객" + i, 50000));
+        }
+
+        return MoneygiftGetResponse.builder()
+                .moneygiftListSum(0L)
+                .wishItemListSum(0L)
+                .totalSum(0L)
+                .moneyList(moneyList)
+                .build();
+    }
+
+    private MoneyInfo gift(Long sequence, Type type, Long wishItemSequence, String guestType, String relationship,
+                           String sender, int amount) {
+        return MoneyInfo.builder()
+                .moneygiftSequence(sequence)
+                .userSequence(1L)
+                .wishItemSequence(wishItemSequence)
+                .type(type)
+                .sender(sender)
+                .amount(amount)
+                .relationship(relationship)
+                .guestType(guestType)
+                .build();
+    }
+
+    private String text(Sheet sheet, int row, int column) {
+        Row sheetRow = sheet.getRow(row);
+        return sheetRow.getCell(column).getStringCellValue();
+    }
+
+    //실행하는 동안 사용 중인 힙을 주기적으로 측정해서 최대값(시작 시점 대비)을 구한다
+    private static class HeapSampler {
+        private final Runtime runtime = Runtime.getRuntime();
+        private final long baseline;
+        private volatile boolean running = true;
+        private volatile long peak;
+        private final Thread thread;
+
+        HeapSampler() {
+            System.gc();
+            baseline = used();
+            thread = new Thread(() -> {
+                while (running) {
+                    peak = Math.max(peak, used() - baseline);
+                    try {
+                        Thread.sleep(2);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long stop() throws InterruptedException {
+            running = false;
+            thread.join();
+            return Math.max(peak, used() - baseline);
+        }
+
+        private long used() {
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package site.marrymo.restapi.global.scheduler.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.test.util.ReflectionTestUtils;
+import site.marrymo.restapi.card.entity.Card;
+import site.marrymo.restapi.card.service.CardService;
+import site.marrymo.restapi.global.scheduler.dto.SettlementStage;
+import site.marrymo.restapi.global.scheduler.dto.SettlementSummary;
+import site.marrymo.restapi.global.smtp.dto.SettlementMail;
+import site.marrymo.restapi.global.smtp.service.SmtpService;
+import site.marrymo.restapi.user.dto.UserDTO;
+import site.marrymo.restapi.user.entity.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SettlementServiceTest {
+    @Mock
+    private CardService cardService;
+
+    @Mock
+    private ExcelService excelService;
+
+    @Mock
+    private SmtpService smtpService;
+
+    private SettlementService settlementService;
+
+    @BeforeEach
+    void setUp() {
+        settlementService = new SettlementService(cardService, excelService, smtpService, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(settlementService, "workerCount", 4);
+        ReflectionTestUtils.setField(settlementService, "buildConcurrency", 2);
+        ReflectionTestUtils.setField(settlementService, "uploadConcurrency", 2);
+        ReflectionTestUtils.setField(settlementService, "mailConcurrency", 1);
+        ReflectionTestUtils.setField(settlementService, "mailBatchSize", 10);
+        ReflectionTestUtils.setField(settlementService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(settlementService, "retryBackoffMillis", 1L);
+    }
+
+    @Test
+    @DisplayName("한 부부의 정산이 실패해도 나머지 부부는 정산되고, 일시적인 실패는 재시도한다")
+    @SuppressWarnings("unchecked")
+    void settlementIsolationAndRetryTest() throws Exception {
+        //Given
+        User success = couple("abc123", "success@marrymo.site");
+        User failure = couple("def456", "failure@marrymo.site");
+        when(cardService.findUserSequenceByWeddingDateAndIsIssued()).thenReturn(List.of(success, failure));
+
+        Path excel = Files.createTempFile("settlement", ".xlsx");
+        when(excelService.createExcel(argThat(user -> user != null && user.getUserCode().equals("abc123"))))
+                .thenReturn(excel);
+        when(excelService.createExcel(argThat(user -> user != null && user.getUserCode().equals("def456"))))
+                .thenThrow(new IOException("disk full"));
+        when(excelService.uploadExcel("abc123", excel)).thenReturn("https://marrymo.site/excel");
+
+        //첫 번째 batch는 연결 실패, 두 번째는 성공
+        when(smtpService.sendSettlementEmails(anyList()))
+                .thenThrow(new MailSendException("smtp timeout"))
+                .thenReturn(List.of());
+
+        //When
+        SettlementSummary summary = settlementService.run();
+
+        //Then
+        assertEquals(2, summary.getTotal());
+        assertEquals(1, summary.getSucceeded());
+        assertEquals(List.of("def456"), summary.getFailedUserCodes());
+        assertTrue(summary.getStageTotalMillis().containsKey(SettlementStage.MAIL));
+
+        verify(excelService, times(3)).createExcel(argThat((UserDTO user) -> user.getUserCode().equals("def456")));
+        verify(excelService, times(1)).createExcel(argThat((UserDTO user) -> user.getUserCode().equals("abc123")));
+        ArgumentCaptor<List<SettlementMail>> batches = ArgumentCaptor.forClass(List.class);
+        verify(smtpService, times(2)).sendSettlementEmails(batches.capture());
+        for (List<SettlementMail> batch : batches.getAllValues()) {
+            assertEquals(1, batch.size());
+            assertEquals("success@marrymo.site", batch.get(0).getEmail());
+            assertEquals("https://marrymo.site/excel", batch.get(0).getFileUrl());
+        }
+        //업로드가 끝난 엑셀 임시 파일은 삭제된다
+        assertFalse(Files.exists(excel));
+    }
+
+    @Test
+    @DisplayName("메일은 batch 단위로 보내고, batch 안에서 실패한 메일만 다시 보낸다")
+    void mailBatchTest() throws Exception {
+        //Given
+        List<User> couples = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            couples.add(couple("user" + i, "user" + i + "@marrymo.site"));
+        }
+        when(cardService.findUserSequenceByWeddingDateAndIsIssued()).thenReturn(couples);
+        when(excelService.createExcel(any())).thenAnswer(invocation -> Files.createTempFile("settlement", ".xlsx"));
+        when(excelService.uploadExcel(anyString(), any())).thenReturn("https://marrymo.site/excel");
+
+        //user3은 계속 실패한다
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(smtpService.sendSettlementEmails(anyList())).thenAnswer(invocation -> {
+            List<SettlementMail> batch = invocation.getArgument(0);
+            batchSizes.add(batch.size());
+            return batch.stream().filter(mail -> mail.getEmail().equals("user3@marrymo.site")).toList();
+        });
+
+        //When
+        SettlementSummary summary = settlementService.run();
+
+        //Then
+        assertEquals(24, summary.getSucceeded());
+        assertEquals(List.of("user3"), summary.getFailedUserCodes());
+        //25통은 10 / 10 / 5 세 batch로, 실패한 1통은 두 번 더 보낸다
+        assertEquals(List.of(1, 1, 5, 10, 10), batchSizes.stream().sorted().toList());
+    }
+
+    private User couple(String userCode, String email) {
+        User user = User.builder()
+                .kakaoId(email)
+                .userCode(userCode)
+                .email(email)
+                .isRequired(true)
+                .build();
+
+        Card card = Card.builder()
+                .user(user)
+                .groomName("김자바")
+                .brideName("김씨샵")
+                .isIssued(true)
+                .build();
+        ReflectionTestUtils.setField(user, "card", card);
+
+        return user;
+    }
+}
@@ -0,0 +1,250 @@
+package site.marrymo.restapi.global.security.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.core.MethodParameter;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import site.marrymo.restapi.global.annotation.LoginUser;
+import site.marrymo.restapi.global.annotation.LoginUserArgumentResolver;
+import site.marrymo.restapi.global.cache.TwoTierCache;
+import site.marrymo.restapi.global.exception.UnAuthorizedException;
+import site.marrymo.restapi.global.jwt.JWTCodec;
+import site.marrymo.restapi.global.jwt.JWTProvider;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
+import site.marrymo.restapi.global.jwt.exception.JWTErrorCode;
+import site.marrymo.restapi.global.jwt.exception.JWTException;
+import site.marrymo.restapi.global.jwt.service.TokenRefreshService;
+import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.global.security.userdetails.MarrymoPrincipal;
+import site.marrymo.restapi.user.dto.UserDTO;
+import site.marrymo.restapi.user.dto.UserIdentity;
+import site.marrymo.restapi.user.repository.UserRepository;
+import site.marrymo.restapi.user.service.UserIdentityService;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterTest {
+    private static final String USER_CODE = "abcd1234";
+    private static final long ACCESS_TOKEN_EXPIRE_TIME = 60 * 60 * 1000L;
+
+    private UserRepository userRepository;
+    private RedisService redisService;
+    private JWTCodec jwtCodec;
+    private JWTProvider jwtProvider;
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+    private LoginUserArgumentResolver loginUserArgumentResolver;
+    private MethodParameter loginUserParameter;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userRepository = mock(UserRepository.class);
+        redisService = mock(RedisService.class);
+
+        when(userRepository.findIdentityByUserCode(USER_CODE))
+                .thenReturn(Optional.of(new UserIdentity(1L, USER_CODE, "marrymo@marrymo.site", false)));
+
+        TwoTierCache<UserIdentity> userIdentityCache = new TwoTierCache<>("user-identity", "UserIdentity ",
+                UserIdentity.class, 100, Duration.ofMinutes(1), Duration.ofMinutes(1), redisService,
+                new ObjectMapper(), new SimpleMeterRegistry());
+        UserIdentityService userIdentityService = new UserIdentityService(userRepository, userIdentityCache);
+
+        jwtCodec = spy(new JWTCodec("marrymo-test-salt-marrymo-test-salt"));
+        jwtProvider = new JWTProvider(jwtCodec, userIdentityService, redisService);
+        ReflectionTestUtils.setField(jwtProvider, "accessTokenExpireTime", ACCESS_TOKEN_EXPIRE_TIME);
+        ReflectionTestUtils.setField(jwtProvider, "refreshTokenExpireTime", 30 * 24 * ACCESS_TOKEN_EXPIRE_TIME);
+
+        when(redisService.setValueIfAbsent(any(), any(), any())).thenReturn(true);
+        TokenRefreshService tokenRefreshService = new TokenRefreshService(jwtProvider, redisService,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenRefreshService, "refreshTokenExpireTime", 30 * 24 * ACCESS_TOKEN_EXPIRE_TIME);
+        ReflectionTestUtils.setField(tokenRefreshService, "accessTokenRefreshWindow", 5 * 60 * 1000L);
+        ReflectionTestUtils.setField(tokenRefreshService, "refreshTokenRefreshWindow", 24 * ACCESS_TOKEN_EXPIRE_TIME);
+        ReflectionTestUtils.setField(tokenRefreshService, "lockTtlMillis", 3000L);
+        ReflectionTestUtils.setField(tokenRefreshService, "resultTtlMillis", 10000L);
+
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(jwtProvider, tokenRefreshService, userIdentityService);
+        loginUserArgumentResolver = new LoginUserArgumentResolver();
+        loginUserParameter = new MethodParameter(
+                JwtAuthenticationFilterTest.class.getDeclaredMethod("handler", UserDTO.class), 0);
+    }
+
+    @Test
+    @DisplayName("필터와 @LoginUser를 거치는 한 요청 동안 토큰마다 서명 검증은 한 번만 한다")
+    void parseOncePerRequestTest() throws Exception {
+        //Given
+        String accessToken = jwtProvider.createAccessToken(USER_CODE).getToken();
+        String refreshToken = jwtProvider.createRefreshToken(USER_CODE).getToken();
+        String expiredAccessToken = expiredAccessToken();
+        when(redisService.getCachedValue(refreshToken)).thenReturn(USER_CODE);
+
+        //When, Then
+        assertEquals(2, countParses(accessToken, refreshToken));
+        //access token이 만료되어 재발급하는 경우에도 같다
+        assertEquals(2, countParses(expiredAccessToken, refreshToken));
+    }
+
+    @Test
+    @DisplayName("userCode 식별 정보는 캐시에서 찾아 요청마다 MySQL을 조회하지 않는다")
+    void userIdentityCacheTest() throws Exception {
+        //Given
+        String accessToken = jwtProvider.createAccessToken(USER_CODE).getToken();
+        String refreshToken = jwtProvider.createRefreshToken(USER_CODE).getToken();
+
+        //When
+        for (int i = 0; i < 3; i++) {
+            UserDTO userDTO = handleRequest(accessToken, refreshToken);
+            assertEquals(1L, userDTO.getUserSequence());
+        }
+
+        //Then
+        verify(userRepository, times(1)).findIdentityByUserCode(USER_CODE);
+        verify(userRepository, never()).findByUserCode(any());
+    }
+
+    @Test
+    @DisplayName("@LoginUser는 필터가 SecurityContext에 올린 로그인 사용자 정보로 만들고 user 테이블을 조회하지 않는다")
+    void loginUserPrincipalTest() throws Exception {
+        //Given
+        String accessToken = jwtProvider.createAccessToken(USER_CODE).getToken();
+        String refreshToken = jwtProvider.createRefreshToken(USER_CODE).getToken();
+
+        //When
+        UserDTO userDTO = handleRequest(accessToken, refreshToken);
+
+        //Then
+        assertEquals(1L, userDTO.getUserSequence());
+        assertEquals(USER_CODE, userDTO.getUserCode());
+        assertEquals("marrymo@marrymo.site", userDTO.getEmail());
+        assertInstanceOf(MarrymoPrincipal.class, SecurityContextHolder.getContext().getAuthentication().getPrincipal());
+        verify(userRepository, never()).findByUserCode(any());
+        verify(userRepository, never()).findByUserSequence(any());
+
+        //비회원 요청은 인증 정보가 없으므로 null
+        SecurityContextHolder.clearContext();
+        assertNull(loginUserArgumentResolver.resolveArgument(loginUserParameter, null,
+                new ServletWebRequest(new MockHttpServletRequest()), null));
+    }
+
+    @Test
+    @DisplayName("토큰 쿠키가 있는데 인증 정보가 없으면(검증 뒤 사용자가 사라진 경우) @LoginUser는 INVALID_TOKEN(401)으로 거절한다")
+    void loginUserWithoutPrincipalTest() {
+        //Given
+        String accessToken = jwtProvider.createAccessToken(USER_CODE).getToken();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/moneygift/history");
+        request.setCookies(new Cookie("accessToken", accessToken));
+        SecurityContextHolder.clearContext();
+
+        //When
+        JWTException exception = assertThrows(JWTException.class,
+                () -> loginUserArgumentResolver.resolveArgument(loginUserParameter, null,
+                        new ServletWebRequest(request), null));
+
+        //Then
+        assertEquals(JWTErrorCode.INVALID_TOKEN.getErrorCode(), exception.getErrorCode());
+    }
+
+    @Test
+    @DisplayName("로그아웃한 refresh token은 토큰 ID로 Redis에 만료 시각까지만 저장되고, 다시 쓰면 401")
+    void revokedRefreshTokenTest() {
+        //Given
+        String accessToken = jwtProvider.createAccessToken(USER_CODE).getToken();
+        String refreshToken = jwtProvider.createRefreshToken(USER_CODE).getToken();
+        ParsedToken parsedRefreshToken = jwtProvider.parseToken(refreshToken);
+
+        //When
+        jwtProvider.revokeToken(parsedRefreshToken);
+
+        //Then
+        String key = "RevokedToken " + parsedRefreshToken.getTokenId();
+        assertEquals(22, parsedRefreshToken.getTokenId().length());
+        verify(redisService).setValue(eq(key), eq("1"),
+                longThat(ttl -> ttl > 0 && ttl <= 30 * 24 * ACCESS_TOKEN_EXPIRE_TIME));
+
+        when(redisService.hasKey(key)).thenReturn(true);
+        assertThrows(UnAuthorizedException.class, () -> handleRequest(accessToken, refreshToken));
+    }
+
+    /**
+     * 요청 한 번에 드는 토큰 파싱(HMAC 검증) 횟수와 시간
+     * BENCHMARK=true 환경 변수가 있을 때만 실행한다
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+    @DisplayName("요청당 토큰 검증 비용 벤치마크")
+    void tokenVerificationBenchmark() throws Exception {
+        String accessToken = jwtProvider.createAccessToken(USER_CODE).getToken();
+        String refreshToken = jwtProvider.createRefreshToken(USER_CODE).getToken();
+        String expiredAccessToken = expiredAccessToken();
+        when(redisService.getCachedValue(refreshToken)).thenReturn(USER_CODE);
+
+        int warmup = 5_000;
+        int requests = 20_000;
+        System.out.printf("%-16s %16s %16s%n", "case", "parses/request", "us/request");
+        for (String[] tokens : new String[][] {{"valid", accessToken}, {"access-expired", expiredAccessToken}}) {
+            long parses = countParses(tokens[1], refreshToken);
+
+            for (int i = 0; i < warmup; i++)
+                handleRequest(tokens[1], refreshToken);
+
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++)
+                handleRequest(tokens[1], refreshToken);
+            double elapsedMicros = (System.nanoTime() - start) / 1000.0 / requests;
+
+            System.out.printf("%-16s %16d %16.1f%n", tokens[0], parses, elapsedMicros);
+        }
+    }
+
+    private long countParses(String accessToken, String refreshToken) throws Exception {
+        clearInvocations(jwtCodec);
+
+        UserDTO userDTO = handleRequest(accessToken, refreshToken);
+        assertEquals(USER_CODE, userDTO.getUserCode());
+
+        return mockingDetails(jwtCodec).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("parse"))
+                .count();
+    }
+
+    private UserDTO handleRequest(String accessToken, String refreshToken) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/moneygift/history");
+        request.setCookies(new Cookie("accessToken", accessToken), new Cookie("refreshToken", refreshToken));
+
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        return (UserDTO)loginUserArgumentResolver.resolveArgument(loginUserParameter, null,
+                new ServletWebRequest(request), null);
+    }
+
+    private String expiredAccessToken() {
+        ReflectionTestUtils.setField(jwtProvider, "accessTokenExpireTime", -ACCESS_TOKEN_EXPIRE_TIME);
+        String token = jwtProvider.createAccessToken(USER_CODE).getToken();
+        ReflectionTestUtils.setField(jwtProvider, "accessTokenExpireTime", ACCESS_TOKEN_EXPIRE_TIME);
+        return token;
+    }
+
+    private void handler(@LoginUser UserDTO userDTO) {
+    }
+}
@@ -0,0 +1,240 @@
+package site.marrymo.restapi.global.smtp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fppt.jedismock.RedisServer;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import site.marrymo.restapi.global.redis.service.RedisService;
+import site.marrymo.restapi.global.smtp.dto.MailJob;
+import site.marrymo.restapi.global.smtp.exception.SmtpErrorCode;
+import site.marrymo.restapi.global.smtp.exception.SmtpException;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+//Redis 대신 jedis-mock, SMTP 서버 대신 GreenMail에 붙여서 테스트한다
+class MailQueueServiceTest {
+    private static final List<String> KEYS = List.of("MailQueue", "MailQueue:processing", "MailQueue:retry", "MailQueue:dead");
+    private static final long EXPIRE_TIME = 60_000L;
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static RedisServer redisServer;
+    private static LettuceConnectionFactory connectionFactory;
+    private static RedisService redisService;
+
+    private MeterRegistry meterRegistry;
+    private SmtpService smtpService;
+
+    @BeforeAll
+    static void startRedis() throws Exception {
+        redisServer = RedisServer.newRedisServer().start();
+
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redisServer.getHost(), redisServer.getBindPort()));
+        connectionFactory.afterPropertiesSet();
+
+        RedisTemplate<String, String> redisTemplate = new RedisTemplate<>();
+        redisTemplate.setKeySerializer(new StringRedisSerializer());
+        redisTemplate.setValueSerializer(new StringRedisSerializer());
+        redisTemplate.setConnectionFactory(connectionFactory);
+        redisTemplate.afterPropertiesSet();
+
+        redisService = new RedisService(redisTemplate, Optional.empty());
+    }
+
+    @AfterAll
+    static void stopRedis() throws Exception {
+        connectionFactory.destroy();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisService.deleteData(KEYS);
+        meterRegistry = new SimpleMeterRegistry();
+
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
+        javaMailSender.setHost("127.0.0.1");
+        javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+        javaMailSender.setDefaultEncoding("UTF-8");
+        smtpService = new SmtpService(javaMailSender);
+    }
+
+    @Test
+    @DisplayName("큐에 넣은 메일을 worker들이 모두 보내고, 보낸 메일은 큐에 남지 않는다")
+    void dispatchTest() throws Exception {
+        //Given
+        MailQueueService mailQueueService = mailQueueService(smtpService, 5, 1000L);
+        MailDispatcher mailDispatcher = mailDispatcher(mailQueueService, 4);
+        int mails = 50;
+
+        //When
+        mailDispatcher.start();
+        for (int i = 0; i < mails; i++) {
+            mailQueueService.enqueue("user" + i + "@marrymo.site", "Marrymo 이메일 인증 번호", "<h3>123456</h3>", EXPIRE_TIME);
+        }
+
+        //Then
+        assertTrue(greenMail.waitForIncomingEmail(10_000, mails));
+        mailDispatcher.stop();
+        assertEquals(mails, greenMail.getReceivedMessages().length);
+        assertEquals(mails, meterRegistry.counter("marrymo.mail.queue", "result", "sent").count());
+        assertTrue(redisService.getListValues("MailQueue").isEmpty());
+        assertEquals(0, redisService.getScoredSize("MailQueue:processing"));
+    }
+
+    @Test
+    @DisplayName("보내지 못한 메일은 backoff 뒤에 다시 보낸다")
+    void retryTest() throws Exception {
+        //Given
+        SmtpService failingOnce = mock(SmtpService.class);
+        doThrow(new SmtpException(SmtpErrorCode.UNABLE_TO_SEND_EMAIL))
+                .doNothing()
+                .when(failingOnce).sendEmail("user@marrymo.site", "title", "text");
+        MailQueueService mailQueueService = mailQueueService(failingOnce, 5, 200L);
+        mailQueueService.enqueue("user@marrymo.site", "title", "text", EXPIRE_TIME);
+
+        //When, Then
+        assertTrue(mailQueueService.dispatchNext());
+        assertEquals(1, redisService.getScoredSize("MailQueue:retry"));
+        //backoff 전에는 다시 보내지 않는다
+        assertFalse(mailQueueService.dispatchNext());
+
+        Thread.sleep(300);
+        assertTrue(mailQueueService.dispatchNext());
+        verify(failingOnce, times(2)).sendEmail("user@marrymo.site", "title", "text");
+        assertEquals(0, redisService.getScoredSize("MailQueue:retry"));
+        assertEquals(1, meterRegistry.counter("marrymo.mail.queue", "result", "retried").count());
+        assertEquals(1, meterRegistry.counter("marrymo.mail.queue", "result", "sent").count());
+    }
+
+    @Test
+    @DisplayName("max-attempts번 실패한 메일은 dead letter로 옮기고 더 보내지 않는다")
+    void deadLetterTest() throws Exception {
+        //Given
+        SmtpService alwaysFailing = mock(SmtpService.class);
+        doThrow(new SmtpException(SmtpErrorCode.UNABLE_TO_SEND_EMAIL))
+                .when(alwaysFailing).sendEmail("user@marrymo.site", "title", "text");
+        MailQueueService mailQueueService = mailQueueService(alwaysFailing, 3, 10L);
+        mailQueueService.enqueue("user@marrymo.site", "title", "text", EXPIRE_TIME);
+
+        //When
+        for (int i = 0; i < 100 && redisService.getListValues("MailQueue:dead").isEmpty(); i++) {
+            if (!mailQueueService.dispatchNext())
+                Thread.sleep(10);
+        }
+
+        //Then
+        verify(alwaysFailing, times(3)).sendEmail("user@marrymo.site", "title", "text");
+        List<String> deadLetters = redisService.getListValues("MailQueue:dead");
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).contains("\"attempt\":3"));
+        assertEquals(0, redisService.getScoredSize("MailQueue:retry"));
+        assertEquals(0, redisService.getScoredSize("MailQueue:processing"));
+    }
+
+    @Test
+    @DisplayName("처음 뜰 때는 processing-timeout이 지나도록 남은 요청만 되돌리고, 다른 서버가 보내고 있는 요청은 두고 간다")
+    void recoverStaleOnlyTest() throws Exception {
+        //Given
+        MailQueueService mailQueueService = mailQueueService(smtpService, 5, 1000L);
+        long now = System.currentTimeMillis();
+        //죽은 서버가 10분 전에 꺼낸 요청과 살아 있는 서버가 방금 꺼낸 요청
+        MailJob staleJob = new MailJob("stale", "stale@marrymo.site", "title", "text", 0, now, now + EXPIRE_TIME);
+        redisService.addScoredValue("MailQueue:processing", new ObjectMapper().writeValueAsString(staleJob), now - 600_000L);
+        redisService.addScoredValue("MailQueue:processing", "in-flight", now);
+        MailDispatcher mailDispatcher = mailDispatcher(mailQueueService, 1);
+
+        //When
+        mailDispatcher.start();
+
+        //Then
+        assertTrue(greenMail.waitForIncomingEmail(10_000, 1));
+        mailDispatcher.stop();
+        assertEquals("stale@marrymo.site", greenMail.getReceivedMessages()[0].getAllRecipients()[0].toString());
+        assertEquals(1, redisService.getScoredSize("MailQueue:processing"));
+        assertTrue(redisService.getListValues("MailQueue").isEmpty());
+    }
+
+    /**
+     * 요청 스레드에서 직접 보낼 때와 큐에 넣을 때의 응답 시간, worker 수에 따른 처리량
+     * BENCHMARK=true 환경 변수가 있을 때만 실행한다
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+    @DisplayName("메일 큐 응답 시간 / 처리량 벤치마크")
+    void benchmark() throws Exception {
+        int mails = 200;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < mails; i++) {
+            smtpService.sendEmail("sync" + i + "@marrymo.site", "title", "<h3>123456</h3>");
+        }
+        double syncMillis = (System.nanoTime() - start) / 1e6 / mails;
+
+        MailQueueService mailQueueService = mailQueueService(smtpService, 5, 1000L);
+        start = System.nanoTime();
+        for (int i = 0; i < mails; i++) {
+            mailQueueService.enqueue("queue" + i + "@marrymo.site", "title", "<h3>123456</h3>", EXPIRE_TIME);
+        }
+        double enqueueMillis = (System.nanoTime() - start) / 1e6 / mails;
+        System.out.printf("request latency: sync send %.3f ms, enqueue %.3f ms%n", syncMillis, enqueueMillis);
+
+        int received = mails;
+        for (int workers : new int[]{1, 4, 8}) {
+            if (workers != 1) {
+                for (int i = 0; i < mails; i++) {
+                    mailQueueService.enqueue("queue" + i + "@marrymo.site", "title", "<h3>123456</h3>", EXPIRE_TIME);
+                }
+            }
+            received += mails;
+
+            MailDispatcher mailDispatcher = mailDispatcher(mailQueueService, workers);
+            start = System.nanoTime();
+            mailDispatcher.start();
+            assertTrue(greenMail.waitForIncomingEmail(60_000, received));
+            double seconds = (System.nanoTime() - start) / 1e9;
+            mailDispatcher.stop();
+            System.out.printf("throughput: %d workers %.1f mails/s%n", workers, mails / seconds);
+        }
+    }
+
+    private MailQueueService mailQueueService(SmtpService smtpService, int maxAttempts, long retryBackoffMillis) {
+        MailQueueService mailQueueService = new MailQueueService(smtpService, redisService, new ObjectMapper(), meterRegistry);
+        ReflectionTestUtils.setField(mailQueueService, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(mailQueueService, "retryBackoffMillis", retryBackoffMillis);
+        ReflectionTestUtils.setField(mailQueueService, "maxRetryBackoffMillis", 300_000L);
+        ReflectionTestUtils.setField(mailQueueService, "pollIntervalMillis", 10L);
+        ReflectionTestUtils.setField(mailQueueService, "deadLetterLimit", 1000L);
+        ReflectionTestUtils.setField(mailQueueService, "processingTimeoutMillis", 300_000L);
+        return mailQueueService;
+    }
+
+    private MailDispatcher mailDispatcher(MailQueueService mailQueueService, int workers) {
+        MailDispatcher mailDispatcher = new MailDispatcher(mailQueueService);
+        ReflectionTestUtils.setField(mailDispatcher, "workerCount", workers);
+        ReflectionTestUtils.setField(mailDispatcher, "pollIntervalMillis", 10L);
+        ReflectionTestUtils.setField(mailDispatcher, "shutdownTimeoutMillis", 10_000L);
+        return mailDispatcher;
+    }
+}
@@ -0,0 +1,121 @@
+package site.marrymo.restapi.global.smtp.service;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import site.marrymo.restapi.global.smtp.dto.SettlementMail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+//SMTP 서버 대신 GreenMail에 붙여서 테스트한다
+class SmtpServiceTest {
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    //SMTP 연결을 맺은 횟수
+    private final AtomicInteger connections = new AtomicInteger();
+    private SmtpService smtpService;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl() {
+            @Override
+            protected Transport connectTransport() throws MessagingException {
+                connections.incrementAndGet();
+                return super.connectTransport();
+            }
+        };
+        javaMailSender.setHost("127.0.0.1");
+        javaMailSender.setPort(ServerSetupTest.SMTP.getPort());
+        javaMailSender.setDefaultEncoding("UTF-8");
+        smtpService = new SmtpService(javaMailSender);
+    }
+
+    @Test
+    @DisplayName("정산 메일 여러 통을 SMTP 연결 하나로 보낸다")
+    void sendSettlementEmailsTest() throws Exception {
+        //Given
+        List<SettlementMail> mails = settlementMails(30);
+
+        //When
+        List<SettlementMail> failed = smtpService.sendSettlementEmails(mails);
+
+        //Then
+        assertTrue(failed.isEmpty());
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 30));
+        assertEquals(1, connections.get());
+
+        MimeMessage message = greenMail.getReceivedMessagesForDomain("user0@marrymo.site")[0];
+        assertEquals("김씨샵님, 김자바님의 축의금 정산 내역입니다.", message.getSubject());
+        assertTrue(((String) message.getContent()).contains("https://marrymo.site/excel/0"));
+    }
+
+    @Test
+    @DisplayName("보낼 수 없는 메일만 실패로 돌려주고 나머지는 보낸다. 이름은 HTML escape 해서 넣는다")
+    void partialFailureTest() throws Exception {
+        //Given
+        List<SettlementMail> mails = new ArrayList<>(settlementMails(2));
+        SettlementMail invalid = new SettlementMail("not an email", "https://marrymo.site/excel", "김씨샵", "김자바");
+        mails.add(invalid);
+        mails.add(new SettlementMail("script@marrymo.site", "https://marrymo.site/excel", "<script>", "김자바"));
+
+        //When
+        List<SettlementMail> failed = smtpService.sendSettlementEmails(mails);
+
+        //Then
+        assertEquals(List.of(invalid), failed);
+        assertTrue(greenMail.waitForIncomingEmail(5_000, 3));
+        String body = (String) greenMail.getReceivedMessagesForDomain("script@marrymo.site")[0].getContent();
+        assertFalse(body.contains("<script>"));
+        assertTrue(body.contains("&lt;script&gt;"));
+    }
+
+    /**
+     * 메일마다 연결을 맺을 때와 batch마다 한 번 맺을 때의 처리량
+     * BENCHMARK=true 환경 변수가 있을 때만 실행한다
+     */
+    @Test
+    @EnabledIfEnvironmentVariable(named = "BENCHMARK", matches = "true")
+    @DisplayName("정산 메일 batch 발송 벤치마크")
+    void benchmark() {
+        int mails = 300;
+        List<SettlementMail> settlementMails = settlementMails(mails);
+
+        long start = System.nanoTime();
+        for (SettlementMail mail : settlementMails) {
+            smtpService.sendSettlementEmails(List.of(mail));
+        }
+        double singleSeconds = (System.nanoTime() - start) / 1e9;
+        int singleConnections = connections.getAndSet(0);
+
+        start = System.nanoTime();
+        for (int from = 0; from < mails; from += 50) {
+            smtpService.sendSettlementEmails(settlementMails.subList(from, Math.min(mails, from + 50)));
+        }
+        double batchSeconds = (System.nanoTime() - start) / 1e9;
+
+        assertTrue(greenMail.waitForIncomingEmail(60_000, mails * 2));
+        System.out.printf("one connection per mail: %.1f mails/s (%d connections)%n", mails / singleSeconds, singleConnections);
+        System.out.printf("one connection per 50 mails: %.1f mails/s (%d connections)%n", mails / batchSeconds, connections.get());
+    }
+
+    private List<SettlementMail> settlementMails(int count) {
+        List<SettlementMail> mails = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mails.add(new SettlementMail("user" + i + "@marrymo.site", "https://marrymo.site/excel/" + i, "김씨샵", "김자바"));
+        }
+        return mails;
+    }
+}
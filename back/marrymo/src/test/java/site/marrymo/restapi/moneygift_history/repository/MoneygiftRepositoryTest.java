@@ -0,0 +1,132 @@
+package site.marrymo.restapi.moneygift_history.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftSumDTO;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.dto.response.MoneyInfo;
+import site.marrymo.restapi.moneygift_history.entity.Moneygift;
+import site.marrymo.restapi.user.entity.User;
+import site.marrymo.restapi.wishitem.entity.WishItem;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:marrymo;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class MoneygiftRepositoryTest {
+    @Autowired
+    private MoneygiftRepository moneygiftRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("송금 합계와 내역을 엔티티 로딩 없이 조회한다")
+    void moneygiftAggregationTest() {
+        //Given
+        User user = testEntityManager.persist(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("abc123")
+                .isRequired(true)
+                .build());
+
+        WishItem wishItem = testEntityManager.persist(WishItem.builder()
+                .user(user)
+                .name("냉장고")
+                .price(1000000)
+                .img("https://marrymo.site/item/1")
+                .build());
+
+        testEntityManager.persist(new Moneygift(user, null, GuestType.GROOM, Type.CASH, 50000, "친구", "김자바"));
+        testEntityManager.persist(new Moneygift(user, null, GuestType.BRIDE, Type.CASH, 100000, "동료", "김씨샵"));
+        testEntityManager.persist(new Moneygift(user, wishItem, GuestType.BRIDE, Type.ITEM, 30000, "가족", "김파이"));
+        Moneygift deleted = testEntityManager.persist(
+                new Moneygift(user, null, GuestType.GROOM, Type.CASH, 70000, "친구", "김노드"));
+
+        //soft delete 된 내역은 합계와 내역에서 빠져야 한다
+        testEntityManager.remove(deleted);
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        //When
+        Map<Type, Long> sums = moneygiftRepository.sumAmountGroupByType(user.getUserSequence()).stream()
+                .collect(Collectors.toMap(MoneygiftSumDTO::getType, MoneygiftSumDTO::getAmount));
+        List<MoneyInfo> moneyInfoList = moneygiftRepository.findMoneyInfoByUserSequence(user.getUserSequence());
+
+        //Then
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+
+        assertEquals(150000L, sums.get(Type.CASH));
+        assertEquals(30000L, sums.get(Type.ITEM));
+
+        assertEquals(3, moneyInfoList.size());
+        assertEquals("신랑", moneyInfoList.get(0).getGuestType());
+        assertNull(moneyInfoList.get(0).getWishItemSequence());
+        assertEquals("냉장고", moneyInfoList.get(2).getWishItemName());
+        assertEquals(wishItem.getWishItemSequence(), moneyInfoList.get(2).getWishItemSequence());
+        assertEquals("신부", moneyInfoList.get(2).getGuestType());
+    }
+
+    @Test
+    @DisplayName("송금 내역을 cursor 기준으로 최신순 페이지 조회한다")
+    void moneygiftKeysetPageTest() {
+        //Given
+        User user = testEntityManager.persist(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("abc123")
+                .isRequired(true)
+                .build());
+
+        for (int i = 1; i <= 5; i++) {
+            GuestType guestType = (i % 2 == 0) ? GuestType.BRIDE : GuestType.GROOM;
+            testEntityManager.persist(new Moneygift(user, null, guestType, Type.CASH, i * 10000, "친구", "하객" + i));
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        //When
+        List<MoneyInfo> firstPage = moneygiftRepository.findMoneyInfoPage(
+                user.getUserSequence(), null, null, null, PageRequest.of(0, 2));
+        List<MoneyInfo> secondPage = moneygiftRepository.findMoneyInfoPage(
+                user.getUserSequence(), firstPage.get(1).getMoneygiftSequence(), null, null, PageRequest.of(0, 2));
+        List<MoneyInfo> groomPage = moneygiftRepository.findMoneyInfoPage(
+                user.getUserSequence(), null, Type.CASH, GuestType.GROOM, PageRequest.of(0, 10));
+
+        //Then
+        assertEquals(List.of("하객5", "하객4"), firstPage.stream().map(MoneyInfo::getSender).toList());
+        assertEquals(List.of("하객3", "하객2"), secondPage.stream().map(MoneyInfo::getSender).toList());
+        assertEquals(List.of("하객5", "하객3", "하객1"), groomPage.stream().map(MoneyInfo::getSender).toList());
+    }
+}
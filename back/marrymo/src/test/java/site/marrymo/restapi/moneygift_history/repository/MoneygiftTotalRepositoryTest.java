@@ -0,0 +1,78 @@
+package site.marrymo.restapi.moneygift_history.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.entity.Moneygift;
+import site.marrymo.restapi.user.entity.User;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:marrymo;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class MoneygiftTotalRepositoryTest {
+    @Autowired
+    private MoneygiftTotalRepository moneygiftTotalRepository;
+
+    @Autowired
+    private MoneygiftRepository moneygiftRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Test
+    @DisplayName("송금 합계는 upsert로 누적되고, 송금 내역으로 다시 계산한 값과 같다")
+    void upsertAndRebuildTest() {
+        //Given
+        User user = testEntityManager.persist(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("abc123")
+                .isRequired(true)
+                .build());
+        Long userSequence = user.getUserSequence();
+
+        testEntityManager.persist(new Moneygift(user, null, GuestType.GROOM, Type.CASH, 50000, "친구", "김자바"));
+        testEntityManager.persist(new Moneygift(user, null, GuestType.GROOM, Type.CASH, 30000, "동료", "김씨샵"));
+        testEntityManager.persist(new Moneygift(user, null, GuestType.BRIDE, Type.CASH, 10000, "가족", "김파이"));
+        //송금에 실패한 내역은 합계에 들어가지 않는다
+        Moneygift failed = new Moneygift(user, null, GuestType.BRIDE, Type.ITEM, 20000, "친구", "김코틀린");
+        failed.fail();
+        testEntityManager.persist(failed);
+        testEntityManager.flush();
+
+        //When
+        moneygiftTotalRepository.add(userSequence, Type.CASH, GuestType.GROOM, 50000, 1);
+        moneygiftTotalRepository.add(userSequence, Type.CASH, GuestType.GROOM, 30000, 1);
+        moneygiftTotalRepository.add(userSequence, Type.CASH, GuestType.BRIDE, 10000, 1);
+
+        //Then
+        Set<MoneygiftTotalDTO> expected = Set.of(
+                new MoneygiftTotalDTO(userSequence, Type.CASH, GuestType.GROOM, 80000L, 2L),
+                new MoneygiftTotalDTO(userSequence, Type.CASH, GuestType.BRIDE, 10000L, 1L));
+
+        assertEquals(expected, new HashSet<>(moneygiftTotalRepository.findAllTotals()));
+        assertEquals(expected, new HashSet<>(moneygiftRepository.sumAllGroupByUserAndTypeAndGuestType()));
+        assertEquals(80000L + 10000L, moneygiftTotalRepository.sumAmountGroupByType(userSequence).get(0).getAmount());
+
+        //합계가 어긋나도 송금 내역 기준으로 다시 채울 수 있다
+        moneygiftTotalRepository.add(userSequence, Type.ITEM, GuestType.BRIDE, 99999, 1);
+        moneygiftTotalRepository.deleteByUserSequence(userSequence);
+        moneygiftTotalRepository.insertFromHistory(userSequence);
+
+        assertEquals(expected, new HashSet<>(moneygiftTotalRepository.findAllTotals()));
+    }
+}
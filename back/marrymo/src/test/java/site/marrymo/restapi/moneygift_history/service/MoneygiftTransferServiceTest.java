@@ -0,0 +1,219 @@
+package site.marrymo.restapi.moneygift_history.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import site.marrymo.restapi.bank.service.MoBankService;
+import site.marrymo.restapi.moneygift_history.dto.GuestType;
+import site.marrymo.restapi.moneygift_history.dto.MoneygiftTotalDTO;
+import site.marrymo.restapi.moneygift_history.dto.TransferStatus;
+import site.marrymo.restapi.moneygift_history.dto.Type;
+import site.marrymo.restapi.moneygift_history.dto.request.MoBankTransferRequest;
+import site.marrymo.restapi.moneygift_history.dto.response.MoBankTransferResponse;
+import site.marrymo.restapi.moneygift_history.entity.Moneygift;
+import site.marrymo.restapi.moneygift_history.entity.MoneygiftTransfer;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftRepository;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftTotalRepository;
+import site.marrymo.restapi.moneygift_history.repository.MoneygiftTransferRepository;
+import site.marrymo.restapi.user.entity.User;
+import site.marrymo.restapi.user.repository.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+//outbox 저장 / claim / 결과 기록이 각자 커밋되어야 하므로 테스트를 트랜잭션으로 감싸지 않는다
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:moneygift_transfer;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class MoneygiftTransferServiceTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MoneygiftRepository moneygiftRepository;
+
+    @Autowired
+    private MoneygiftTotalRepository moneygiftTotalRepository;
+
+    @Autowired
+    private MoneygiftTransferRepository moneygiftTransferRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private MoBankService moBankService;
+    private MeterRegistry meterRegistry;
+    private MoneygiftTransferService moneygiftTransferService;
+    private Long userSequence;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        moBankService = mock(MoBankService.class);
+        meterRegistry = new SimpleMeterRegistry();
+
+        moneygiftTransferService = new MoneygiftTransferService(moBankService, moneygiftTransferRepository,
+                moneygiftTotalRepository, transactionTemplate, meterRegistry);
+        ReflectionTestUtils.setField(moneygiftTransferService, "batchSize", 50);
+        ReflectionTestUtils.setField(moneygiftTransferService, "concurrency", 4);
+        ReflectionTestUtils.setField(moneygiftTransferService, "maxAttempts", 3);
+        ReflectionTestUtils.setField(moneygiftTransferService, "retryBackoffMillis", 200L);
+        ReflectionTestUtils.setField(moneygiftTransferService, "maxRetryBackoffMillis", 600_000L);
+        ReflectionTestUtils.setField(moneygiftTransferService, "leaseMillis", 300_000L);
+        ReflectionTestUtils.setField(moneygiftTransferService, "pollIntervalMillis", 10L);
+
+        userSequence = userRepository.save(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("abc123")
+                .isRequired(true)
+                .build()).getUserSequence();
+    }
+
+    @AfterEach
+    void tearDown() {
+        moneygiftTransferRepository.deleteAllInBatch();
+        moneygiftTotalRepository.deleteAllInBatch();
+        moneygiftRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("outbox의 송금을 concurrency개씩 동시에 보내고, 성공한 송금과 내역을 SETTLED로 바꾼다")
+    void settleTest() {
+        //Given
+        int transfers = 20;
+        for (int i = 0; i < transfers; i++) {
+            sendMoneygift(50000);
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(moBankService.sendMoneyAsync(any(MoBankTransferRequest.class), anyString()))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(50))
+                        .doOnSubscribe(subscription -> maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doOnNext(tick -> inFlight.decrementAndGet())
+                        .thenReturn(new MoBankTransferResponse()));
+
+        //When
+        int dispatched = moneygiftTransferService.dispatchDue();
+
+        //Then
+        assertEquals(transfers, dispatched);
+        assertEquals(4, maxInFlight.get());
+        //송금마다 다른 idempotency key를 보낸다
+        Set<String> idempotencyKeys = new HashSet<>();
+        for (MoneygiftTransfer moneygiftTransfer : moneygiftTransferRepository.findAll()) {
+            assertEquals(TransferStatus.SETTLED, moneygiftTransfer.getStatus());
+            assertEquals(1, moneygiftTransfer.getAttempt());
+            idempotencyKeys.add(moneygiftTransfer.getIdempotencyKey());
+            verify(moBankService).sendMoneyAsync(any(MoBankTransferRequest.class), eq(moneygiftTransfer.getIdempotencyKey()));
+        }
+        assertEquals(transfers, idempotencyKeys.size());
+        assertTrue(moneygiftRepository.findAll().stream()
+                .allMatch(moneygift -> moneygift.getTransferStatus() == TransferStatus.SETTLED));
+        assertEquals(transfers, meterRegistry.counter("marrymo.moneygift.transfer", "result", "settled").count());
+        //다시 보낼 송금이 없다
+        assertEquals(0, moneygiftTransferService.dispatchDue());
+    }
+
+    @Test
+    @DisplayName("일시적인 오류는 backoff 뒤에 같은 idempotency key로 다시 보내고, MoBank가 거절하면 FAILED로 바꿔 합계에서 뺀다")
+    void retryAndFailTest() throws Exception {
+        //Given
+        sendMoneygift(30000);
+        when(moBankService.sendMoneyAsync(any(MoBankTransferRequest.class), anyString()))
+                .thenReturn(Mono.error(WebClientResponseException.create(503, "Service Unavailable", HttpHeaders.EMPTY, new byte[0], null)))
+                .thenReturn(Mono.error(WebClientResponseException.create(400, "Bad Request", HttpHeaders.EMPTY, new byte[0], null)));
+
+        //When, Then
+        assertEquals(1, moneygiftTransferService.dispatchDue());
+        MoneygiftTransfer retried = moneygiftTransferRepository.findAll().get(0);
+        assertEquals(TransferStatus.PENDING, retried.getStatus());
+        assertTrue(retried.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        assertTrue(retried.getLastError().startsWith("503"));
+        //backoff 전에는 다시 보내지 않는다
+        assertEquals(0, moneygiftTransferService.dispatchDue());
+
+        Thread.sleep(300);
+        assertEquals(1, moneygiftTransferService.dispatchDue());
+        verify(moBankService, times(2)).sendMoneyAsync(any(MoBankTransferRequest.class), eq(retried.getIdempotencyKey()));
+
+        MoneygiftTransfer failed = moneygiftTransferRepository.findAll().get(0);
+        assertEquals(TransferStatus.FAILED, failed.getStatus());
+        assertEquals(2, failed.getAttempt());
+        Moneygift moneygift = moneygiftRepository.findAll().get(0);
+        assertEquals(TransferStatus.FAILED, moneygift.getTransferStatus());
+
+        //실패한 송금은 합계와 내역 조회에서 빠진다
+        Set<MoneygiftTotalDTO> empty = Set.of(new MoneygiftTotalDTO(userSequence, Type.CASH, GuestType.GROOM, 0L, 0L));
+        assertEquals(empty, new HashSet<>(moneygiftTotalRepository.findAllTotals()));
+        assertTrue(moneygiftRepository.sumAllGroupByUserAndTypeAndGuestType().isEmpty());
+        assertTrue(moneygiftRepository.findMoneyInfoByUserSequence(userSequence).isEmpty());
+        assertEquals(1, meterRegistry.counter("marrymo.moneygift.transfer", "result", "failed").count());
+    }
+
+    @Test
+    @DisplayName("이미 가져간 송금은 lease가 끝나기 전에 다시 가져가지 못한다")
+    void claimTest() {
+        //Given
+        Long sequence = sendMoneygift(10000).getMoneygiftTransferSequence();
+        LocalDateTime now = LocalDateTime.now();
+
+        //When
+        int first = transactionTemplate.execute(status -> moneygiftTransferRepository.claim(sequence, now, now.plusMinutes(5)));
+        int second = transactionTemplate.execute(status -> moneygiftTransferRepository.claim(sequence, now, now.plusMinutes(5)));
+
+        //Then
+        assertEquals(1, first);
+        assertEquals(0, second);
+        assertEquals(List.of(), moneygiftTransferRepository.findDueSequences(now, PageRequest.of(0, 10)));
+    }
+
+    //MoneygiftService.sendMoneygift처럼 송금 내역, outbox, 합계를 한 트랜잭션에서 저장한다
+    private MoneygiftTransfer sendMoneygift(int amount) {
+        return transactionTemplate.execute(status -> {
+            User user = userRepository.findById(userSequence).orElseThrow();
+            Moneygift moneygift = moneygiftRepository.save(
+                    new Moneygift(user, null, GuestType.GROOM, Type.CASH, amount, "친구", "김자바"));
+            MoneygiftTransfer moneygiftTransfer = moneygiftTransferService.enqueue(moneygift, MoBankTransferRequest.builder()
+                    .tranAmt(amount)
+                    .senderName("메리모")
+                    .senderAccountNum("0000")
+                    .receiverName("김자바")
+                    .receiverAccountNum("1111")
+                    .tranMsg("[메리모] 김자바송금")
+                    .build());
+            moneygiftTotalRepository.add(userSequence, Type.CASH, GuestType.GROOM, amount, 1L);
+            return moneygiftTransfer;
+        });
+    }
+}
@@ -0,0 +1,145 @@
+package site.marrymo.restapi.user.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+import site.marrymo.restapi.card.entity.Card;
+import site.marrymo.restapi.user.dto.InvitationDTO;
+import site.marrymo.restapi.user.dto.UserIdentity;
+import site.marrymo.restapi.user.entity.User;
+import site.marrymo.restapi.wedding_img.entity.WeddingImg;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:marrymo;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class UserRepositoryTest {
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("청첩장 조회는 쿼리 한 번으로 삭제되지 않은 이미지만 가져온다")
+    void findInvitationByUserCodeTest() {
+        //Given
+        User user = testEntityManager.persist(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("abc123")
+                .email("pdy6519@naver.com")
+                .isRequired(true)
+                .build());
+
+        Card card = testEntityManager.persist(Card.builder()
+                .user(user)
+                .groomName("김자바")
+                .brideName("김씨샵")
+                .groomContact("010-1234-5678")
+                .brideContact("010-1234-7890")
+                .weddingDate(LocalDate.of(2024, 7, 31))
+                .weddingTime(LocalTime.of(12, 0))
+                .weddingDay("월")
+                .location("역삼동")
+                .greeting("부부에게 행운이 깃들기를")
+                .isIssued(false)
+                .build());
+
+        testEntityManager.persist(WeddingImg.builder().card(card).imgUrl("https://marrymo.site/abc123/1").build());
+        WeddingImg deletedImg = testEntityManager.persist(
+                WeddingImg.builder().card(card).imgUrl("https://marrymo.site/abc123/2").build());
+        testEntityManager.persist(WeddingImg.builder().card(card).imgUrl("https://marrymo.site/abc123/3").build());
+
+        //soft delete (deleted_at 설정)
+        testEntityManager.remove(deletedImg);
+        testEntityManager.flush();
+        testEntityManager.clear();
+        statistics.clear();
+
+        //When
+        List<InvitationDTO> rows = userRepository.findInvitationByUserCode("abc123");
+
+        //Then
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, rows.size());
+        assertEquals("김자바", rows.get(0).getGroomName());
+        assertEquals(card.getCardSequence(), rows.get(0).getCardSequence());
+        assertEquals(List.of("https://marrymo.site/abc123/1", "https://marrymo.site/abc123/3"),
+                rows.stream().map(InvitationDTO::getImgUrl).toList());
+    }
+
+    @Test
+    @DisplayName("카드가 없는 회원은 카드 정보가 비어 있는 row 하나를 반환한다")
+    void findInvitationWithoutCardTest() {
+        //Given
+        testEntityManager.persist(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("def456")
+                .isRequired(true)
+                .build());
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        //When
+        List<InvitationDTO> rows = userRepository.findInvitationByUserCode("def456");
+
+        //Then
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0).getCardSequence());
+        assertNull(rows.get(0).getImgUrl());
+        assertTrue(userRepository.findInvitationByUserCode("none").isEmpty());
+    }
+
+    @Test
+    @DisplayName("userCode 식별 정보는 탈퇴 여부를 함께 가져온다")
+    void findIdentityByUserCodeTest() {
+        //Given
+        User user = testEntityManager.persist(User.builder()
+                .kakaoId("pdy6519@naver.com")
+                .userCode("ghi789")
+                .email("pdy6519@naver.com")
+                .isRequired(true)
+                .build());
+        testEntityManager.flush();
+
+        //When
+        UserIdentity active = userRepository.findIdentityByUserCode("ghi789").orElseThrow();
+        testEntityManager.remove(user);
+        testEntityManager.flush();
+        testEntityManager.clear();
+        UserIdentity deleted = userRepository.findIdentityByUserCode("ghi789").orElseThrow();
+
+        //Then
+        assertEquals(user.getUserSequence(), active.getUserSequence());
+        assertEquals("pdy6519@naver.com", active.getEmail());
+        assertFalse(active.isDeleted());
+        assertTrue(deleted.isDeleted());
+    }
+}
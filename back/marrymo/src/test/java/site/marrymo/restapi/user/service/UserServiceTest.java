@@ -16,6 +16,8 @@ import site.marrymo.restapi.card.exception.CardErrorCode;
 import site.marrymo.restapi.card.exception.CardException;
 import site.marrymo.restapi.card.repository.CardRepository;
 import site.marrymo.restapi.global.exception.MarrymoException;
+import site.marrymo.restapi.global.jwt.JWTProvider;
+import site.marrymo.restapi.global.jwt.dto.ParsedToken;
 import site.marrymo.restapi.user.dto.UserDTO;
 import site.marrymo.restapi.user.dto.Who;
 import site.marrymo.restapi.user.dto.request.InvitationIssueRequest;
@@ -54,6 +56,9 @@ class UserServiceTest {
     @Mock
     private WeddingImgRepository weddingImgRepository;
 
+    @Mock
+    private JWTProvider jwtProvider;
+
     @Mock
     private HttpServletRequest httpServletRequest;
 
@@ -548,6 +553,8 @@ class UserServiceTest {
         Cookie[] cookies = {accessTokenCookie, refreshTokenCookie};
 
         when(httpServletRequest.getCookies()).thenReturn(cookies);
+        ParsedToken parsedRefreshToken = ParsedToken.invalid("sampleRefreshToken");
+        when(jwtProvider.parseToken("sampleRefreshToken")).thenReturn(parsedRefreshToken);
 
         // When
         userService.logout(httpServletRequest, httpServletResponse);
@@ -558,8 +565,7 @@ class UserServiceTest {
                     result.getName().equals(cookie.getName()) && result.getMaxAge() == 0));
         }
 
-        verify(blackListRepository, times(1)).save(argThat(blackList ->
-                blackList.getInvalidRefreshToken().equals("sampleRefreshToken")));
+        verify(jwtProvider, times(1)).revokeToken(parsedRefreshToken);
     }
 
 }
\ No newline at end of file
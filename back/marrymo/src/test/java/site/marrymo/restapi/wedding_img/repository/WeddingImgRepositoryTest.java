@@ -0,0 +1,79 @@
+package site.marrymo.restapi.wedding_img.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
+import site.marrymo.restapi.card.entity.Card;
+import site.marrymo.restapi.user.entity.User;
+import site.marrymo.restapi.wedding_img.entity.WeddingImg;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:marrymo;MODE=MySQL;NON_KEYWORDS=USER",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+class WeddingImgRepositoryTest {
+    @Autowired
+    private WeddingImgRepository weddingImgRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Test
+    @DisplayName("청첩장 이미지 삭제는 해당 청첩장의 이미지만 soft delete 한다")
+    void softDeleteByCardTest() {
+        //Given
+        Card card = persistCard("abc123");
+        Card otherCard = persistCard("def456");
+
+        weddingImgRepository.saveAll(List.of(
+                WeddingImg.builder().card(card).imgUrl("https://marrymo.site/abc123/1").build(),
+                WeddingImg.builder().card(card).imgUrl("https://marrymo.site/abc123/2").build(),
+                WeddingImg.builder().card(otherCard).imgUrl("https://marrymo.site/def456/1").build()));
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        //When
+        int deleted = weddingImgRepository.softDeleteByCard(card);
+        testEntityManager.clear();
+
+        //Then
+        assertEquals(2, deleted);
+        assertTrue(weddingImgRepository.findImgUrlByUserSequence(card.getUser().getUserSequence()).isEmpty());
+        assertEquals(List.of("https://marrymo.site/def456/1"),
+                weddingImgRepository.findImgUrlByUserSequence(otherCard.getUser().getUserSequence()));
+    }
+
+    private Card persistCard(String userCode) {
+        User user = testEntityManager.persist(User.builder()
+                .kakaoId(userCode + "@kakao.com")
+                .userCode(userCode)
+                .isRequired(true)
+                .build());
+
+        return testEntityManager.persist(Card.builder()
+                .user(user)
+                .groomName("김자바")
+                .brideName("김씨샵")
+                .groomContact("010-1234-5678")
+                .brideContact("010-1234-7890")
+                .weddingDate(LocalDate.of(2024, 7, 31))
+                .weddingTime(LocalTime.of(12, 0))
+                .weddingDay("월")
+                .location("역삼동")
+                .greeting("부부에게 행운이 깃들기를")
+                .isIssued(false)
+                .build());
+    }
+}